@@ -0,0 +1,39 @@
+package com.freshcut.bench;
+
+import java.io.File;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Lanza los benchmarks que casan con el primer argumento, una vez por cada número de hilos de
+ * {@code bench.threads} (p. ej. "1,4,16,64"). Cada pasada deja su JSON en {@code bench.out}, con la versión
+ * del proyecto en el nombre para poder comparar resultados entre releases. Incluye el perfilador GC
+ * (bytes reservados por operación) además de la latencia o el throughput.
+ */
+public final class BenchRunner {
+    private BenchRunner() {}
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : ".*";
+        File outDir = new File(System.getProperty("bench.out", "target/jmh"));
+        outDir.mkdirs();
+        String version = System.getProperty("bench.version", "dev");
+        String tag = include.replaceAll("[^A-Za-z0-9]+", "_");
+        for (String t : System.getProperty("bench.threads", "1").split(",")) {
+            int threads = Integer.parseInt(t.trim());
+            Options opts = new OptionsBuilder()
+                    .include(include)
+                    .threads(threads)
+                    .addProfiler(GCProfiler.class)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(new File(outDir, "jmh-" + version + "-" + tag + "-t" + threads + ".json").getPath())
+                    .build();
+            new Runner(opts).run();
+        }
+    }
+}
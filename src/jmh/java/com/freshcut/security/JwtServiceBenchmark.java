@@ -0,0 +1,48 @@
+package com.freshcut.security;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.jsonwebtoken.Claims;
+
+/**
+ * Verificación de un token tal y como la hace JwtAuthFilter en cada petición autenticada:
+ * {@code parse} (caché de tokens verificados) frente a {@code verify} (firma HMAC + JSON en cada llamada).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtServiceBenchmark {
+    private JwtService jwtService;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService("benchmark-secret-benchmark-secret-benchmark-secret", 3_600_000);
+        token = jwtService.generate("cliente@freshcut.com", Map.of("role", "CLIENT"));
+    }
+
+    @Benchmark
+    public Claims parse() {
+        return jwtService.parse(token);
+    }
+
+    @Benchmark
+    public Claims verify() {
+        return jwtService.verify(token);
+    }
+}
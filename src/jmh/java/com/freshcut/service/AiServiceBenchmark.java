@@ -0,0 +1,35 @@
+package com.freshcut.service;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Post-procesado de la respuesta del modelo: la salida típica trae markdown, títulos y más de tres líneas. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AiServiceBenchmark {
+    private final String reply = "**Opciones:**\n"
+            + "1. **Fade medio** con la parte superior texturizada para equilibrar un rostro redondo.\n"
+            + "2) Pompadour corto, que alarga visualmente la cara y suaviza los pómulos.\n"
+            + "\n"
+            + "3. Side part clásico con raya marcada y laterales a tijera.\n"
+            + "4. Crop texturizado con flequillo corto.\n"
+            + "Estilos: cualquiera de estos funciona con barba corta.";
+
+    @Benchmark
+    public String normalizeToThreeRecommendations() {
+        return AiService.normalizeToThreeRecommendations(reply);
+    }
+}
@@ -0,0 +1,53 @@
+package com.freshcut.service;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import com.freshcut.util.CredentialUtils;
+
+/**
+ * Coste de un login y de un registro según {@code auth.bcrypt.cost}. Cada punto de coste dobla el tiempo; con
+ * {@code auth.hashing.threads} hilos, el pool aguanta unos {@code threads * 1000 / matches} logins por segundo.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BCryptCostBenchmark {
+    @Param({"8", "10", "12"})
+    public int cost;
+
+    private final String sha = CredentialUtils.sha256Hex("Secreta#2024");
+    private BCryptPasswordEncoder encoder;
+    private String hash;
+
+    @Setup
+    public void setUp() {
+        encoder = new BCryptPasswordEncoder(cost);
+        hash = encoder.encode(sha);
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return encoder.matches(sha, hash);
+    }
+
+    @Benchmark
+    public String encode() {
+        return encoder.encode(sha);
+    }
+}
@@ -0,0 +1,94 @@
+package com.freshcut.service.strategy;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Detección de rostro sobre un JPEG de ~10 MB (el máximo que aceptan los endpoints de foto):
+ * imagen grande con tonos de piel en el centro y ruido para que el JPEG no comprima.
+ * Compara el detector completo con el submuestreado; BenchRunner añade el perfilador GC,
+ * cuyo {@code gc.alloc.rate.norm} da los bytes de heap reservados por llamada.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+@State(Scope.Benchmark)
+public class FaceDetectionBenchmark {
+    private static final int TARGET_BYTES = 10 * 1024 * 1024;
+
+    @Param({ "full", "subsampled" })
+    public String mode;
+
+    private FaceDetectionStrategy strategy;
+    private byte[] jpeg;
+
+    @Setup
+    public void setUp() throws IOException {
+        strategy = "full".equals(mode) ? new DefaultFaceDetectionStrategy() : new SubsampledFaceDetectionStrategy();
+        int w = 4000;
+        int h = 3000;
+        BufferedImage img = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        SplittableRandom random = new SplittableRandom(42);
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                boolean center = Math.abs(x - w / 2) < w / 4 && Math.abs(y - h / 2) < h / 4;
+                int r = center ? 200 : 60;
+                int g = center ? 150 : 90;
+                int b = center ? 120 : 140;
+                int n = random.nextInt(-40, 41);
+                img.setRGB(x, y, (clamp(r + n) << 16) | (clamp(g + n) << 8) | clamp(b + n));
+            }
+        }
+        jpeg = encode(img, 1.0f);
+        if (jpeg.length < TARGET_BYTES * 8 / 10) {
+            throw new IllegalStateException("JPEG de prueba demasiado pequeño: " + jpeg.length + " bytes");
+        }
+    }
+
+    @Benchmark
+    public boolean isLikelyFacePhoto() {
+        return strategy.isLikelyFacePhoto(jpeg, "image/jpeg");
+    }
+
+    private static int clamp(int v) {
+        return Math.max(0, Math.min(255, v));
+    }
+
+    private static byte[] encode(BufferedImage img, float quality) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(TARGET_BYTES);
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(ios);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.write(null, new IIOImage(img, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+}
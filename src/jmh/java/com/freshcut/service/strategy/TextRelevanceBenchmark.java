@@ -0,0 +1,64 @@
+package com.freshcut.service.strategy;
+
+import java.io.IOException;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+
+import com.freshcut.config.AiKeywordsProperties;
+import com.freshcut.service.KeywordMatcher;
+
+/** Relevancia de texto (listas de application.properties) con mensajes cortos y con una conversación larga concatenada. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TextRelevanceBenchmark {
+
+    @Param({ "short", "offTopic", "conversation" })
+    public String input;
+
+    private TextRelevanceStrategy strategy;
+    private String text;
+
+    @Setup
+    public void setUp() throws IOException {
+        Properties props = PropertiesLoaderUtils.loadAllProperties("application.properties");
+        AiKeywordsProperties keywords = new Binder(new MapConfigurationPropertySource(props))
+                .bind("ai.keywords", AiKeywordsProperties.class).get();
+        strategy = new DefaultTextRelevanceStrategy(new KeywordMatcher(keywords));
+        switch (input) {
+            case "short" -> text = "Tengo la cara redonda, ¿qué corte me queda mejor?";
+            case "offTopic" -> text = "¿Qué tal el clima hoy? Cuéntame un chiste sobre programación";
+            default -> {
+                StringBuilder sb = new StringBuilder();
+                for (int i = 0; i < 40; i++) {
+                    sb.append("Mi rostro es ovalado con la mandíbula marcada y el pelo grueso; ")
+                      .append("antes llevaba un fade medio pero quiero algo distinto para el trabajo. ");
+                }
+                text = sb.toString();
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean isRelevantText() {
+        return strategy.isRelevantText(text);
+    }
+}
@@ -0,0 +1,69 @@
+package com.freshcut.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Helpers de credenciales que corren en cada login/registro antes de BCrypt: {@link CredentialUtils} frente a la
+ * versión anterior (regex recompilada en cada llamada, {@code getInstance} y {@code String.format} por byte).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CredentialUtilsBenchmark {
+    private final String password = "Secreta#2024";
+    private final String hex = "9F86D081884C7D659A2FEAA0C55AD015A3BF4F1B2B0B822CD15D6C15B0F00A08";
+
+    @Benchmark
+    public String sha256() {
+        return CredentialUtils.sha256Hex(password);
+    }
+
+    @Benchmark
+    public String sha256Legacy() throws Exception {
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(password.getBytes(StandardCharsets.UTF_8));
+        StringBuilder sb = new StringBuilder(digest.length * 2);
+        for (byte b : digest) sb.append(String.format("%02x", b));
+        return sb.toString();
+    }
+
+    @Benchmark
+    public boolean isSha256HexMatch() {
+        return CredentialUtils.isSha256Hex(hex);
+    }
+
+    @Benchmark
+    public boolean isSha256HexMatchLegacy() {
+        String t = hex.trim();
+        return t.length() == 64 && t.matches("[a-fA-F0-9]{64}");
+    }
+
+    @Benchmark
+    public boolean isSha256HexPlainPassword() {
+        return CredentialUtils.isSha256Hex(password);
+    }
+
+    @Benchmark
+    public boolean isStrongPassword() {
+        return CredentialUtils.isStrongPassword(password);
+    }
+
+    @Benchmark
+    public boolean isStrongPasswordLegacy() {
+        return password.matches("^(?=.*[a-z])(?=.*[A-Z])(?=.*\\d)(?=.*[^A-Za-z0-9]).{8,}$");
+    }
+}
@@ -0,0 +1,92 @@
+package com.freshcut.util;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link LruCache} (un único monitor) frente a {@link ShardedLruCache} con lecturas mayoritarias sobre claves
+ * sesgadas, como las del catálogo. Ejecutar con {@code -Dbench.threads=1,2,4,8,16,32,64}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LruCacheBenchmark {
+    private static final int KEYS = 1 << 14;
+
+    interface Cache {
+        Object get(String key);
+        void put(String key, Object value);
+    }
+
+    @Param({ "synchronized", "sharded" })
+    public String impl;
+
+    @Param({ "1024" })
+    public int maxSize;
+
+    private Cache cache;
+    private String[] keys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if ("sharded".equals(impl)) {
+            ShardedLruCache<String, Object> c = new ShardedLruCache<>(maxSize, 60_000);
+            cache = new Cache() {
+                public Object get(String key) { return c.get(key); }
+                public void put(String key, Object value) { c.put(key, value); }
+            };
+        } else {
+            LruCache<String, Object> c = new LruCache<>(maxSize, 60_000);
+            cache = new Cache() {
+                public Object get(String key) { return c.get(key); }
+                public void put(String key, Object value) { c.put(key, value); }
+            };
+        }
+        keys = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) keys[i] = "servicio-" + i;
+        for (int i = 0; i < maxSize; i++) cache.put(keys[i], keys[i]);
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private final SplittableRandom random = new SplittableRandom();
+
+        // Sesgo aproximadamente exponencial: la mayoría de accesos caen en las primeras claves
+        int next() {
+            int bits = random.nextInt(14) + 1;
+            return random.nextInt(1 << bits);
+        }
+    }
+
+    @Benchmark
+    public Object readThrough(Cursor cursor) {
+        String key = keys[cursor.next()];
+        Object v = cache.get(key);
+        if (v == null) {
+            cache.put(key, key);
+            return key;
+        }
+        return v;
+    }
+
+    @Benchmark
+    public Object hotRead(Cursor cursor) {
+        return cache.get(keys[cursor.next() & (maxSize - 1)]);
+    }
+}
@@ -0,0 +1,94 @@
+package com.freshcut.util;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Coste de la huella dHash de una foto subida: lectura submuestreada (lo que usa la caché) frente a decodificar la
+ * imagen entera con ImageIO.read y reducirla después. Con el perfilador GC de BenchRunner, {@code gc.alloc.rate.norm}
+ * muestra la diferencia de heap por llamada.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+@State(Scope.Benchmark)
+public class PerceptualHashBenchmark {
+
+    @Param({ "1600x1200", "4000x3000" })
+    public String size;
+
+    private byte[] jpeg;
+
+    @Setup
+    public void setUp() throws IOException {
+        String[] wh = size.split("x");
+        int w = Integer.parseInt(wh[0]);
+        int h = Integer.parseInt(wh[1]);
+        BufferedImage img = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        SplittableRandom random = new SplittableRandom(42);
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                boolean center = Math.abs(x - w / 2) < w / 4 && Math.abs(y - h / 2) < h / 4;
+                int n = random.nextInt(-40, 41);
+                int r = (center ? 200 : 60) + n;
+                int g = (center ? 150 : 90) + n;
+                int b = (center ? 120 : 140) + n;
+                img.setRGB(x, y, (clamp(r) << 16) | (clamp(g) << 8) | clamp(b));
+            }
+        }
+        jpeg = encode(img);
+    }
+
+    @Benchmark
+    public long subsampledDecode() throws IOException {
+        return PerceptualHash.dHash(jpeg);
+    }
+
+    @Benchmark
+    public long fullDecode() throws IOException {
+        return PerceptualHash.dHash(ImageIO.read(new ByteArrayInputStream(jpeg)));
+    }
+
+    private static int clamp(int v) {
+        return Math.max(0, Math.min(255, v));
+    }
+
+    private static byte[] encode(BufferedImage img) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(ios);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(0.95f);
+            writer.write(null, new IIOImage(img, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+}
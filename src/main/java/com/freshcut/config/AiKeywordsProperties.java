@@ -0,0 +1,32 @@
+package com.freshcut.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Listas de palabras clave del asistente (ai.keywords.* en application.properties).
+ * Se comparan sin tildes ni mayúsculas y como subcadena, así que basta con la raíz ("redond", "recomend").
+ */
+@ConfigurationProperties(prefix = "ai.keywords")
+public class AiKeywordsProperties {
+    // Relevancia de la pregunta: suma uno por cada término del dominio y resta uno por cada término ajeno
+    private List<String> domain = new ArrayList<>();
+    private List<String> offTopic = new ArrayList<>();
+    // Validación de la respuesta del modelo
+    private List<String> allowedStyles = new ArrayList<>();
+    private List<String> facial = new ArrayList<>();
+    private List<String> banned = new ArrayList<>();
+
+    public List<String> getDomain() { return domain; }
+    public void setDomain(List<String> domain) { this.domain = domain; }
+    public List<String> getOffTopic() { return offTopic; }
+    public void setOffTopic(List<String> offTopic) { this.offTopic = offTopic; }
+    public List<String> getAllowedStyles() { return allowedStyles; }
+    public void setAllowedStyles(List<String> allowedStyles) { this.allowedStyles = allowedStyles; }
+    public List<String> getFacial() { return facial; }
+    public void setFacial(List<String> facial) { this.facial = facial; }
+    public List<String> getBanned() { return banned; }
+    public void setBanned(List<String> banned) { this.banned = banned; }
+}
@@ -0,0 +1,10 @@
+package com.freshcut.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Tareas periódicas en segundo plano (recarga del catálogo, etc.)
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -2,6 +2,7 @@ package com.freshcut.config;
 
 import java.util.List;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -18,6 +19,8 @@ import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import com.freshcut.security.JwtAuthFilter;
 
+import jakarta.servlet.DispatcherType;
+
 @Configuration
 public class SecurityConfig {
     private final JwtAuthFilter jwtAuthFilter;
@@ -33,14 +36,17 @@ public class SecurityConfig {
             .cors(Customizer.withDefaults())
             .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> auth
+                // La petición original ya fue autorizada; el despacho asíncrono (streaming) solo escribe la respuesta
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
                 .requestMatchers("/", "/health").permitAll()
                 .requestMatchers("/api/auth/**").permitAll()
                 .requestMatchers("/api/ai/**").permitAll()
                 .requestMatchers(HttpMethod.GET, "/api/profile/avatar/**").permitAll()
-                .requestMatchers(HttpMethod.GET, "/api/barbers", "/api/services").permitAll()
+                .requestMatchers(HttpMethod.GET, "/api/barbers", "/api/services", "/api/barbers/*/availability").permitAll()
                 .requestMatchers("/api/barber/**").hasRole("BARBER")
                 .requestMatchers("/api/admin/**").hasRole("ADMIN")
+                .requestMatchers("/actuator/**").hasRole("ADMIN")
                 .anyRequest().authenticated()
             )
             .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class);
@@ -60,8 +66,9 @@ public CorsConfigurationSource corsConfigurationSource() {
     return source;
 }
 
+    // Coste para hashes nuevos; los de coste menor se rehacen en el siguiente login (AuthService)
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${auth.bcrypt.cost:10}") int cost) {
+        return new BCryptPasswordEncoder(cost);
     }
 }
\ No newline at end of file
@@ -0,0 +1,36 @@
+package com.freshcut.controller;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.freshcut.service.ChatLogRetentionService;
+
+@RestController
+@RequestMapping("/api/admin/chat-logs")
+@CrossOrigin(origins = "*")
+public class AdminChatLogController {
+    private final ChatLogRetentionService retention;
+
+    public AdminChatLogController(ChatLogRetentionService retention) {
+        this.retention = retention;
+    }
+
+    // Tamaño de chat_logs, guardados / no guardados, ficheros de archivo y última pasada de archivado
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> stats() throws IOException {
+        return ResponseEntity.ok(retention.stats());
+    }
+
+    // Lanza el archivado sin esperar a la pasada nocturna
+    @PostMapping("/archive")
+    public ResponseEntity<ChatLogRetentionService.ArchiveRun> archive() throws IOException {
+        return ResponseEntity.ok(retention.archiveOldLogs());
+    }
+}
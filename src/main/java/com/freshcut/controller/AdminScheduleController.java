@@ -1,12 +1,16 @@
 package com.freshcut.controller;
 
-import java.util.List;
+import java.util.function.Function;
 
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.freshcut.db.model.Schedule;
 import com.freshcut.db.repository.ScheduleRepository;
+import com.freshcut.service.BookingIndex;
+import com.freshcut.service.ListingService;
 
 import jakarta.validation.Valid;
 
@@ -15,28 +19,52 @@ import jakarta.validation.Valid;
 @CrossOrigin(origins = "*")
 public class AdminScheduleController {
     private final ScheduleRepository repo;
+    private final BookingIndex bookingIndex;
+    private final ListingService listingService;
 
-    public AdminScheduleController(ScheduleRepository repo) { this.repo = repo; }
+    public AdminScheduleController(ScheduleRepository repo, BookingIndex bookingIndex, ListingService listingService) {
+        this.repo = repo;
+        this.bookingIndex = bookingIndex;
+        this.listingService = listingService;
+    }
 
     @GetMapping
-    public List<Schedule> list() { return repo.findAll(); }
+    public ResponseEntity<?> list(
+            @RequestParam(name = "after", required = false) String after,
+            @RequestParam(name = "limit", required = false) Integer limit) {
+        return listingService.list(Schedule.class, after, limit, Function.identity());
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> stream() {
+        return listingService.ndjson(Schedule.class, Function.identity());
+    }
 
     @PostMapping
-    public Schedule create(@Valid @RequestBody Schedule s) { return repo.save(s); }
+    public Schedule create(@Valid @RequestBody Schedule s) {
+        Schedule saved = repo.save(s);
+        bookingIndex.refreshSchedules(saved.getBarberId());
+        return saved;
+    }
 
     @PutMapping("/{id}")
     public ResponseEntity<Schedule> update(@PathVariable String id, @Valid @RequestBody Schedule s) {
         return repo.findById(id)
             .map(existing -> {
                 s.setId(existing.getId());
-                return ResponseEntity.ok(repo.save(s));
+                Schedule saved = repo.save(s);
+                bookingIndex.refreshSchedules(existing.getBarberId());
+                bookingIndex.refreshSchedules(saved.getBarberId());
+                return ResponseEntity.ok(saved);
             }).orElse(ResponseEntity.notFound().build());
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> delete(@PathVariable String id) {
-        if (!repo.existsById(id)) return ResponseEntity.notFound().build();
+        var opt = repo.findById(id);
+        if (opt.isEmpty()) return ResponseEntity.notFound().build();
         repo.deleteById(id);
+        bookingIndex.refreshSchedules(opt.get().getBarberId());
         return ResponseEntity.noContent().build();
     }
 }
\ No newline at end of file
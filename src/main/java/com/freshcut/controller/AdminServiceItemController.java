@@ -1,12 +1,15 @@
 package com.freshcut.controller;
 
-import java.util.List;
+import java.util.function.Function;
 
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.freshcut.db.model.ServiceItem;
 import com.freshcut.db.repository.ServiceItemRepository;
+import com.freshcut.service.ListingService;
 
 import jakarta.validation.Valid;
 
@@ -15,11 +18,24 @@ import jakarta.validation.Valid;
 @CrossOrigin(origins = "*")
 public class AdminServiceItemController {
     private final ServiceItemRepository repo;
+    private final ListingService listingService;
 
-    public AdminServiceItemController(ServiceItemRepository repo) { this.repo = repo; }
+    public AdminServiceItemController(ServiceItemRepository repo, ListingService listingService) {
+        this.repo = repo;
+        this.listingService = listingService;
+    }
 
     @GetMapping
-    public List<ServiceItem> list() { return repo.findAll(); }
+    public ResponseEntity<?> list(
+            @RequestParam(name = "after", required = false) String after,
+            @RequestParam(name = "limit", required = false) Integer limit) {
+        return listingService.list(ServiceItem.class, after, limit, Function.identity());
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> stream() {
+        return listingService.ndjson(ServiceItem.class, Function.identity());
+    }
 
     @GetMapping("/{id}")
     public ResponseEntity<ServiceItem> getOne(@PathVariable String id) {
@@ -1,8 +1,6 @@
 package com.freshcut.controller;
 
-import java.util.List;
-import java.util.stream.Collectors;
-
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -12,18 +10,26 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.freshcut.db.model.User;
 import com.freshcut.db.repository.UserRepository;
+import com.freshcut.security.CurrentUser;
+import com.freshcut.service.ListingService;
 
 @RestController
 @RequestMapping("/api/admin/users")
 @CrossOrigin(origins = "*")
 public class AdminUserController {
     private final UserRepository userRepo;
+    private final ListingService listingService;
 
-    public AdminUserController(UserRepository userRepo) { this.userRepo = userRepo; }
+    public AdminUserController(UserRepository userRepo, ListingService listingService) {
+        this.userRepo = userRepo;
+        this.listingService = listingService;
+    }
 
     public static class UserDto {
         public String id;
@@ -43,8 +49,15 @@ public class AdminUserController {
     }
 
     @GetMapping
-    public List<UserDto> list() {
-        return userRepo.findAll().stream().map(UserDto::new).collect(Collectors.toList());
+    public ResponseEntity<?> list(
+            @RequestParam(name = "after", required = false) String after,
+            @RequestParam(name = "limit", required = false) Integer limit) {
+        return listingService.list(User.class, after, limit, UserDto::new);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> stream() {
+        return listingService.ndjson(User.class, UserDto::new);
     }
 
     // Obtener un usuario por email (ADMIN)
@@ -56,15 +69,10 @@ public class AdminUserController {
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> delete(@PathVariable String id) {
+    public ResponseEntity<Void> delete(CurrentUser me, @PathVariable String id) {
         // Evitar que un admin se borre a sí mismo accidentalmente
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String email = (auth != null) ? (String) auth.getPrincipal() : null;
-        if (email != null) {
-            var me = userRepo.findByEmail(email).orElse(null);
-            if (me != null && id.equals(me.getId())) {
-                return ResponseEntity.badRequest().build();
-            }
+        if (id.equals(me.id())) {
+            return ResponseEntity.badRequest().build();
         }
         if (!userRepo.existsById(id)) return ResponseEntity.notFound().build();
         userRepo.deleteById(id);
@@ -3,73 +3,160 @@ package com.freshcut.controller;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.springframework.http.HttpHeaders;
 import java.util.Arrays;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.freshcut.dto.ChatDtos.ChatRequest;
 import com.freshcut.dto.ChatDtos.ChatResponse;
+import com.freshcut.dto.ChatDtos.ChatSummary;
 import com.freshcut.dto.ChatDtos.Message;
+import com.freshcut.dto.CursorPage;
 import com.freshcut.db.model.ChatLog;
-import com.freshcut.db.repository.ChatLogRepository;
-import com.freshcut.security.JwtService;
+import com.freshcut.service.AiRequestScheduler;
 import com.freshcut.service.AiService;
+import com.freshcut.service.ChatHistoryService;
+import com.freshcut.service.ChatLogWriter;
+import com.freshcut.util.PreparedImage;
 
-import io.jsonwebtoken.Claims;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 
 @RestController
 @RequestMapping("/api/ai")
 @CrossOrigin(origins = "*")
 public class AiController {
+    private static final long STREAM_TIMEOUT_MS = 60_000;
+
     private final AiService aiService;
-    private final ChatLogRepository chatLogRepository;
-    private final JwtService jwtService;
+    private final ChatHistoryService chatHistoryService;
+    private final AiRequestScheduler scheduler;
+    private final ChatLogWriter chatLogWriter;
 
-    public AiController(AiService aiService, ChatLogRepository chatLogRepository, JwtService jwtService) {
+    public AiController(AiService aiService, ChatHistoryService chatHistoryService,
+                        AiRequestScheduler scheduler, ChatLogWriter chatLogWriter) {
         this.aiService = aiService;
-        this.chatLogRepository = chatLogRepository;
-        this.jwtService = jwtService;
+        this.chatHistoryService = chatHistoryService;
+        this.scheduler = scheduler;
+        this.chatLogWriter = chatLogWriter;
     }
 
+    // Devuelve un CompletableFuture: el hilo de Tomcat queda libre mientras responde el modelo
     @PostMapping("/chat")
-    public ResponseEntity<ChatResponse> chat(
+    public CompletableFuture<ResponseEntity<ChatResponse>> chat(
             @Valid @RequestBody ChatRequest req,
-            @RequestHeader(name = "Authorization", required = false) String authorization) {
-        String email = null;
-        if (authorization != null && authorization.startsWith("Bearer ")) {
-            try {
-                Claims claims = jwtService.parse(authorization.substring(7));
-                email = claims.getSubject();
-            } catch (Exception ignored) {}
-        }
+            HttpServletRequest request) {
+        String email = currentEmail();
+        admit(email, request);
+        // La relevancia se evalúa una sola vez, dentro del servicio
+        return aiService.completeChat(req).thenApply(outcome -> {
+            ChatResponse res = outcome.getResponse();
+            saveChatLog(email, req, res.getReply(), outcome.getRejectReason());
+            return ResponseEntity.ok(res);
+        });
+    }
 
-        StringBuilder all = new StringBuilder();
-        if (req.getFaceDescription() != null) all.append(req.getFaceDescription()).append(" ");
-        if (req.getMessages() != null) {
-            for (Message m : req.getMessages()) {
-                if (m.getContent() != null) all.append(m.getContent()).append(" ");
+    /**
+     * Chat con la respuesta en Server-Sent Events: "token" (borrador de la línea en curso), "recommendation"
+     * (línea normalizada), "reset" (descartar lo recibido) y "done" (respuesta final, siempre el último).
+     */
+    @PostMapping(value = "/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter chatStream(
+            @Valid @RequestBody ChatRequest req,
+            HttpServletRequest request) {
+        String email = currentEmail();
+        admit(email, request);
+        return stream(req, email);
+    }
+
+    // Variante GET para EventSource del navegador (no admite cuerpo): un único mensaje del usuario
+    @GetMapping(value = "/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter chatStreamGet(
+            @RequestParam("message") String message,
+            @RequestParam(name = "faceDescription", required = false) String faceDescription,
+            HttpServletRequest request) {
+        String email = currentEmail();
+        admit(email, request);
+        Message m = new Message();
+        m.setRole("user");
+        m.setContent(message);
+        ChatRequest req = new ChatRequest();
+        req.setMessages(List.of(m));
+        req.setFaceDescription(faceDescription);
+        return stream(req, email);
+    }
+
+    private SseEmitter stream(ChatRequest req, String email) {
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MS);
+        CompletableFuture<Void> upstream = aiService.streamChat(req, new AiService.ChatStreamListener() {
+            @Override
+            public void onToken(String text) {
+                send(emitter, "token", Map.of("text", text));
             }
+
+            @Override
+            public void onRecommendation(int index, String text) {
+                send(emitter, "recommendation", Map.of("index", index, "text", text));
+            }
+
+            @Override
+            public void onReset() {
+                send(emitter, "reset", Map.of());
+            }
+
+            @Override
+            public void onDone(String reply, String rejectReason) {
+                saveChatLog(email, req, reply, rejectReason);
+                send(emitter, "done", Map.of("reply", reply));
+                emitter.complete();
+            }
+        });
+        // Cliente desconectado o timeout: dejar de consumir tokens del modelo
+        emitter.onTimeout(() -> upstream.cancel(true));
+        emitter.onError(e -> upstream.cancel(true));
+        emitter.onCompletion(() -> upstream.cancel(true));
+        return emitter;
+    }
+
+    private static void send(SseEmitter emitter, String event, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(event).data(data, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            // El cliente ya cerró la conexión; onError/onCompletion cancelan el stream
         }
-        boolean relevant = aiService.isRelevantText(all.toString());
-        ChatResponse res;
-        if (!relevant) {
-            res = new ChatResponse("Puedo ayudarte solo con recomendaciones de cortes, estilos, barba o facciones. ¿Quieres describir tu rostro o subir una foto?");
-        } else {
-            res = aiService.chat(req);
-        }
+    }
+
+    // Cubo de fichas por usuario; los anónimos comparten el de su IP
+    private void admit(String email, HttpServletRequest request) {
+        scheduler.admit(email != null ? "user:" + email : "ip:" + request.getRemoteAddr());
+    }
+
+    // Email del usuario autenticado por JwtAuthFilter (el token ya se verificó allí); null si es anónimo
+    private static String currentEmail() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || auth instanceof AnonymousAuthenticationToken || !auth.isAuthenticated()) return null;
+        return auth.getName();
+    }
+
+    private void saveChatLog(String email, ChatRequest req, String reply, String rejectReason) {
         ChatLog log = new ChatLog();
         log.setEmail(email);
         log.setFaceDescription(req.getFaceDescription());
@@ -83,13 +170,9 @@ public class AiController {
             }
         }
         log.setMessages(msgs);
-        log.setReply(res.getReply());
-        if (!relevant) {
-            log.setRejectReason("irrelevant_text");
-        }
-        chatLogRepository.save(log);
-
-        return ResponseEntity.ok(res);
+        log.setReply(reply);
+        log.setRejectReason(rejectReason);
+        chatLogWriter.submit(log);
     }
 
     @PostMapping(value = "/edit-hair", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
@@ -118,86 +201,82 @@ public class AiController {
     }
 
     @PostMapping(value = "/recommend-from-photo", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<ChatResponse> recommendFromPhoto(
+    public CompletableFuture<ResponseEntity<ChatResponse>> recommendFromPhoto(
             @RequestParam("file") MultipartFile file,
             @RequestParam(name = "faceDescription", required = false) String faceDescription,
-            @RequestHeader(name = "Authorization", required = false) String authorization) {
+            HttpServletRequest request) {
+        String userEmail = currentEmail();
+        // Antes de leer y decodificar la foto: si hay que rechazar, que sea barato
+        admit(userEmail, request);
         try {
-            byte[] image = file.getBytes();
+            // Una sola decodificación (reducida) para el filtro de rostro, la caché y el modelo
+            PreparedImage image = aiService.prepareImage(file.getBytes(), file.getContentType());
             boolean textOk = aiService.isRelevantText(faceDescription == null ? "" : faceDescription);
-            boolean faceOk = aiService.isLikelyFacePhoto(image, file.getContentType());
+            boolean faceOk = aiService.isLikelyFacePhoto(image);
             boolean relevant = faceOk || textOk;
-            // Siempre devolver 200 OK. Si es irrelevante, AiService responde con STANDARD_REPLY.
-            ChatResponse res = aiService.recommendFromPhoto(image, file.getContentType(), faceDescription);
-
-            String email = null;
-            if (authorization != null && authorization.startsWith("Bearer ")) {
-                try {
-                    Claims claims = jwtService.parse(authorization.substring(7));
-                    email = claims.getSubject();
-                } catch (Exception ignored) {}
-            }
 
-            ChatLog log = new ChatLog();
-            log.setEmail(email);
-            log.setFaceDescription(faceDescription);
-            log.setMessages(new ArrayList<>());
-            log.setReply(res.getReply());
-            if (!relevant) {
-                log.setRejectReason(faceOk ? "irrelevant_text" : "no_face_detected");
-            }
-            chatLogRepository.save(log);
+            // Siempre devolver 200 OK. Si es irrelevante, AiService responde con STANDARD_REPLY.
+            return aiService.recommendFromPhoto(image, faceDescription).thenApply(res -> {
+                ChatLog log = new ChatLog();
+                log.setEmail(userEmail);
+                log.setFaceDescription(faceDescription);
+                log.setMessages(new ArrayList<>());
+                log.setReply(res.getReply());
+                if (!relevant) {
+                    log.setRejectReason(faceOk ? "irrelevant_text" : "no_face_detected");
+                }
+                // En segundo plano: la respuesta no espera a Mongo
+                chatLogWriter.submit(log);
 
-            // Devuelve siempre 200 OK para evitar errores de consola en el navegador.
-            // Si es irrelevante, el frontend detectará STANDARD_REPLY y mostrará un mensaje en pantalla.
-            return ResponseEntity.ok()
-                    .header("X-Reject-Reason", relevant ? "" : (faceOk ? "irrelevant_text" : "no_face_detected"))
-                    .body(res);
+                // Devuelve siempre 200 OK para evitar errores de consola en el navegador.
+                // Si es irrelevante, el frontend detectará STANDARD_REPLY y mostrará un mensaje en pantalla.
+                return ResponseEntity.ok()
+                        .header("X-Reject-Reason", relevant ? "" : (faceOk ? "irrelevant_text" : "no_face_detected"))
+                        .body(res);
+            });
         } catch (IOException e) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ChatResponse("Puedo ayudarte solo con recomendaciones de cortes, estilos, barba o facciones. ¿Quieres describir tu rostro o subir una foto?"));
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ChatResponse("Puedo ayudarte solo con recomendaciones de cortes, estilos, barba o facciones. ¿Quieres describir tu rostro o subir una foto?")));
         }
     }
 
-    // Nuevo: listar historial de chats guardados del usuario autenticado
+    // Historial de chats guardados del usuario autenticado, por páginas: primer mensaje y respuesta de cada chat
     @GetMapping("/history")
-    public ResponseEntity<List<ChatLog>> history(
-            @RequestHeader(name = "Authorization", required = false) String authorization) {
-        String email = null;
-        if (authorization != null && authorization.startsWith("Bearer ")) {
-            try {
-                Claims claims = jwtService.parse(authorization.substring(7));
-                email = claims.getSubject();
-            } catch (Exception ignored) {}
-        }
+    public ResponseEntity<CursorPage<ChatSummary>> history(
+            @RequestParam(name = "after", required = false) String after,
+            @RequestParam(name = "limit", required = false) Integer limit) {
+        String email = currentEmail();
         if (email == null || email.isBlank()) {
             // Mantener tipo de respuesta consistente con la firma: sin cuerpo en 401
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
-        List<ChatLog> list = chatLogRepository.findByEmailAndSavedOrderByCreatedAtDesc(email, true);
-        return ResponseEntity.ok(list);
+        return ResponseEntity.ok(chatHistoryService.page(email, after, limit));
+    }
+
+    // Chat guardado completo, con todos sus mensajes
+    @GetMapping("/history/{id}")
+    public ResponseEntity<ChatLog> historyEntry(@PathVariable String id) {
+        String email = currentEmail();
+        if (email == null || email.isBlank()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return chatHistoryService.find(email, id)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
     }
 
     // Nuevo: marcar como guardado el último chat del usuario autenticado
     @PostMapping("/save-latest")
-    public ResponseEntity<?> saveLatest(
-            @RequestHeader(name = "Authorization", required = false) String authorization) {
-        String email = null;
-        if (authorization != null && authorization.startsWith("Bearer ")) {
-            try {
-                Claims claims = jwtService.parse(authorization.substring(7));
-                email = claims.getSubject();
-            } catch (Exception ignored) {}
-        }
+    public ResponseEntity<?> saveLatest() {
+        String email = currentEmail();
         if (email == null || email.isBlank()) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Usuario no autenticado");
         }
-        var latestOpt = chatLogRepository.findTopByEmailOrderByCreatedAtDesc(email);
+        // Incluye los logs que el escritor en segundo plano aún no ha insertado
+        var latestOpt = chatLogWriter.latest(email);
         if (latestOpt.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No hay chats para guardar");
         }
-        var log = latestOpt.get();
-        log.setSaved(true);
-        chatLogRepository.save(log);
+        var log = chatLogWriter.markSaved(latestOpt.get());
         return ResponseEntity.ok(java.util.Map.of("id", log.getId()));
     }
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package com.freshcut.controller;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseCookie;
 import org.springframework.http.ResponseEntity;
@@ -14,9 +16,11 @@ import com.freshcut.dto.AuthDtos.ForgotRequest;
 import com.freshcut.dto.AuthDtos.ResetRequest;
 import com.freshcut.dto.AuthDtos.ResetSimpleRequest;
 import com.freshcut.security.JwtService;
+import com.freshcut.service.AuthRateLimiter;
 import com.freshcut.service.AuthService;
 
 import io.jsonwebtoken.Claims;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 
 @RestController
@@ -25,10 +29,12 @@ import jakarta.validation.Valid;
 public class AuthController {
     private final AuthService authService;
     private final JwtService jwtService;
+    private final AuthRateLimiter rateLimiter;
 
-    public AuthController(AuthService authService, JwtService jwtService) {
+    public AuthController(AuthService authService, JwtService jwtService, AuthRateLimiter rateLimiter) {
         this.authService = authService;
         this.jwtService = jwtService;
+        this.rateLimiter = rateLimiter;
     }
 
     @PostMapping("/register")
@@ -43,15 +49,23 @@ public class AuthController {
         return ResponseEntity.ok(res);
     }
 
+    // Asíncrono: BCrypt corre en PasswordHasher y el hilo de Tomcat queda libre mientras tanto.
+    // El intento se reserva en el límite antes de buscar el usuario y se devuelve solo si el login fue bien:
+    // los fallos, los errores (también el 429 de PasswordHasher) y los que siguen en curso cuentan
     @PostMapping("/login")
-    public ResponseEntity<AuthResponse> login(@RequestBody LoginRequest req) {
-        AuthResponse res = authService.login(req);
-        if (res.getToken() != null && !res.getToken().isBlank()) {
-            ResponseCookie cookie = ResponseCookie.from("AUTH_TOKEN", res.getToken())
-                    .httpOnly(true).secure(true).sameSite("None").path("/").build();
-            return ResponseEntity.ok().header(HttpHeaders.SET_COOKIE, cookie.toString()).body(res);
-        }
-        return ResponseEntity.ok(res);
+    public CompletableFuture<ResponseEntity<AuthResponse>> login(@RequestBody LoginRequest req, HttpServletRequest request) {
+        String email = req != null ? req.getEmail() : null;
+        String ip = request.getRemoteAddr();
+        rateLimiter.acquireLogin(email, ip);
+        return authService.login(req).thenApply(res -> {
+            if (res.getToken() != null && !res.getToken().isBlank()) {
+                rateLimiter.refundLogin(email, ip);
+                ResponseCookie cookie = ResponseCookie.from("AUTH_TOKEN", res.getToken())
+                        .httpOnly(true).secure(true).sameSite("None").path("/").build();
+                return ResponseEntity.ok().header(HttpHeaders.SET_COOKIE, cookie.toString()).body(res);
+            }
+            return ResponseEntity.ok(res);
+        });
     }
 
     @PostMapping("/forgot")
@@ -73,7 +87,8 @@ public class AuthController {
     }
 
     @GetMapping("/exists")
-    public ResponseEntity<java.util.Map<String, Boolean>> exists(@RequestParam("email") String email) {
+    public ResponseEntity<java.util.Map<String, Boolean>> exists(@RequestParam("email") String email, HttpServletRequest request) {
+        rateLimiter.checkExists(request.getRemoteAddr());
         boolean exists = authService.existsEmail(email);
         return ResponseEntity.ok(java.util.Map.of("exists", exists));
     }
@@ -3,17 +3,15 @@ package com.freshcut.controller;
 import java.util.List;
 
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import com.freshcut.db.model.Barber;
 import com.freshcut.db.model.Schedule;
-import com.freshcut.db.model.User;
 import com.freshcut.db.repository.BarberRepository;
 import com.freshcut.db.repository.BookingRepository;
 import com.freshcut.db.repository.ScheduleRepository;
-import com.freshcut.db.repository.UserRepository;
+import com.freshcut.security.CurrentUser;
+import com.freshcut.service.BookingIndex;
 
 import jakarta.validation.Valid;
 
@@ -21,39 +19,30 @@ import jakarta.validation.Valid;
 @RequestMapping("/api/barber")
 @CrossOrigin(origins = "*")
 public class BarberController {
-    private final UserRepository userRepo;
     private final BarberRepository barberRepo;
     private final BookingRepository bookingRepo;
     private final ScheduleRepository scheduleRepo;
+    private final BookingIndex bookingIndex;
 
-    public BarberController(UserRepository userRepo, BarberRepository barberRepo, BookingRepository bookingRepo, ScheduleRepository scheduleRepo) {
-        this.userRepo = userRepo;
+    public BarberController(BarberRepository barberRepo, BookingRepository bookingRepo, ScheduleRepository scheduleRepo, BookingIndex bookingIndex) {
         this.barberRepo = barberRepo;
         this.bookingRepo = bookingRepo;
         this.scheduleRepo = scheduleRepo;
+        this.bookingIndex = bookingIndex;
     }
 
-    private User currentUser() {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String email = (auth != null) ? (String) auth.getPrincipal() : null;
-        if (email == null) throw new IllegalStateException("No autenticado");
-        return userRepo.findByEmail(email).orElseThrow(() -> new IllegalStateException("Usuario no encontrado"));
-    }
-
+    // El usuario y su ficha de barbero llegan ya resueltos (CurrentUserArgumentResolver): sin consultas para saber quién pide
     @GetMapping("/me")
-    public ResponseEntity<Barber> me() {
-        User u = currentUser();
-        if (u.getBarberId() == null || u.getBarberId().isBlank()) return ResponseEntity.notFound().build();
-        return barberRepo.findById(u.getBarberId())
-                .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<Barber> me(CurrentUser me) {
+        if (me.barber() == null) return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(me.barber());
     }
 
     @PutMapping("/me")
-    public ResponseEntity<Barber> updateMe(@Valid @RequestBody Barber payload) {
-        User u = currentUser();
-        if (u.getBarberId() == null || u.getBarberId().isBlank()) return ResponseEntity.notFound().build();
-        return barberRepo.findById(u.getBarberId()).map(existing -> {
+    public ResponseEntity<Barber> updateMe(CurrentUser me, @Valid @RequestBody Barber payload) {
+        if (me.barber() == null) return ResponseEntity.notFound().build();
+        // Se edita el documento de Mongo, no la copia compartida de la caché
+        return barberRepo.findById(me.barberId()).map(existing -> {
             // Permitir actualizar nombre, especialidades, activo y nuevos campos
             existing.setName(payload.getName() != null ? payload.getName() : existing.getName());
             existing.setSpecialties(payload.getSpecialties() != null ? payload.getSpecialties() : existing.getSpecialties());
@@ -66,52 +55,49 @@ public class BarberController {
     }
 
     @GetMapping("/bookings")
-    public ResponseEntity<?> myBookings() {
-        User u = currentUser();
-        if (u.getBarberId() == null || u.getBarberId().isBlank()) return ResponseEntity.notFound().build();
-        Barber b = barberRepo.findById(u.getBarberId()).orElse(null);
-        if (b == null) return ResponseEntity.notFound().build();
-        return ResponseEntity.ok(bookingRepo.findByBarber(b.getName()));
+    public ResponseEntity<?> myBookings(CurrentUser me) {
+        if (me.barber() == null) return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(bookingRepo.findByBarber(me.barber().getName()));
     }
 
     @GetMapping("/schedules")
-    public ResponseEntity<List<Schedule>> mySchedules() {
-        User u = currentUser();
-        if (u.getBarberId() == null || u.getBarberId().isBlank()) return ResponseEntity.notFound().build();
-        return ResponseEntity.ok(scheduleRepo.findByBarberId(u.getBarberId()));
+    public ResponseEntity<List<Schedule>> mySchedules(CurrentUser me) {
+        if (me.barberId() == null) return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(scheduleRepo.findByBarberId(me.barberId()));
     }
 
     @PostMapping("/schedules")
-    public ResponseEntity<Schedule> createSchedule(@Valid @RequestBody Schedule s) {
-        User u = currentUser();
-        if (u.getBarberId() == null || u.getBarberId().isBlank()) return ResponseEntity.notFound().build();
-        s.setBarberId(u.getBarberId());
+    public ResponseEntity<Schedule> createSchedule(CurrentUser me, @Valid @RequestBody Schedule s) {
+        if (me.barberId() == null) return ResponseEntity.notFound().build();
+        s.setBarberId(me.barberId());
         Schedule saved = scheduleRepo.save(s);
+        bookingIndex.refreshSchedules(me.barberId());
         return ResponseEntity.ok(saved);
     }
 
     @PutMapping("/schedules/{id}")
-    public ResponseEntity<Schedule> updateSchedule(@PathVariable String id, @Valid @RequestBody Schedule s) {
-        User u = currentUser();
-        if (u.getBarberId() == null || u.getBarberId().isBlank()) return ResponseEntity.notFound().build();
+    public ResponseEntity<Schedule> updateSchedule(CurrentUser me, @PathVariable String id, @Valid @RequestBody Schedule s) {
+        if (me.barberId() == null) return ResponseEntity.notFound().build();
         return scheduleRepo.findById(id).map(existing -> {
-            if (!u.getBarberId().equals(existing.getBarberId())) return ResponseEntity.status(403).body((Schedule) null);
+            if (!me.barberId().equals(existing.getBarberId())) return ResponseEntity.status(403).body((Schedule) null);
             existing.setDayOfWeek(s.getDayOfWeek());
             existing.setStartTime(s.getStartTime());
             existing.setEndTime(s.getEndTime());
-            return ResponseEntity.ok(scheduleRepo.save(existing));
+            Schedule saved = scheduleRepo.save(existing);
+            bookingIndex.refreshSchedules(me.barberId());
+            return ResponseEntity.ok(saved);
         }).orElse(ResponseEntity.notFound().build());
     }
 
     @DeleteMapping("/schedules/{id}")
-    public ResponseEntity<Void> deleteSchedule(@PathVariable String id) {
-        User u = currentUser();
-        if (u.getBarberId() == null || u.getBarberId().isBlank()) return ResponseEntity.notFound().build();
+    public ResponseEntity<Void> deleteSchedule(CurrentUser me, @PathVariable String id) {
+        if (me.barberId() == null) return ResponseEntity.notFound().build();
         var opt = scheduleRepo.findById(id);
         if (opt.isEmpty()) return ResponseEntity.notFound().build();
         var existing = opt.get();
-        if (!u.getBarberId().equals(existing.getBarberId())) return ResponseEntity.status(403).build();
+        if (!me.barberId().equals(existing.getBarberId())) return ResponseEntity.status(403).build();
         scheduleRepo.deleteById(id);
+        bookingIndex.refreshSchedules(me.barberId());
         return ResponseEntity.noContent().build();
     }
 }
\ No newline at end of file
@@ -2,8 +2,10 @@ package com.freshcut.controller;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
 
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -12,13 +14,16 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.freshcut.dto.BookingRequest;
 import com.freshcut.db.model.Booking;
 import com.freshcut.service.BookingService;
+import com.freshcut.service.ListingService;
 
 import jakarta.validation.Valid;
 
@@ -27,14 +32,23 @@ import jakarta.validation.Valid;
 @CrossOrigin(origins = "*")
 public class BookingController {
     private final BookingService bookingService;
+    private final ListingService listingService;
 
-    public BookingController(BookingService bookingService) {
+    public BookingController(BookingService bookingService, ListingService listingService) {
         this.bookingService = bookingService;
+        this.listingService = listingService;
     }
 
     @GetMapping
-    public List<Booking> list() {
-        return bookingService.list();
+    public ResponseEntity<?> list(
+            @RequestParam(name = "after", required = false) String after,
+            @RequestParam(name = "limit", required = false) Integer limit) {
+        return listingService.list(Booking.class, after, limit, Function.identity());
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> stream() {
+        return listingService.ndjson(Booking.class, Function.identity());
     }
 
     // Añadido: listado de reservas del usuario autenticado
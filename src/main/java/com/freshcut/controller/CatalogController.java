@@ -1,14 +1,20 @@
 package com.freshcut.controller;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.freshcut.db.model.Barber;
 import com.freshcut.db.model.ServiceItem;
+import com.freshcut.dto.AvailabilityResponse;
+import com.freshcut.service.AvailabilityService;
 import com.freshcut.service.CatalogService;
 
 @RestController
@@ -16,9 +22,11 @@ import com.freshcut.service.CatalogService;
 @CrossOrigin(origins = "*")
 public class CatalogController {
     private final CatalogService catalogService;
+    private final AvailabilityService availabilityService;
 
-    public CatalogController(CatalogService catalogService) {
+    public CatalogController(CatalogService catalogService, AvailabilityService availabilityService) {
         this.catalogService = catalogService;
+        this.availabilityService = availabilityService;
     }
 
     @GetMapping("/barbers")
@@ -30,4 +38,15 @@ public class CatalogController {
     public List<ServiceItem> listServices() {
         return catalogService.listActiveServices();
     }
-}
\ No newline at end of file
+
+    // Horas de inicio libres para un servicio en [from, to), p. ej. ?from=2025-01-06T00:00&to=2025-01-13T00:00&service=Fade medio
+    @GetMapping("/barbers/{id}/availability")
+    public AvailabilityResponse availability(
+            @PathVariable String id,
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam("service") String service,
+            @RequestParam(name = "step", required = false) Integer step) {
+        return availabilityService.availability(id, from, to, service, step);
+    }
+}
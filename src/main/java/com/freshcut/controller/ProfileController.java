@@ -10,13 +10,12 @@ import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.freshcut.db.model.User;
 import com.freshcut.db.repository.UserRepository;
+import com.freshcut.security.CurrentUser;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.validation.Valid;
@@ -39,11 +38,9 @@ public class ProfileController {
         Files.createDirectories(avatarDir);
     }
 
-    private User currentUser() {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String email = (auth != null) ? (String) auth.getPrincipal() : null;
-        if (email == null) throw new IllegalStateException("No autenticado");
-        return userRepo.findByEmail(email).orElseThrow(() -> new IllegalStateException("Usuario no encontrado"));
+    // Para modificarlo: el documento de Mongo, no la copia compartida de CurrentUser
+    private User editable(CurrentUser me) {
+        return userRepo.findById(me.id()).orElseThrow(() -> new IllegalStateException("Usuario no encontrado"));
     }
 
     public static class UserProfileDto {
@@ -75,14 +72,13 @@ public class ProfileController {
     }
 
     @GetMapping("/me")
-    public ResponseEntity<UserProfileDto> me() {
-        User u = currentUser();
-        return ResponseEntity.ok(new UserProfileDto(u));
+    public ResponseEntity<UserProfileDto> me(CurrentUser me) {
+        return ResponseEntity.ok(new UserProfileDto(me.user()));
     }
 
     @PutMapping("/me")
-    public ResponseEntity<UserProfileDto> updateMe(@Valid @RequestBody UpdateProfileDto payload) {
-        User u = currentUser();
+    public ResponseEntity<UserProfileDto> updateMe(CurrentUser me, @Valid @RequestBody UpdateProfileDto payload) {
+        User u = editable(me);
         if (payload.name != null && !payload.name.isBlank()) {
             u.setName(payload.name);
         }
@@ -91,11 +87,11 @@ public class ProfileController {
     }
 
     @PostMapping(value = "/avatar", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<UserProfileDto> uploadAvatar(@RequestParam("file") MultipartFile file) throws IOException {
-        User u = currentUser();
+    public ResponseEntity<UserProfileDto> uploadAvatar(CurrentUser me, @RequestParam("file") MultipartFile file) throws IOException {
         if (file == null || file.isEmpty()) {
             return ResponseEntity.badRequest().build();
         }
+        User u = editable(me);
         String original = file.getOriginalFilename();
         String ext = (original != null && original.contains(".")) ? original.substring(original.lastIndexOf('.')) : ".jpg";
         Path target = avatarDir.resolve(u.getId() + ext);
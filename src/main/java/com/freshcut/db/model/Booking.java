@@ -3,9 +3,16 @@ package com.freshcut.db.model;
 import java.time.LocalDateTime;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Document(collection = "bookings")
+// findOverlapping / findActiveInRange / findByBarber
+@CompoundIndex(name = "barber_start_end", def = "{'barber': 1, 'startTime': 1, 'endTime': 1}")
+// findByClientName (reservas del usuario)
+@CompoundIndex(name = "client_start", def = "{'clientName': 1, 'startTime': 1}")
+// findByStatusNotAndEndTimeAfter (precarga del índice) y listados por estado
+@CompoundIndex(name = "status_start", def = "{'status': 1, 'startTime': 1}")
 public class Booking {
     @Id
     private String id;
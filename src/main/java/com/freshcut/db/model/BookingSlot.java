@@ -0,0 +1,47 @@
+package com.freshcut.db.model;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Tramo de 5 minutos ocupado por una reserva. El índice único (barber, slot) garantiza
+ * que dos reservas simultáneas, incluso desde nodos distintos, no puedan quedarse con el mismo tramo.
+ */
+@Document(collection = "booking_slots")
+@CompoundIndex(name = "barber_slot_unique", def = "{'barber': 1, 'slot': 1}", unique = true)
+public class BookingSlot {
+    @Id
+    private String id;
+    private String barber;
+    private LocalDateTime slot;
+    @Indexed
+    private String bookingId;
+    // Pendiente: pocos minutos (si el proceso cae, Mongo libera el tramo). Confirmado: poco después del fin de la reserva
+    @Indexed(expireAfterSeconds = 0)
+    private Instant expireAt;
+
+    public BookingSlot() {}
+
+    public BookingSlot(String barber, LocalDateTime slot, String bookingId, Instant expireAt) {
+        this.barber = barber;
+        this.slot = slot;
+        this.bookingId = bookingId;
+        this.expireAt = expireAt;
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    public String getBarber() { return barber; }
+    public void setBarber(String barber) { this.barber = barber; }
+    public LocalDateTime getSlot() { return slot; }
+    public void setSlot(LocalDateTime slot) { this.slot = slot; }
+    public String getBookingId() { return bookingId; }
+    public void setBookingId(String bookingId) { this.bookingId = bookingId; }
+    public Instant getExpireAt() { return expireAt; }
+    public void setExpireAt(Instant expireAt) { this.expireAt = expireAt; }
+}
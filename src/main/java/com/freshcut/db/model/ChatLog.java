@@ -4,9 +4,17 @@ import java.time.Instant;
 import java.util.List;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Document(collection = "chat_logs")
+// Historial paginado (chats guardados del usuario, más recientes primero); _id desempata el cursor sin ordenar en memoria
+@CompoundIndex(name = "email_saved_created", def = "{'email': 1, 'saved': 1, 'createdAt': -1, '_id': -1}")
+// findTopByEmailOrderByCreatedAtDesc (guardar el último chat)
+@CompoundIndex(name = "email_created", def = "{'email': 1, 'createdAt': -1}")
+// Archivado diario de los no guardados y recuentos de retención
+@CompoundIndex(name = "saved_created", def = "{'saved': 1, 'createdAt': 1}")
 public class ChatLog {
     @Id
     private String id;
@@ -17,6 +25,9 @@ public class ChatLog {
     private String rejectReason; // opcional: motivo de rechazo por irrelevancia/no rostro
     private boolean saved = false; // marcado por el usuario cuando guarda el chat
     private Instant createdAt = Instant.now();
+    // Solo en los no guardados: si el archivado no llega a tiempo, Mongo los borra igualmente
+    @Indexed(expireAfterSeconds = 0)
+    private Instant expireAt;
 
     public static class Msg {
         private String role;
@@ -44,4 +55,6 @@ public class ChatLog {
     public void setSaved(boolean saved) { this.saved = saved; }
     public Instant getCreatedAt() { return createdAt; }
     public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+    public Instant getExpireAt() { return expireAt; }
+    public void setExpireAt(Instant expireAt) { this.expireAt = expireAt; }
 }
\ No newline at end of file
@@ -0,0 +1,6 @@
+package com.freshcut.db.model;
+
+/** Qué se pasó a BCrypt al guardar la contraseña: el texto tal cual (antiguo) o su SHA-256 en hex (actual). */
+public enum PasswordScheme {
+    BCRYPT_PLAIN, BCRYPT_SHA256
+}
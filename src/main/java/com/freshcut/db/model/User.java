@@ -13,6 +13,7 @@ public class User {
     @Indexed(unique = true)
     private String email;
     private String passwordHash;
+    private PasswordScheme passwordScheme; // null: usuario anterior al marcador, se descubre en el próximo login
     private Role role = Role.USER;
 private String barberId; // opcional: si el usuario es BARBER
 private String name;
@@ -28,6 +29,8 @@ private Instant createdAt = Instant.now();
     public void setEmail(String email) { this.email = email; }
     public String getPasswordHash() { return passwordHash; }
     public void setPasswordHash(String passwordHash) { this.passwordHash = passwordHash; }
+    public PasswordScheme getPasswordScheme() { return passwordScheme; }
+    public void setPasswordScheme(PasswordScheme passwordScheme) { this.passwordScheme = passwordScheme; }
     public Role getRole() { return role; }
     public void setRole(Role role) { this.role = role; }
     public String getBarberId() { return barberId; }
@@ -10,11 +10,19 @@ import com.freshcut.db.model.Booking;
 
 public interface BookingRepository extends MongoRepository<Booking, String> {
 
-    @Query("{ 'barber' : ?0, 'startTime' : { $lt: ?1 }, 'endTime' : { $gt: ?2 } }")
+    // Las reservas canceladas liberan su horario
+    @Query("{ 'barber' : ?0, 'status' : { $ne: 'CANCELLED' }, 'startTime' : { $lt: ?1 }, 'endTime' : { $gt: ?2 } }")
     List<Booking> findOverlapping(String barber, LocalDateTime newEnd, LocalDateTime newStart);
 
     List<Booking> findByBarber(String barber);
 
     // Añadido: buscar por cliente autenticado (email)
     List<Booking> findByClientName(String clientName);
-}
\ No newline at end of file
+
+    // Disponibilidad: todas las reservas activas del barbero que tocan [from, to) en una sola consulta
+    @Query("{ 'barber' : ?0, 'status' : { $ne: 'CANCELLED' }, 'startTime' : { $lt: ?2 }, 'endTime' : { $gt: ?1 } }")
+    List<Booking> findActiveInRange(String barber, LocalDateTime from, LocalDateTime to);
+
+    // Precarga del índice en memoria: reservas no canceladas que aún no han terminado
+    List<Booking> findByStatusNotAndEndTimeAfter(String status, LocalDateTime now);
+}
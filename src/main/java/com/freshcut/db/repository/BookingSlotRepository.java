@@ -0,0 +1,24 @@
+package com.freshcut.db.repository;
+
+import java.time.Instant;
+import java.util.Collection;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.Update;
+
+import com.freshcut.db.model.BookingSlot;
+
+public interface BookingSlotRepository extends MongoRepository<BookingSlot, String> {
+    // Confirmar: la expiración pasa de la de reserva pendiente a la del fin de la reserva
+    @Query("{ 'bookingId' : ?0 }")
+    @Update("{ '$set' : { 'expireAt' : ?1 } }")
+    long confirmByBookingId(String bookingId, Instant expireAt);
+
+    // Tras mover una reserva, soltar los tramos que ya no ocupa
+    void deleteByBookingIdAndIdNotIn(String bookingId, Collection<String> keepIds);
+
+    void deleteByBookingId(String bookingId);
+
+    java.util.List<BookingSlot> findByBookingId(String bookingId);
+}
@@ -0,0 +1,32 @@
+package com.freshcut.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class AvailabilityResponse {
+    private String barberId;
+    private String barber;
+    private String service;
+    private int durationMinutes;
+    private List<LocalDateTime> slots; // horas de inicio reservables
+
+    public AvailabilityResponse() {}
+    public AvailabilityResponse(String barberId, String barber, String service, int durationMinutes, List<LocalDateTime> slots) {
+        this.barberId = barberId;
+        this.barber = barber;
+        this.service = service;
+        this.durationMinutes = durationMinutes;
+        this.slots = slots;
+    }
+
+    public String getBarberId() { return barberId; }
+    public void setBarberId(String barberId) { this.barberId = barberId; }
+    public String getBarber() { return barber; }
+    public void setBarber(String barber) { this.barber = barber; }
+    public String getService() { return service; }
+    public void setService(String service) { this.service = service; }
+    public int getDurationMinutes() { return durationMinutes; }
+    public void setDurationMinutes(int durationMinutes) { this.durationMinutes = durationMinutes; }
+    public List<LocalDateTime> getSlots() { return slots; }
+    public void setSlots(List<LocalDateTime> slots) { this.slots = slots; }
+}
@@ -1,5 +1,6 @@
 package com.freshcut.dto;
 
+import java.time.Instant;
 import java.util.List;
 
 import jakarta.validation.constraints.NotEmpty;
@@ -34,4 +35,29 @@ public class ChatDtos {
         public String getReply() { return reply; }
         public void setReply(String reply) { this.reply = reply; }
     }
-}
\ No newline at end of file
+
+    // Entrada del historial: solo el primer mensaje y la respuesta (los mensajes completos, en /history/{id})
+    public static class ChatSummary {
+        private String id;
+        private Instant createdAt;
+        private String firstMessage;
+        private String reply;
+
+        public ChatSummary() {}
+        public ChatSummary(String id, Instant createdAt, String firstMessage, String reply) {
+            this.id = id;
+            this.createdAt = createdAt;
+            this.firstMessage = firstMessage;
+            this.reply = reply;
+        }
+
+        public String getId() { return id; }
+        public void setId(String id) { this.id = id; }
+        public Instant getCreatedAt() { return createdAt; }
+        public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+        public String getFirstMessage() { return firstMessage; }
+        public void setFirstMessage(String firstMessage) { this.firstMessage = firstMessage; }
+        public String getReply() { return reply; }
+        public void setReply(String reply) { this.reply = reply; }
+    }
+}
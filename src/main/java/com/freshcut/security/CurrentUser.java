@@ -0,0 +1,34 @@
+package com.freshcut.security;
+
+import com.freshcut.db.model.Barber;
+import com.freshcut.db.model.User;
+
+/**
+ * Usuario autenticado de la petición, con su ficha de barbero si la tiene. Se recibe como argumento en los
+ * controladores ({@link CurrentUserArgumentResolver}). Puede venir de una caché compartida: es de solo lectura,
+ * para modificar el usuario o el barbero se cargan de Mongo.
+ */
+public final class CurrentUser {
+    private final User user;
+    private final Barber barber;
+
+    public CurrentUser(User user, Barber barber) {
+        this.user = user;
+        this.barber = barber;
+    }
+
+    public User user() { return user; }
+
+    public String id() { return user.getId(); }
+
+    public String email() { return user.getEmail(); }
+
+    /** Ficha de barbero enlazada, o null si el usuario no es barbero (o la ficha ya no existe). */
+    public Barber barber() { return barber; }
+
+    /** barberId del usuario (null si no tiene), exista o no la ficha. */
+    public String barberId() {
+        String id = user.getBarberId();
+        return id == null || id.isBlank() ? null : id;
+    }
+}
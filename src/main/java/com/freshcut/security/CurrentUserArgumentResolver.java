@@ -0,0 +1,50 @@
+package com.freshcut.security;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import com.freshcut.service.CurrentUserService;
+
+/**
+ * Resuelve los parámetros {@link CurrentUser} de los controladores a partir de la autenticación que dejó
+ * {@link JwtAuthFilter}. Se carga una vez por petición (se guarda como atributo) y pasa por la caché de
+ * {@link CurrentUserService}. Sin usuario autenticado lanza {@link IllegalStateException}, como hacían los
+ * {@code currentUser()} de cada controlador.
+ */
+@Component
+public class CurrentUserArgumentResolver implements HandlerMethodArgumentResolver {
+    private static final String ATTRIBUTE = CurrentUser.class.getName();
+
+    private final CurrentUserService currentUserService;
+
+    public CurrentUserArgumentResolver(CurrentUserService currentUserService) {
+        this.currentUserService = currentUserService;
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return CurrentUser.class.equals(parameter.getParameterType());
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        Object resolved = webRequest.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (resolved instanceof CurrentUser current) return current;
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || auth instanceof AnonymousAuthenticationToken || auth.getName() == null) {
+            throw new IllegalStateException("No autenticado");
+        }
+        CurrentUser current = currentUserService.load(auth.getName());
+        webRequest.setAttribute(ATTRIBUTE, current, RequestAttributes.SCOPE_REQUEST);
+        return current;
+    }
+}
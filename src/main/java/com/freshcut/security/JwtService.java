@@ -1,27 +1,66 @@
 package com.freshcut.security;
 
+import java.util.Base64;
 import java.util.Date;
 import java.util.Map;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.freshcut.util.CredentialUtils;
+import com.freshcut.util.ShardedLruCache;
+
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import javax.crypto.SecretKey;
 
+/**
+ * Emisión y verificación de JWT (HS256).
+ * <ul>
+ *   <li>Un único {@link JwtParser}, inmutable y seguro entre hilos, en lugar de construir uno por token.</li>
+ *   <li>Los tokens ya verificados se guardan en una caché acotada, con el SHA-256 del token como clave (el token en
+ *       sí no se guarda). Una entrada solo vale hasta el {@code exp} del token: después se vuelve a verificar, y el
+ *       parser lo rechaza por caducado.</li>
+ * </ul>
+ * Métricas: {@code jwt.cache.requests{result=hit|miss}} y {@code jwt.cache.size}.
+ */
 @Service
 public class JwtService {
     private final SecretKey key;
     private final long expirationMs;
+    private final JwtParser parser;
+    private final ShardedLruCache<String, Verified> verified;
+    private final Counter hits;
+    private final Counter misses;
+
+    private record Verified(Claims claims, long expiresAtMs) {}
 
+    @Autowired
     public JwtService(
             @Value("${JWT_SECRET:change-this-in-prod-change-this-in-prod-change-this}") String secret,
-            @Value("${JWT_EXPIRATION_MS:604800000}") long expirationMs) {
+            @Value("${JWT_EXPIRATION_MS:604800000}") long expirationMs,
+            @Value("${jwt.cache.max-entries:10000}") int cacheMaxEntries,
+            MeterRegistry registry) {
         this.key = Keys.hmacShaKeyFor(secret.getBytes());
         this.expirationMs = expirationMs;
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
+        // Sin TTL propio: cada entrada caduca con su token
+        this.verified = new ShardedLruCache<>(cacheMaxEntries, 0);
+        this.hits = Counter.builder("jwt.cache.requests").tag("result", "hit").register(registry);
+        this.misses = Counter.builder("jwt.cache.requests").tag("result", "miss").register(registry);
+        Gauge.builder("jwt.cache.size", verified, ShardedLruCache::size).register(registry);
+    }
+
+    public JwtService(String secret, long expirationMs) {
+        this(secret, expirationMs, 10_000, new SimpleMeterRegistry());
     }
 
     public String generate(String subject, Map<String, Object> claims) {
@@ -36,8 +75,28 @@ public class JwtService {
                 .compact();
     }
 
+    /** Claims de un token válido; lanza {@link io.jsonwebtoken.JwtException} si la firma no cuadra o ha caducado. */
     public Claims parse(String token) {
-        return Jwts.parserBuilder().setSigningKey(key).build()
-                .parseClaimsJws(token).getBody();
+        String digest = digest(token);
+        Verified v = verified.get(digest);
+        if (v != null && System.currentTimeMillis() < v.expiresAtMs()) {
+            hits.increment();
+            return v.claims();
+        }
+        misses.increment();
+        Claims claims = verify(token);
+        // Sin exp no se cachea: no habría cuándo dejar de aceptarlo
+        Date exp = claims.getExpiration();
+        if (exp != null) verified.put(digest, new Verified(claims, exp.getTime()));
+        return claims;
+    }
+
+    /** Verificación completa (firma HMAC, JSON y exp), sin caché. */
+    Claims verify(String token) {
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    private static String digest(String token) {
+        return Base64.getEncoder().encodeToString(CredentialUtils.sha256(token));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,189 @@
+package com.freshcut.service;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Control de admisión de las llamadas al modelo.
+ * <ul>
+ *   <li>{@link #admit}: cubo de fichas por usuario (o por IP si es anónimo); sin fichas o con la cola llena se
+ *       rechaza al momento con {@link TooManyRequestsException}, antes de hacer ningún trabajo.</li>
+ *   <li>{@link #schedule}: como mucho {@code ai.scheduler.max-concurrency} llamadas en vuelo; las demás esperan en
+ *       una cola de {@code ai.scheduler.max-queue} sin ocupar hilos. Si la cola está llena, el futuro falla con 429.</li>
+ * </ul>
+ * Métricas: {@code ai.scheduler.in-flight}, {@code ai.scheduler.queue-depth}, {@code ai.scheduler.wait} (tiempo en
+ * cola) y {@code ai.scheduler.rejected} (etiqueta {@code reason}: rate_limited, queue_full).
+ */
+@Component
+public class AiRequestScheduler {
+
+    private static final class TokenBucket {
+        private final double capacity;
+        private final double tokensPerNano;
+        private double tokens;
+        private long updatedAt;
+
+        TokenBucket(double capacity, double tokensPerNano, long now) {
+            this.capacity = capacity;
+            this.tokensPerNano = tokensPerNano;
+            this.tokens = capacity;
+            this.updatedAt = now;
+        }
+
+        /** 0 si había ficha (y se consume); si no, nanosegundos hasta la siguiente. */
+        synchronized long tryTake(long now) {
+            refill(now);
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) / tokensPerNano);
+        }
+
+        synchronized boolean isFull(long now) {
+            refill(now);
+            return tokens >= capacity;
+        }
+
+        private void refill(long now) {
+            tokens = Math.min(capacity, tokens + (now - updatedAt) * tokensPerNano);
+            updatedAt = now;
+        }
+    }
+
+    private final int maxQueue;
+    private final double bucketCapacity;
+    private final double tokensPerNano;
+    private final LongSupplier clock;
+    private final Semaphore permits;
+    private final Queue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger drainers = new AtomicInteger();
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final Timer waitTimer;
+    private final Counter rateLimited;
+    private final Counter queueFull;
+
+    @Autowired
+    public AiRequestScheduler(
+            MeterRegistry registry,
+            @Value("${ai.scheduler.max-concurrency:16}") int maxConcurrency,
+            @Value("${ai.scheduler.max-queue:64}") int maxQueue,
+            @Value("${ai.scheduler.bucket-capacity:10}") int bucketCapacity,
+            @Value("${ai.scheduler.refill-per-minute:20}") int refillPerMinute) {
+        this(registry, maxConcurrency, maxQueue, bucketCapacity, refillPerMinute, System::nanoTime);
+    }
+
+    AiRequestScheduler(MeterRegistry registry, int maxConcurrency, int maxQueue, int bucketCapacity,
+                       int refillPerMinute, LongSupplier clock) {
+        this.maxQueue = Math.max(0, maxQueue);
+        this.bucketCapacity = Math.max(1, bucketCapacity);
+        this.tokensPerNano = Math.max(1, refillPerMinute) / (double) TimeUnit.MINUTES.toNanos(1);
+        this.clock = clock;
+        this.permits = new Semaphore(Math.max(1, maxConcurrency));
+        this.waitTimer = Timer.builder("ai.scheduler.wait").publishPercentileHistogram().register(registry);
+        this.rateLimited = Counter.builder("ai.scheduler.rejected").tag("reason", "rate_limited").register(registry);
+        this.queueFull = Counter.builder("ai.scheduler.rejected").tag("reason", "queue_full").register(registry);
+        Gauge.builder("ai.scheduler.in-flight", inFlight, AtomicInteger::get).register(registry);
+        Gauge.builder("ai.scheduler.queue-depth", queued, AtomicInteger::get).register(registry);
+    }
+
+    /** Consume una ficha del cliente ("user:email" o "ip:dirección") o lanza 429 si no hay o la cola está llena. */
+    public void admit(String clientKey) {
+        long now = clock.getAsLong();
+        long waitNanos = buckets.computeIfAbsent(clientKey, k -> new TokenBucket(bucketCapacity, tokensPerNano, now))
+                .tryTake(now);
+        if (waitNanos > 0) {
+            rateLimited.increment();
+            throw new TooManyRequestsException("Demasiadas peticiones al asistente; espera un momento",
+                    (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        }
+        if (queued.get() >= maxQueue && permits.availablePermits() == 0) {
+            queueFull.increment();
+            throw new TooManyRequestsException("El asistente está saturado; inténtalo en unos segundos", 1);
+        }
+    }
+
+    /** Ejecuta la llamada cuando haya hueco; no bloquea: si no hay permiso se encola y la arranca quien libere uno. */
+    public <T> CompletableFuture<T> schedule(Supplier<CompletableFuture<T>> call) {
+        if (queued.incrementAndGet() > maxQueue && permits.availablePermits() == 0) {
+            queued.decrementAndGet();
+            queueFull.increment();
+            return CompletableFuture.failedFuture(
+                    new TooManyRequestsException("El asistente está saturado; inténtalo en unos segundos", 1));
+        }
+        long enqueuedAt = clock.getAsLong();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Runnable start = () -> {
+            queued.decrementAndGet();
+            inFlight.incrementAndGet();
+            waitTimer.record(clock.getAsLong() - enqueuedAt, TimeUnit.NANOSECONDS);
+            CompletableFuture<T> f;
+            try {
+                f = call.get();
+            } catch (RuntimeException e) {
+                f = CompletableFuture.failedFuture(e);
+            }
+            // Primero el resultado a quien lo pidió; luego se arranca la siguiente llamada de la cola
+            f.whenComplete((v, e) -> {
+                inFlight.decrementAndGet();
+                permits.release();
+                if (e != null) result.completeExceptionally(e);
+                else result.complete(v);
+                drain();
+            });
+        };
+        waiting.add(start);
+        drain();
+        return result;
+    }
+
+    // Los cubos llenos equivalen a uno nuevo: se pueden soltar sin cambiar el comportamiento
+    @Scheduled(fixedDelayString = "${ai.scheduler.prune-ms:60000}")
+    public void pruneIdleBuckets() {
+        long now = clock.getAsLong();
+        buckets.values().removeIf(b -> b.isFull(now));
+    }
+
+    int trackedClients() {
+        return buckets.size();
+    }
+
+    // Un solo hilo vacía la cola a la vez: una llamada que termina sin esperar vuelve aquí desde next.run(), y en vez
+    // de anidarse (pila que crece con la cola) deja apuntado que hay que dar otra vuelta
+    private void drain() {
+        if (drainers.getAndIncrement() > 0) return;
+        int missed = 1;
+        do {
+            while (!waiting.isEmpty() && permits.tryAcquire()) {
+                Runnable next = waiting.poll();
+                if (next == null) {
+                    permits.release();
+                    // Otro hilo se llevó la tarea entre isEmpty() y poll(): volver a comprobar
+                    continue;
+                }
+                next.run();
+            }
+            missed = drainers.addAndGet(-missed);
+        } while (missed != 0);
+    }
+}
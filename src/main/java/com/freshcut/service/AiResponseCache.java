@@ -0,0 +1,119 @@
+package com.freshcut.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.freshcut.dto.ChatDtos.ChatRequest;
+import com.freshcut.dto.ChatDtos.Message;
+import com.freshcut.util.AhoCorasick;
+import com.freshcut.util.CredentialUtils;
+import com.freshcut.util.HammingIndex;
+import com.freshcut.util.ShardedLruCache;
+import com.freshcut.util.SimHash;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Caché de respuestas del chat para no repetir la llamada al modelo con la misma pregunta.
+ * <ul>
+ *   <li>Clave exacta: SHA-256 de la conversación normalizada (roles y textos, sin tildes, mayúsculas ni signos)
+ *       más el SHA-256 de {@code faceDescription}.</li>
+ *   <li>Casi duplicados (opcional): SimHash de todo el texto a distancia de Hamming ≤ {@code ai.cache.max-distance},
+ *       siempre que aparezcan exactamente los mismos términos de {@link KeywordMatcher}.</li>
+ * </ul>
+ * Ambos niveles tienen TTL y tamaño máximo. Aciertos y fallos se publican como {@code ai.cache.requests}
+ * (etiqueta {@code result}: exact, near, miss).
+ */
+@Component
+public class AiResponseCache {
+
+    /** Claves de una petición; se calculan una vez y sirven para buscar y para guardar. */
+    public static final class Key {
+        final String exact;
+        final long simHash;
+        final long terms;
+
+        Key(String exact, long simHash, long terms) {
+            this.exact = exact;
+            this.simHash = simHash;
+            this.terms = terms;
+        }
+    }
+
+    private record Cached(long terms, String reply) {}
+
+    private final KeywordMatcher keywords;
+    private final boolean enabled;
+    private final boolean nearDuplicates;
+    private final ShardedLruCache<String, String> exact;
+    private final HammingIndex<Cached> near;
+    private final Counter exactHits;
+    private final Counter nearHits;
+    private final Counter misses;
+
+    public AiResponseCache(
+            KeywordMatcher keywords,
+            MeterRegistry registry,
+            @Value("${ai.cache.enabled:true}") boolean enabled,
+            @Value("${ai.cache.max-entries:2000}") int maxEntries,
+            @Value("${ai.cache.ttl-ms:3600000}") long ttlMs,
+            @Value("${ai.cache.near-duplicates:true}") boolean nearDuplicates,
+            @Value("${ai.cache.max-distance:10}") int maxDistance) {
+        this.keywords = keywords;
+        this.enabled = enabled;
+        this.nearDuplicates = nearDuplicates;
+        this.exact = new ShardedLruCache<>(maxEntries, ttlMs);
+        this.near = new HammingIndex<>(maxDistance, maxEntries, ttlMs);
+        this.exactHits = Counter.builder("ai.cache.requests").tag("result", "exact").register(registry);
+        this.nearHits = Counter.builder("ai.cache.requests").tag("result", "near").register(registry);
+        this.misses = Counter.builder("ai.cache.requests").tag("result", "miss").register(registry);
+        Gauge.builder("ai.cache.size", exact, ShardedLruCache::size).register(registry);
+    }
+
+    public Key keyFor(ChatRequest req) {
+        StringBuilder conversation = new StringBuilder();
+        if (req.getMessages() != null) {
+            for (Message m : req.getMessages()) {
+                conversation.append("assistant".equalsIgnoreCase(m.getRole()) ? "a:" : "u:")
+                        .append(AhoCorasick.normalize(m.getContent() == null ? "" : m.getContent()))
+                        .append('\n');
+            }
+        }
+        String face = AhoCorasick.normalize(req.getFaceDescription() == null ? "" : req.getFaceDescription());
+        String exactKey = CredentialUtils.sha256Hex(conversation.toString()) + ":" + CredentialUtils.sha256Hex(face);
+        String all = face + " " + conversation;
+        return new Key(exactKey, SimHash.of(AhoCorasick.normalize(all)), keywords.termSignature(all));
+    }
+
+    /** Respuesta guardada para la clave (exacta o casi duplicada), o null. */
+    public String get(Key key) {
+        if (!enabled) return null;
+        String reply = exact.get(key.exact);
+        if (reply != null) {
+            exactHits.increment();
+            return reply;
+        }
+        if (nearDuplicates) {
+            Cached similar = near.nearest(key.simHash, c -> c.terms() == key.terms);
+            if (similar != null) {
+                nearHits.increment();
+                return similar.reply();
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    public void put(Key key, String reply) {
+        if (!enabled || reply == null) return;
+        exact.put(key.exact, reply);
+        if (nearDuplicates) near.put(key.simHash, new Cached(key.terms, reply));
+    }
+
+    public void clear() {
+        exact.clear();
+        near.clear();
+    }
+}
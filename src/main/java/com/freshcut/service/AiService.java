@@ -1,54 +1,113 @@
 package com.freshcut.service;
 
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.regex.Pattern;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
 
 import com.freshcut.dto.ChatDtos.ChatRequest;
 import com.freshcut.dto.ChatDtos.ChatResponse;
 import com.freshcut.dto.ChatDtos.Message;
 import com.freshcut.service.strategy.FaceDetectionStrategy;
 import com.freshcut.service.strategy.DefaultFaceDetectionStrategy;
+import com.freshcut.service.strategy.SubsampledFaceDetectionStrategy;
 import com.freshcut.service.strategy.TextRelevanceStrategy;
 import com.freshcut.service.strategy.DefaultTextRelevanceStrategy;
+import com.freshcut.util.ImagePreprocessor;
+import com.freshcut.util.PreparedImage;
 
 @Service
 public class AiService {
     private static final Logger log = LoggerFactory.getLogger(AiService.class);
-    private final String groqKey;
-    private final RestTemplate restTemplate;
+    private final GroqClient groq;
     private static final String GROQ_MODEL = "llama-3.1-8b-instant";
     private static final String GROQ_VISION_MODEL = "llama-3.2-11b-vision-preview";
     private static final String STANDARD_REPLY = "Puedo ayudarte solo con recomendaciones de cortes, estilos, barba o facciones. ¿Quieres describir tu rostro o subir una foto?";
     // Estrategias (Patrón Strategy) para relevancia de texto y detección de rostro
-    private final TextRelevanceStrategy textStrategy = new DefaultTextRelevanceStrategy();
-    private final FaceDetectionStrategy faceStrategy = new DefaultFaceDetectionStrategy();
+    private final KeywordMatcher keywords;
+    private final TextRelevanceStrategy textStrategy;
+    private final FaceDetectionStrategy faceStrategy;
+    private final AiResponseCache cache;
+    private final PhotoRecommendationCache photoCache;
+    private final ImagePreprocessor imagePreprocessor;
 
-    public AiService(@Value("${groq.api-key:}") String groqKeyProp) {
-        String groqEnv = System.getenv("GROQ_API_KEY");
-        this.groqKey = (groqEnv != null && !groqEnv.isBlank()) ? groqEnv : (groqKeyProp == null ? "" : groqKeyProp);
-        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
-        factory.setConnectTimeout(5000);
-        factory.setReadTimeout(10000);
-        this.restTemplate = new RestTemplate(factory);
+    /** Respuesta del chat y, si se descartó sin consultar al modelo, el motivo (para el log). */
+    public static final class ChatOutcome {
+        private final ChatResponse response;
+        private final String rejectReason;
+
+        ChatOutcome(ChatResponse response, String rejectReason) {
+            this.response = response;
+            this.rejectReason = rejectReason;
+        }
+
+        public ChatResponse getResponse() { return response; }
+        public String getRejectReason() { return rejectReason; }
+    }
+
+    /** Eventos del chat en streaming, en este orden: tokens y recomendaciones, quizá un reset, y siempre un done. */
+    public interface ChatStreamListener {
+        /** Texto en bruto de la línea en curso (borrador, sin asteriscos). */
+        void onToken(String text);
+        /** Línea terminada y normalizada ("1. ..."); sustituye al borrador acumulado. */
+        void onRecommendation(int index, String text);
+        /** Descarta todo lo emitido: la respuesta se rechazó a mitad de camino. */
+        void onReset();
+        void onDone(String reply, String rejectReason);
+    }
+
+    public AiService(
+            GroqClient groq,
+            @Value("${ai.face-detection.mode:subsampled}") String faceDetectionMode,
+            KeywordMatcher keywords,
+            AiResponseCache cache,
+            PhotoRecommendationCache photoCache,
+            @Value("${ai.vision.max-edge:1024}") int visionMaxEdge,
+            @Value("${ai.vision.jpeg-quality:0.85}") float visionJpegQuality) {
+        this.groq = groq;
+        this.keywords = keywords;
+        this.cache = cache;
+        this.photoCache = photoCache;
+        this.imagePreprocessor = new ImagePreprocessor(visionMaxEdge, visionJpegQuality);
+        this.textStrategy = new DefaultTextRelevanceStrategy(keywords);
+        // "full" decodifica la imagen entera (detector original); "subsampled" solo la zona central reducida
+        this.faceStrategy = "full".equalsIgnoreCase(faceDetectionMode)
+                ? new DefaultFaceDetectionStrategy()
+                : new SubsampledFaceDetectionStrategy();
+    }
+
+    /** Filtra por relevancia (una sola vez por petición) y, si procede, consulta al modelo sin bloquear el hilo. */
+    public CompletableFuture<ChatOutcome> completeChat(ChatRequest req) {
+        if (!isRelevantText(conversationText(req))) {
+            return CompletableFuture.completedFuture(new ChatOutcome(new ChatResponse(STANDARD_REPLY), "irrelevant_text"));
+        }
+        if (!groq.isConfigured()) {
+            return CompletableFuture.completedFuture(new ChatOutcome(new ChatResponse(STANDARD_REPLY), null));
+        }
+        AiResponseCache.Key key = cache.keyFor(req);
+        String cached = cache.get(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(new ChatOutcome(new ChatResponse(cached), null));
+        }
+        return groq.complete(chatBody(req)).handle(this::toReply).thenApply(res -> {
+            // La respuesta estándar (error o rechazo) no se guarda: la próxima vez se vuelve a intentar
+            if (!STANDARD_REPLY.equals(res.getReply())) cache.put(key, res.getReply());
+            return new ChatOutcome(res, null);
+        });
     }
 
-    public ChatResponse chat(ChatRequest req) {
+    private static String conversationText(ChatRequest req) {
         StringBuilder all = new StringBuilder();
         if (req.getFaceDescription() != null) all.append(req.getFaceDescription()).append(" ");
         if (req.getMessages() != null) {
@@ -56,15 +115,57 @@ public class AiService {
                 if (m.getContent() != null) all.append(m.getContent()).append(" ");
             }
         }
-        if (!isRelevantText(all.toString())) {
-            return new ChatResponse(STANDARD_REPLY);
+        return all.toString();
+    }
+
+    /**
+     * Como {@link #completeChat} pero con la respuesta en streaming: la normalización y el filtro de términos vetados
+     * se aplican línea a línea según llegan los tokens. Cancelar el futuro corta la llamada al modelo.
+     */
+    public CompletableFuture<Void> streamChat(ChatRequest req, ChatStreamListener listener) {
+        if (!isRelevantText(conversationText(req))) {
+            listener.onDone(STANDARD_REPLY, "irrelevant_text");
+            return CompletableFuture.completedFuture(null);
         }
-        if (groqKey == null || groqKey.isBlank()) {
-            return new ChatResponse(STANDARD_REPLY);
+        if (!groq.isConfigured()) {
+            listener.onDone(STANDARD_REPLY, null);
+            return CompletableFuture.completedFuture(null);
         }
+        AiResponseCache.Key key = cache.keyFor(req);
+        String cached = cache.get(key);
+        if (cached != null) {
+            // Ya normalizada: se entrega de golpe, una recomendación por línea
+            String[] lines = cached.split("\n");
+            for (int i = 0; i < lines.length; i++) listener.onRecommendation(i + 1, lines[i]);
+            listener.onDone(cached, null);
+            return CompletableFuture.completedFuture(null);
+        }
+        ChatStreamListener caching = new ChatStreamListener() {
+            @Override public void onToken(String text) { listener.onToken(text); }
+            @Override public void onRecommendation(int index, String text) { listener.onRecommendation(index, text); }
+            @Override public void onReset() { listener.onReset(); }
+            @Override public void onDone(String reply, String rejectReason) {
+                if (rejectReason == null && !STANDARD_REPLY.equals(reply)) cache.put(key, reply);
+                listener.onDone(reply, rejectReason);
+            }
+        };
+        StreamingReplyFilter filter = new StreamingReplyFilter(keywords, caching, STANDARD_REPLY);
+        CompletableFuture<Void> upstream = groq.stream(chatBody(req), filter::accept);
+        upstream.whenComplete((v, e) -> {
+            if (e == null) {
+                filter.finish();
+            } else {
+                // Cancelado = el cliente se fue; cualquier otro error sí merece un aviso
+                if (!(e instanceof CancellationException) && !(e instanceof GroqCircuitBreaker.OpenException)) {
+                    log.warn("[AI] Stream de Groq interrumpido: {}", e.getMessage());
+                }
+                filter.fail();
+            }
+        });
+        return upstream;
+    }
 
-        String url = "https://api.groq.com/openai/v1/chat/completions";
-
+    private Map<String, Object> chatBody(ChatRequest req) {
         List<Map<String, Object>> messages = new ArrayList<>();
         String systemPrompt = "Eres un asistente especializado exclusivamente en recomendaciones de cortes de cabello, barba y estilos basados en las facciones del rostro. "
                 + "Si el usuario pregunta algo fuera de este contexto, responde exactamente: '" + STANDARD_REPLY + "'. "
@@ -87,56 +188,60 @@ public class AiService {
         body.put("temperature", 0.4);
         body.put("max_tokens", 1024);
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.setBearerAuth(groqKey);
-        HttpEntity<Map<String, Object>> entity = new HttpEntity<>(body, headers);
+        return body;
+    }
 
+    public byte[] editHair(byte[] imageBytes, String contentType, String faceDescription, String style, Integer strength) {
+        throw new IllegalArgumentException("Servicio de edición no disponible en el plan actual");
+    }
+
+    /**
+     * Decodifica la foto una sola vez: la imagen reducida sirve al filtro de rostro, a la caché y al modelo.
+     * Si ImageIO no conoce el formato (WEBP, HEIC...) pero el cliente lo declara como imagen, se envía el original
+     * con su tipo MIME, como antes de reducir las fotos. Null si no es una imagen.
+     */
+    public PreparedImage prepareImage(byte[] imageBytes, String contentType) {
+        if (contentType != null && !contentType.toLowerCase().startsWith("image/")) return null;
         try {
-            @SuppressWarnings("unchecked")
-            Map<String, Object> res = restTemplate.postForObject(url, entity, Map.class);
-            if (res == null) return new ChatResponse(STANDARD_REPLY);
-            @SuppressWarnings("unchecked")
-            List<Map<String, Object>> choices = (List<Map<String, Object>>) res.get("choices");
-            if (choices == null || choices.isEmpty()) return new ChatResponse(STANDARD_REPLY);
-            @SuppressWarnings("unchecked")
-            Map<String, Object> message = (Map<String, Object>) choices.get(0).get("message");
-            if (message == null) return new ChatResponse(STANDARD_REPLY);
-            Object content = message.get("content");
-            String reply = content == null ? "" : content.toString();
-            reply = normalizeToThreeRecommendations(reply);
-            if (!containsAllowedStyle(reply) || containsBannedTokens(reply)) {
-                return new ChatResponse(STANDARD_REPLY);
+            return imagePreprocessor.prepare(imageBytes);
+        } catch (IOException | RuntimeException e) {
+            String mime = imageMime(contentType);
+            if (mime == null || imageBytes == null || imageBytes.length == 0) {
+                log.debug("[AI] Imagen no decodificable: {}", e.getMessage());
+                return null;
             }
-            return new ChatResponse(reply);
-        } catch (HttpClientErrorException e) {
-            return new ChatResponse(STANDARD_REPLY);
-        } catch (RestClientException e) {
-            return new ChatResponse(STANDARD_REPLY);
+            log.debug("[AI] Formato {} no decodificable, se envía el original: {}", mime, e.getMessage());
+            return PreparedImage.undecoded(imageBytes, mime);
         }
     }
 
-    public byte[] editHair(byte[] imageBytes, String contentType, String faceDescription, String style, Integer strength) {
-        throw new IllegalArgumentException("Servicio de edición no disponible en el plan actual");
+    // Tipo MIME de imagen sin parámetros; null si no tiene la forma image/xxx (va tal cual dentro del data URI)
+    private static String imageMime(String contentType) {
+        if (contentType == null) return null;
+        int semicolon = contentType.indexOf(';');
+        String mime = (semicolon >= 0 ? contentType.substring(0, semicolon) : contentType).trim().toLowerCase();
+        return IMAGE_MIME.matcher(mime).matches() ? mime : null;
     }
 
-    public ChatResponse recommendFromPhoto(byte[] imageBytes, String contentType, String faceDescription) {
-        boolean faceOk = isLikelyFacePhoto(imageBytes, contentType);
-        boolean textOk = isRelevantText(faceDescription);
-        if (groqKey == null || groqKey.isBlank()) {
-            return new ChatResponse(STANDARD_REPLY);
+    /** Se envía el JPEG reducido y sin metadatos (o el original si no se pudo decodificar), en base64 directamente en el cuerpo. */
+    public CompletableFuture<ChatResponse> recommendFromPhoto(PreparedImage image, String faceDescription) {
+        if (image == null || !groq.isConfigured()) {
+            return CompletableFuture.completedFuture(new ChatResponse(STANDARD_REPLY));
+        }
+        // Misma foto (o casi) con las mismas notas: no volver a subir la imagen
+        PhotoRecommendationCache.Key key = photoCache.keyFor(image, faceDescription);
+        String cached = photoCache.get(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(new ChatResponse(cached));
         }
 
-        String url = "https://api.groq.com/openai/v1/chat/completions";
         List<Map<String, Object>> messages = new ArrayList<>();
 
         List<Map<String, Object>> userContent = new ArrayList<>();
         userContent.add(Map.of("type", "text", "text", "Reglas: responde exactamente con 3 líneas numeradas: 1. ..., 2. ..., 3. ...; en español; usa solo nombres de estilos permitidos; sin títulos ni secciones; no inventes nombres."));
-        String mime = (contentType != null && !contentType.isBlank()) ? contentType : "image/jpeg";
-        String b64 = Base64.getEncoder().encodeToString(imageBytes);
         userContent.add(Map.of(
                 "type", "image_url",
-                "image_url", Map.of("url", "data:" + mime + ";base64," + b64)
+                "image_url", Map.of("url", image.dataUri())
         ));
         if (faceDescription != null && !faceDescription.isBlank()) {
             userContent.add(Map.of("type", "text", "text", "Notas del usuario: " + faceDescription));
@@ -151,81 +256,59 @@ public class AiService {
         body.put("temperature", 0.4);
         body.put("max_tokens", 1024);
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.setBearerAuth(groqKey);
-        HttpEntity<Map<String, Object>> entity = new HttpEntity<>(body, headers);
-
-        try {
-            @SuppressWarnings("unchecked")
-            Map<String, Object> res = restTemplate.postForObject(url, entity, Map.class);
-            if (res == null) return new ChatResponse(STANDARD_REPLY);
-            @SuppressWarnings("unchecked")
-            List<Map<String, Object>> choices = (List<Map<String, Object>>) res.get("choices");
-            if (choices == null || choices.isEmpty()) return new ChatResponse(STANDARD_REPLY);
-            @SuppressWarnings("unchecked")
-            Map<String, Object> message = (Map<String, Object>) choices.get(0).get("message");
-            if (message == null) return new ChatResponse(STANDARD_REPLY);
-            Object content = message.get("content");
-            String reply = content == null ? "" : content.toString();
-            reply = normalizeToThreeRecommendations(reply);
-            if (!containsAllowedStyle(reply) || containsBannedTokens(reply)) {
-                return new ChatResponse(STANDARD_REPLY);
-            }
-            return new ChatResponse(reply);
-        } catch (HttpClientErrorException e) {
-            return new ChatResponse(STANDARD_REPLY);
-        } catch (RestClientException e) {
-            return new ChatResponse(STANDARD_REPLY);
-        }
+        return groq.complete(body).handle(this::toReply).thenApply(res -> {
+            if (!STANDARD_REPLY.equals(res.getReply())) photoCache.put(key, res.getReply());
+            return res;
+        });
     }
 
-    private boolean containsAllowedStyle(String text) {
-        if (text == null) return false;
-        String t = text.toLowerCase();
-        String[] styles = {"fade", "pompadour", "quiff", "crop", "crew", "buzz", "side part", "raya", "undercut", "mullet", "peinado hacia atrás"};
-        for (String s : styles) {
-            if (t.contains(s)) return true;
+    // Post-procesado común: tres recomendaciones y filtro de estilos/términos vetados; cualquier fallo -> respuesta estándar
+    private ChatResponse toReply(String content, Throwable error) {
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            // Rechazo del planificador: que llegue al cliente como 429, no como respuesta estándar
+            if (cause instanceof TooManyRequestsException tooMany) throw tooMany;
+            // Con el circuito abierto no se avisa en cada petición: ya se avisó al abrirse
+            if (!(cause instanceof GroqCircuitBreaker.OpenException)) log.warn("[AI] Groq no disponible: {}", cause.getMessage());
+            return new ChatResponse(STANDARD_REPLY);
         }
-        // También aceptar recomendaciones basadas en forma de rostro
-        String[] facial = {"oval", "redond", "triangular", "diamante", "cuadrad", "alargad", "estrech", "mandíbula", "frente", "pómulos"};
-        int hits = 0;
-        for (String f : facial) if (t.contains(f)) hits++;
-        return hits >= 2;
-    }
-
-    private boolean containsBannedTokens(String text) {
-        if (text == null) return false;
-        String t = text.toLowerCase();
-        String[] banned = {"mustang", "camaro", "tesla", "bmw", "ford", "chevrolet", "ferrari", "lamborghini", "politica", "política", "clima", "receta", "comida", "videojuego"};
-        for (String b : banned) {
-            if (t.contains(b)) return true;
+        String reply = normalizeToThreeRecommendations(content);
+        if (!keywords.isAcceptableReply(keywords.scan(reply))) {
+            return new ChatResponse(STANDARD_REPLY);
         }
-        return false;
+        return new ChatResponse(reply);
     }
 
-    private String normalizeToThreeRecommendations(String text) {
+    static String normalizeToThreeRecommendations(String text) {
         if (text == null) return STANDARD_REPLY;
-        String t = text.replace("**", "").replace("Opciones:", "").replace("Estilos:", "").replace("Cortes:", "").trim();
-        String[] raw = t.split("\r?\n");
+        String[] raw = text.split("\r?\n");
         List<String> items = new ArrayList<>();
         for (String s : raw) {
-            String x = s.trim();
+            String x = cleanLine(s);
             if (x.isEmpty()) continue;
-            if (x.matches("^\\d+\\)\\s.*")) x = x.replaceFirst("^\\d+\\)\\s", "");
-            if (x.matches("^\\d+\\.\\s.*")) x = x.replaceFirst("^\\d+\\.\\s", "");
             // No truncar el contenido de cada recomendación para mostrar el texto completo
             items.add(x);
-            if (items.size() == 6) break;
+            if (items.size() == 3) break;
         }
         if (items.isEmpty()) return STANDARD_REPLY;
         List<String> out = new ArrayList<>();
-        for (int i = 0; i < Math.min(3, items.size()); i++) {
+        for (int i = 0; i < items.size(); i++) {
             out.add((i+1) + ". " + items.get(i));
         }
         return String.join("\n", out);
     }
 
+    private static final Pattern NUMBERING_PAREN = Pattern.compile("^\\d+\\)\\s");
+    private static final Pattern NUMBERING_DOT = Pattern.compile("^\\d+\\.\\s");
+    private static final Pattern IMAGE_MIME = Pattern.compile("image/[a-z0-9.+-]+");
+
+    // Una línea de la respuesta sin negritas, títulos ("Opciones:"...) ni numeración propia del modelo
+    static String cleanLine(String line) {
+        String x = line.replace("**", "").replace("Opciones:", "").replace("Estilos:", "").replace("Cortes:", "").trim();
+        x = NUMBERING_PAREN.matcher(x).replaceFirst("");
+        return NUMBERING_DOT.matcher(x).replaceFirst("");
+    }
+
     public boolean isRelevantText(String text) {
         return textStrategy.isRelevantText(text);
     }
@@ -234,4 +317,8 @@ public class AiService {
         return faceStrategy.isLikelyFacePhoto(imageBytes, contentType);
     }
 
+    public boolean isLikelyFacePhoto(PreparedImage image) {
+        return image != null && faceStrategy.isLikelyFacePhoto(image);
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,132 @@
+package com.freshcut.service;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.freshcut.util.ExactWindowCounter;
+import com.freshcut.util.SlidingWindowCounter;
+import com.freshcut.util.WindowCounter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Límite de intentos en los endpoints públicos de autenticación, antes de tocar Mongo o BCrypt.
+ * <ul>
+ *   <li>Login: por IP ({@code auth.rate-limit.login-ip-*}) y por email ({@code auth.rate-limit.login-email-*}).
+ *       {@link #acquireLogin} reserva el intento antes de buscar el usuario (sumar y comparar en un paso, así una
+ *       ráfaga en paralelo no pasa de largo mientras BCrypt aún no ha respondido) y {@link #refundLogin} lo devuelve
+ *       si el login fue bien. Cuentan los fallidos, los que siguen en curso y los que fallan por otra causa
+ *       (p. ej. el 429 de {@link PasswordHasher}); nunca frena a quien entra bien.</li>
+ *   <li>{@code /api/auth/exists}: por IP, cada consulta admitida, para que no sirva para enumerar emails.</li>
+ * </ul>
+ * Por IP, un {@link SlidingWindowCounter} de memoria fija (una colisión solo puede frenar antes a una IP). Por email,
+ * un {@link ExactWindowCounter} de como mucho {@code login-email-max-keys} cuentas: una colisión ahí bloquearía la
+ * cuenta de otra persona. Los intentos rechazados se devuelven al momento: el bloqueo acaba cuando caducan los fallos
+ * que lo causaron. Límite 0 desactiva la regla. Métrica: {@code auth.rate-limit.rejected} (etiquetas {@code endpoint} y {@code key}).
+ */
+@Component
+public class AuthRateLimiter {
+    private static final int SLOTS = 6;
+
+    private final Rule loginIp;
+    private final Rule loginEmail;
+    private final Rule existsIp;
+
+    private static final class Rule {
+        final int limit;
+        final WindowCounter counter;
+        final Counter rejected;
+
+        Rule(int limit, WindowCounter counter, Counter rejected) {
+            this.limit = limit;
+            this.counter = limit > 0 ? counter : null;
+            this.rejected = rejected;
+        }
+
+        /** Cuenta un intento; si con él se pasa del límite lo devuelve y lanza 429. */
+        void acquire(String key) {
+            if (counter == null || key == null || key.isBlank()) return;
+            if (counter.increment(key) <= limit) return;
+            counter.decrement(key);
+            rejected.increment();
+            long waitNanos = counter.nanosUntilBelow(key, limit);
+            throw new TooManyRequestsException("Demasiados intentos; espera un momento",
+                    Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1)));
+        }
+
+        void refund(String key) {
+            if (counter == null || key == null || key.isBlank()) return;
+            counter.decrement(key);
+        }
+    }
+
+    @Autowired
+    public AuthRateLimiter(
+            MeterRegistry registry,
+            @Value("${auth.rate-limit.login-ip-limit:30}") int loginIpLimit,
+            @Value("${auth.rate-limit.login-ip-window-seconds:60}") int loginIpWindow,
+            @Value("${auth.rate-limit.login-email-limit:10}") int loginEmailLimit,
+            @Value("${auth.rate-limit.login-email-window-seconds:900}") int loginEmailWindow,
+            @Value("${auth.rate-limit.login-email-max-keys:100000}") int loginEmailMaxKeys,
+            @Value("${auth.rate-limit.exists-ip-limit:20}") int existsIpLimit,
+            @Value("${auth.rate-limit.exists-ip-window-seconds:60}") int existsIpWindow,
+            @Value("${auth.rate-limit.sketch-width:2048}") int width) {
+        this(registry, loginIpLimit, loginIpWindow, loginEmailLimit, loginEmailWindow, loginEmailMaxKeys,
+                existsIpLimit, existsIpWindow, width, System::nanoTime);
+    }
+
+    AuthRateLimiter(MeterRegistry registry, int loginIpLimit, int loginIpWindow, int loginEmailLimit,
+                    int loginEmailWindow, int loginEmailMaxKeys, int existsIpLimit, int existsIpWindow, int width,
+                    LongSupplier clock) {
+        this.loginIp = new Rule(loginIpLimit, sketch(loginIpWindow, width, clock), rejected(registry, "login", "ip"));
+        this.loginEmail = new Rule(loginEmailLimit,
+                new ExactWindowCounter(window(loginEmailWindow), SLOTS, loginEmailMaxKeys, clock),
+                rejected(registry, "login", "email"));
+        this.existsIp = new Rule(existsIpLimit, sketch(existsIpWindow, width, clock), rejected(registry, "exists", "ip"));
+    }
+
+    /** Reserva el intento para la IP y el email; 429 (sin contarlo en ninguno) si alguno está al límite. */
+    public void acquireLogin(String email, String ip) {
+        loginIp.acquire(ip);
+        try {
+            loginEmail.acquire(normalize(email));
+        } catch (TooManyRequestsException e) {
+            loginIp.refund(ip);
+            throw e;
+        }
+    }
+
+    /** Login correcto: devuelve el intento reservado con {@link #acquireLogin}. */
+    public void refundLogin(String email, String ip) {
+        loginIp.refund(ip);
+        loginEmail.refund(normalize(email));
+    }
+
+    /** Cuenta una consulta de {@code /api/auth/exists}; 429 (sin contarla) si la IP ha superado su límite. */
+    public void checkExists(String ip) {
+        existsIp.acquire(ip);
+    }
+
+    private static String normalize(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static Duration window(int seconds) {
+        return Duration.ofSeconds(Math.max(1, seconds));
+    }
+
+    private static SlidingWindowCounter sketch(int windowSeconds, int width, LongSupplier clock) {
+        return new SlidingWindowCounter(window(windowSeconds), SLOTS, width, clock);
+    }
+
+    private static Counter rejected(MeterRegistry registry, String endpoint, String key) {
+        return Counter.builder("auth.rate-limit.rejected").tag("endpoint", endpoint).tag("key", key).register(registry);
+    }
+}
@@ -2,12 +2,18 @@ package com.freshcut.service;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ThreadLocalRandom;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 import com.freshcut.dto.AuthDtos.ForgotRequest;
@@ -17,25 +23,30 @@ import com.freshcut.dto.AuthDtos.RegisterRequest;
 import com.freshcut.dto.AuthDtos.ResetRequest;
 import com.freshcut.dto.AuthDtos.ResetSimpleRequest;
 import com.freshcut.db.model.Barber;
+import com.freshcut.db.model.PasswordScheme;
 import com.freshcut.db.model.Role;
 import com.freshcut.db.model.User;
 import com.freshcut.db.repository.BarberRepository;
 import com.freshcut.db.repository.UserRepository;
 import com.freshcut.security.JwtService;
+import com.freshcut.util.CredentialUtils;
 
 @Service
 public class AuthService {
     private static final Logger log = LoggerFactory.getLogger(AuthService.class);
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
     private final JwtService jwtService;
     private final BarberRepository barberRepository;
+    private final MongoTemplate mongoTemplate;
 
-    public AuthService(UserRepository userRepository, PasswordEncoder passwordEncoder, JwtService jwtService, BarberRepository barberRepository) {
+    public AuthService(UserRepository userRepository, PasswordHasher passwordHasher, JwtService jwtService,
+                       BarberRepository barberRepository, MongoTemplate mongoTemplate) {
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHasher = passwordHasher;
         this.jwtService = jwtService;
         this.barberRepository = barberRepository;
+        this.mongoTemplate = mongoTemplate;
     }
 
     public AuthResponse register(RegisterRequest req) {
@@ -44,21 +55,22 @@ public class AuthService {
         }
         String rawOrHash = req.getPassword();
         String sha;
-        if (isSha256Hex(rawOrHash)) {
+        if (CredentialUtils.isSha256Hex(rawOrHash)) {
             // El frontend envía el SHA-256 ya calculado en el campo `password`
             sha = rawOrHash;
         } else {
             // Validación de fuerza sobre el texto plano y luego hash
-            if (!isStrongPassword(rawOrHash)) {
+            if (!CredentialUtils.isStrongPassword(rawOrHash)) {
                 throw new IllegalArgumentException("Contraseña inválida: mínimo 8 caracteres, incluir mayúscula, minúscula, número y carácter especial");
             }
-            sha = sha256(rawOrHash);
+            sha = CredentialUtils.sha256Hex(rawOrHash);
         }
         Role role = "ADMIN".equalsIgnoreCase(req.getRole()) ? Role.ADMIN :
                 ("BARBER".equalsIgnoreCase(req.getRole()) ? Role.BARBER : Role.USER);
         User u = new User();
         u.setEmail(req.getEmail());
-        u.setPasswordHash(passwordEncoder.encode(sha));
+        u.setPasswordHash(passwordHasher.encodeNow(sha));
+        u.setPasswordScheme(PasswordScheme.BCRYPT_SHA256);
         u.setRole(role);
         u.setName(req.getName());
         if (role == Role.BARBER) {
@@ -81,72 +93,98 @@ public class AuthService {
         return new AuthResponse(token, u.getEmail(), u.getRole().name());
     }
 
-    public AuthResponse login(LoginRequest req) {
+    /**
+     * Login con BCrypt en {@link PasswordHasher}: el hilo de la petición queda libre mientras se comprueba.
+     * Con el esquema del hash ya conocido ({@link User#getPasswordScheme()}) se hace un único {@code matches};
+     * sin él se prueban las variantes antiguas y se anota la que coincide. Tras un login correcto, si el hash es
+     * antiguo (texto sin SHA-256 o coste menor que {@code auth.bcrypt.cost}) se rehace en segundo plano.
+     */
+    public CompletableFuture<AuthResponse> login(LoginRequest req) {
         String email = (req != null && req.getEmail() != null) ? req.getEmail().trim() : "";
         String password = (req != null && req.getPassword() != null) ? req.getPassword() : "";
         String passwordSha = (req != null && req.getPasswordSha256() != null) ? req.getPasswordSha256() : "";
 
         // Si faltan datos básicos, responder 200 con token vacío para evitar errores en consola
         if (email.isBlank() || (password.isBlank() && passwordSha.isBlank())) {
-            return new AuthResponse("", email, "");
+            return CompletableFuture.completedFuture(new AuthResponse("", email, ""));
         }
 
         var opt = userRepository.findByEmail(email);
         if (opt.isEmpty()) {
             // Responder 200 OK con token vacío para evitar errores de consola
-            return new AuthResponse("", email, "");
+            return CompletableFuture.completedFuture(new AuthResponse("", email, ""));
         }
         User u = opt.get();
 
-        boolean ok = false;
+        return firstMatch(candidates(u.getPasswordScheme(), password, passwordSha), 0, u.getPasswordHash())
+                .thenApply(matched -> {
+                    if (matched == null) {
+                        // Responder 200 OK con token vacío para evitar errores de consola
+                        return new AuthResponse("", email, "");
+                    }
+                    upgradeIfNeeded(u, matched);
+                    String token = jwtService.generate(u.getEmail(), Map.of("role", u.getRole().name()));
+                    return new AuthResponse(token, u.getEmail(), u.getRole().name());
+                });
+    }
+
+    /** Lo que se pasa a BCrypt y el esquema que confirma si coincide. */
+    record Candidate(String secret, PasswordScheme scheme) {}
+
+    static List<Candidate> candidates(PasswordScheme known, String password, String passwordSha) {
+        if (known == PasswordScheme.BCRYPT_SHA256) {
+            String secret = password.isBlank() ? passwordSha
+                    : (CredentialUtils.isSha256Hex(password) ? password : CredentialUtils.sha256Hex(password));
+            return List.of(new Candidate(secret, known));
+        }
+        if (known == PasswordScheme.BCRYPT_PLAIN) {
+            return List.of(new Candidate(password.isBlank() ? passwordSha : password, known));
+        }
+        // Sin marcador: mismo orden que antes (texto, SHA-256 del texto, passwordSha256)
+        List<Candidate> out = new ArrayList<>(3);
         if (!password.isBlank()) {
-            if (isSha256Hex(password)) {
+            if (CredentialUtils.isSha256Hex(password)) {
                 // El campo `password` ya contiene el SHA-256
-                ok = passwordEncoder.matches(password, u.getPasswordHash());
+                out.add(new Candidate(password, PasswordScheme.BCRYPT_SHA256));
             } else {
-                // Primero compatibilidad con contraseñas antiguas almacenadas como bcrypt(texto)
-                ok = passwordEncoder.matches(password, u.getPasswordHash());
-                if (!ok) {
-                    // Luego comparar bcrypt(sha256(texto))
-                    String legacy = sha256(password);
-                    ok = passwordEncoder.matches(legacy, u.getPasswordHash());
-                }
+                out.add(new Candidate(password, PasswordScheme.BCRYPT_PLAIN));
+                out.add(new Candidate(CredentialUtils.sha256Hex(password), PasswordScheme.BCRYPT_SHA256));
             }
         }
-
-        // Compatibilidad adicional: si se envía `passwordSha256`, aceptar también
-        if (!ok && !passwordSha.isBlank()) {
-            ok = passwordEncoder.matches(passwordSha, u.getPasswordHash());
-        }
-
-        if (!ok) {
-            // Responder 200 OK con token vacío para evitar errores de consola
-            return new AuthResponse("", email, "");
+        if (!passwordSha.isBlank() && out.stream().noneMatch(c -> c.secret().equals(passwordSha))) {
+            out.add(new Candidate(passwordSha, PasswordScheme.BCRYPT_SHA256));
         }
-
-        String token = jwtService.generate(u.getEmail(), Map.of("role", u.getRole().name()));
-        return new AuthResponse(token, u.getEmail(), u.getRole().name());
+        return out;
     }
 
-    private String sha256(String text) {
-        try {
-            java.security.MessageDigest md = java.security.MessageDigest.getInstance("SHA-256");
-            byte[] digest = md.digest(text.getBytes(java.nio.charset.StandardCharsets.UTF_8));
-            StringBuilder sb = new StringBuilder(digest.length * 2);
-            for (byte b : digest) {
-                sb.append(String.format("%02x", b));
-            }
-            return sb.toString();
-        } catch (Exception e) {
-            return text; // fallback (no debería ocurrir)
-        }
+    // Prueba los candidatos uno tras otro (cada matches en el pool); null si ninguno coincide
+    private CompletableFuture<Candidate> firstMatch(List<Candidate> candidates, int i, String hash) {
+        if (i >= candidates.size() || hash == null) return CompletableFuture.completedFuture(null);
+        Candidate c = candidates.get(i);
+        return passwordHasher.matches(c.secret(), hash)
+                .thenCompose(ok -> ok ? CompletableFuture.completedFuture(c) : firstMatch(candidates, i + 1, hash));
     }
 
-    private boolean isSha256Hex(String s) {
-        if (s == null) return false;
-        String t = s.trim();
-        // 64 caracteres hexadecimales (minúsculas o mayúsculas)
-        return t.length() == 64 && t.matches("[a-fA-F0-9]{64}");
+    // Anota el esquema y, si hace falta, rehace el hash como bcrypt(sha256) al coste actual. No retrasa la respuesta
+    // y se omite si el pool está lleno. Solo se escribe si el hash no ha cambiado entretanto (p. ej. un reset).
+    private void upgradeIfNeeded(User u, Candidate matched) {
+        String oldHash = u.getPasswordHash();
+        boolean rehash = matched.scheme() != PasswordScheme.BCRYPT_SHA256 || passwordHasher.needsUpgrade(oldHash);
+        if (!rehash && u.getPasswordScheme() == PasswordScheme.BCRYPT_SHA256) return;
+        Query sameHash = new Query(Criteria.where("_id").is(u.getId()).and("passwordHash").is(oldHash));
+        if (!rehash) {
+            mongoTemplate.updateFirst(sameHash, new Update().set("passwordScheme", PasswordScheme.BCRYPT_SHA256), User.class);
+            return;
+        }
+        String sha = matched.scheme() == PasswordScheme.BCRYPT_SHA256 ? matched.secret() : CredentialUtils.sha256Hex(matched.secret());
+        passwordHasher.encode(sha)
+                .thenAccept(newHash -> mongoTemplate.updateFirst(sameHash, new Update()
+                        .set("passwordHash", newHash)
+                        .set("passwordScheme", PasswordScheme.BCRYPT_SHA256), User.class))
+                .exceptionally(e -> {
+                    log.debug("[Auth] Rehash pospuesto para {}: {}", u.getEmail(), e.getMessage());
+                    return null;
+                });
     }
 
     // Solicitar recuperación: genera código de 6 dígitos y lo guarda con expiración
@@ -175,10 +213,11 @@ public class AuthService {
         if (!req.getCode().equals(u.getResetCode())) {
             throw new IllegalArgumentException("Código inválido");
         }
-        if (!isStrongPassword(req.getNewPassword())) {
+        if (!CredentialUtils.isStrongPassword(req.getNewPassword())) {
             throw new IllegalArgumentException("Contraseña inválida: mínimo 8 caracteres, incluir mayúscula, minúscula, número y carácter especial");
         }
-        u.setPasswordHash(passwordEncoder.encode(sha256(req.getNewPassword())));
+        u.setPasswordHash(passwordHasher.encodeNow(CredentialUtils.sha256Hex(req.getNewPassword())));
+        u.setPasswordScheme(PasswordScheme.BCRYPT_SHA256);
         u.setResetCode(null);
         u.setResetExpiry(null);
         userRepository.save(u);
@@ -193,10 +232,11 @@ public class AuthService {
         }
         User u = userRepository.findByEmail(email)
                 .orElseThrow(() -> new IllegalArgumentException("Credenciales inválidas"));
-        if (!isStrongPassword(newPw)) {
+        if (!CredentialUtils.isStrongPassword(newPw)) {
             throw new IllegalArgumentException("Contraseña inválida: mínimo 8 caracteres, incluir mayúscula, minúscula, número y carácter especial");
         }
-        u.setPasswordHash(passwordEncoder.encode(sha256(newPw)));
+        u.setPasswordHash(passwordHasher.encodeNow(CredentialUtils.sha256Hex(newPw)));
+        u.setPasswordScheme(PasswordScheme.BCRYPT_SHA256);
         // Limpiar cualquier código previo de reset
         u.setResetCode(null);
         u.setResetExpiry(null);
@@ -208,9 +248,4 @@ public class AuthService {
         if (e.isBlank()) return false;
         return userRepository.existsByEmail(e);
     }
-
-    private boolean isStrongPassword(String pw) {
-        if (pw == null) return false;
-        return pw.matches("^(?=.*[a-z])(?=.*[A-Z])(?=.*\\d)(?=.*[^A-Za-z0-9]).{8,}$");
-    }
 }
\ No newline at end of file
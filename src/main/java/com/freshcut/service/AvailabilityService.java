@@ -0,0 +1,142 @@
+package com.freshcut.service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.stereotype.Service;
+
+import com.freshcut.db.model.Barber;
+import com.freshcut.db.model.Booking;
+import com.freshcut.db.model.Schedule;
+import com.freshcut.db.model.ServiceItem;
+import com.freshcut.db.repository.BookingRepository;
+import com.freshcut.dto.AvailabilityResponse;
+
+/**
+ * Calcula las horas de inicio libres de un barbero en un rango: une las ventanas de horario con las
+ * reservas existentes en un único barrido ordenado (sweep-line) y parte los huecos según la duración del servicio.
+ */
+@Service
+public class AvailabilityService {
+    static final int MAX_RANGE_DAYS = 31;
+    static final int DEFAULT_STEP_MINUTES = 15;
+
+    private final BookingRepository bookingRepository;
+    private final CatalogService catalogService;
+    private final BookingIndex bookingIndex;
+
+    public AvailabilityService(
+            BookingRepository bookingRepository,
+            CatalogService catalogService,
+            BookingIndex bookingIndex) {
+        this.bookingRepository = bookingRepository;
+        this.catalogService = catalogService;
+        this.bookingIndex = bookingIndex;
+    }
+
+    public AvailabilityResponse availability(String barberId, LocalDateTime from, LocalDateTime to, String serviceName, Integer stepMinutes) {
+        if (from == null || to == null || !to.isAfter(from)) {
+            throw new IllegalArgumentException("Rango inválido: 'to' debe ser posterior a 'from'");
+        }
+        if (Duration.between(from, to).compareTo(Duration.ofDays(MAX_RANGE_DAYS)) > 0) {
+            throw new IllegalArgumentException("Rango demasiado amplio: máximo " + MAX_RANGE_DAYS + " días");
+        }
+        Barber barber = catalogService.findActiveBarberById(barberId)
+                .orElseThrow(() -> new IllegalArgumentException("Barbero inválido o inactivo"));
+        ServiceItem service = catalogService.findActiveService(serviceName)
+                .orElseThrow(() -> new IllegalArgumentException("Servicio inválido o inactivo"));
+        int step = (stepMinutes == null || stepMinutes < SlotReservationService.SLOT_MINUTES) ? DEFAULT_STEP_MINUTES : stepMinutes;
+        // Múltiplo del tramo de reserva: solo se ofrecen inicios que BookingService acepta
+        int slot = SlotReservationService.SLOT_MINUTES;
+        step = (step + slot - 1) / slot * slot;
+
+        // No ofrecer horas pasadas
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime start = from.isBefore(now) ? now : from;
+        if (!to.isAfter(start)) {
+            return new AvailabilityResponse(barber.getId(), barber.getName(), service.getName(), service.getDurationMinutes(), List.of());
+        }
+
+        // Ventanas concretas del rango a partir del horario semanal (en memoria)
+        List<LocalDateTime[]> windows = new ArrayList<>();
+        for (LocalDate d = start.toLocalDate(); !d.isAfter(to.toLocalDate()); d = d.plusDays(1)) {
+            for (Schedule s : bookingIndex.schedulesFor(barber.getId(), d.getDayOfWeek())) {
+                windows.add(new LocalDateTime[] { d.atTime(s.getStartTime()), d.atTime(s.getEndTime()) });
+            }
+        }
+        // Una sola consulta para todas las reservas del rango
+        List<Booking> bookings = bookingRepository.findActiveInRange(barber.getName(), start, to);
+        List<LocalDateTime[]> busy = new ArrayList<>(bookings.size());
+        for (Booking b : bookings) busy.add(new LocalDateTime[] { b.getStartTime(), b.getEndTime() });
+
+        List<LocalDateTime> slots = freeStarts(windows, busy, start, to, service.getDurationMinutes(), step);
+        return new AvailabilityResponse(barber.getId(), barber.getName(), service.getName(), service.getDurationMinutes(), slots);
+    }
+
+    /**
+     * Barrido sobre los eventos de apertura/cierre de ventanas y de inicio/fin de reservas. Un instante está libre
+     * cuando hay al menos una ventana abierta y ninguna reserva en curso; cada tramo libre se recorre en pasos
+     * de {@code stepMinutes} alineados al reloj, emitiendo los inicios donde cabe el servicio completo.
+     */
+    static List<LocalDateTime> freeStarts(List<LocalDateTime[]> windows, List<LocalDateTime[]> busy,
+            LocalDateTime from, LocalDateTime to, int durationMinutes, int stepMinutes) {
+        List<Event> events = new ArrayList<>(2 * (windows.size() + busy.size()));
+        for (LocalDateTime[] w : windows) addEvents(events, w, from, to, 1, 0);
+        for (LocalDateTime[] b : busy) addEvents(events, b, from, to, 0, 1);
+        events.sort((a, b) -> a.at.compareTo(b.at));
+
+        List<LocalDateTime> out = new ArrayList<>();
+        int open = 0;
+        int booked = 0;
+        LocalDateTime freeSince = null;
+        int i = 0;
+        while (i < events.size()) {
+            LocalDateTime t = events.get(i).at;
+            // Aplicar todos los eventos del mismo instante antes de evaluar el estado
+            while (i < events.size() && events.get(i).at.equals(t)) {
+                open += events.get(i).openDelta;
+                booked += events.get(i).bookedDelta;
+                i++;
+            }
+            boolean free = open > 0 && booked == 0;
+            if (free && freeSince == null) {
+                freeSince = t;
+            } else if (!free && freeSince != null) {
+                emit(out, freeSince, t, durationMinutes, stepMinutes);
+                freeSince = null;
+            }
+        }
+        return out;
+    }
+
+    private static void addEvents(List<Event> events, LocalDateTime[] interval, LocalDateTime from, LocalDateTime to, int open, int booked) {
+        LocalDateTime s = interval[0].isBefore(from) ? from : interval[0];
+        LocalDateTime e = interval[1].isAfter(to) ? to : interval[1];
+        if (!e.isAfter(s)) return;
+        events.add(new Event(s, open, booked));
+        events.add(new Event(e, -open, -booked));
+    }
+
+    private static void emit(List<LocalDateTime> out, LocalDateTime gapStart, LocalDateTime gapEnd, int durationMinutes, int stepMinutes) {
+        LocalDateTime t = gapStart.truncatedTo(ChronoUnit.MINUTES);
+        if (t.isBefore(gapStart)) t = t.plusMinutes(1);
+        int minuteOfDay = t.getHour() * 60 + t.getMinute();
+        int rem = minuteOfDay % stepMinutes;
+        if (rem != 0) t = t.plusMinutes(stepMinutes - rem);
+        while (!t.plusMinutes(durationMinutes).isAfter(gapEnd)) {
+            out.add(t);
+            t = t.plusMinutes(stepMinutes);
+        }
+    }
+
+    private static final class Event {
+        final LocalDateTime at;
+        final int openDelta;
+        final int bookedDelta;
+        Event(LocalDateTime at, int openDelta, int bookedDelta) { this.at = at; this.openDelta = openDelta; this.bookedDelta = bookedDelta; }
+    }
+}
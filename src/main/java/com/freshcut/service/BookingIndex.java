@@ -0,0 +1,246 @@
+package com.freshcut.service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.freshcut.db.model.Booking;
+import com.freshcut.db.model.Schedule;
+import com.freshcut.db.repository.BookingRepository;
+import com.freshcut.db.repository.ScheduleRepository;
+
+/**
+ * Índice en memoria por barbero con las reservas activas (ordenadas por inicio) y las ventanas
+ * de disponibilidad semanales. Responde "¿se solapa?" y "¿encaja en el horario?" sin ir a Mongo.
+ * Es local a cada nodo: Mongo sigue siendo la fuente de verdad al confirmar la reserva. Los horarios editados en
+ * otro nodo llegan con la recarga periódica ({@code booking.index.schedule-refresh-ms}) y, para la reserva que se
+ * confirma, con {@link #fitsFreshSchedule}.
+ */
+@Service
+public class BookingIndex {
+    private static final Logger log = LoggerFactory.getLogger(BookingIndex.class);
+    private static final String CANCELLED = "CANCELLED";
+
+    private static final Comparator<Interval> BY_START =
+            Comparator.comparing((Interval i) -> i.start).thenComparing(i -> i.id);
+
+    static final class Interval {
+        final String id;
+        final LocalDateTime start;
+        final LocalDateTime end;
+        Interval(String id, LocalDateTime start, LocalDateTime end) { this.id = id; this.start = start; this.end = end; }
+    }
+
+    private static final class BarberTimeline {
+        final NavigableSet<Interval> intervals = new ConcurrentSkipListSet<>(BY_START);
+        // Escrituras con el de escritura y hasConflict con el de lectura: nunca se ve una reserva a medio mover
+        final ReadWriteLock lock = new ReentrantReadWriteLock();
+        // Duración máxima vista: acota hacia atrás la búsqueda de reservas que empiezan antes y aún no terminan
+        volatile long maxDurationMinutes = 0;
+    }
+
+    // Reservas indexadas por nombre de barbero (así se guarda en Booking)
+    private final Map<String, BarberTimeline> bookingsByBarber = new ConcurrentHashMap<>();
+    // Reserva -> barbero, para poder retirarla cuando cambia de barbero o se elimina
+    private final Map<String, Interval> byId = new ConcurrentHashMap<>();
+    private final Map<String, String> barberOfBooking = new ConcurrentHashMap<>();
+    // Ventanas de horario indexadas por barberId y día
+    private final Map<String, Map<DayOfWeek, List<Schedule>>> schedulesByBarberId = new ConcurrentHashMap<>();
+
+    private final BookingRepository bookingRepository;
+    private final ScheduleRepository scheduleRepository;
+
+    public BookingIndex(BookingRepository bookingRepository, ScheduleRepository scheduleRepository) {
+        this.bookingRepository = bookingRepository;
+        this.scheduleRepository = scheduleRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warm() {
+        long t0 = System.nanoTime();
+        bookingsByBarber.clear();
+        byId.clear();
+        barberOfBooking.clear();
+        List<Booking> active = bookingRepository.findByStatusNotAndEndTimeAfter(CANCELLED, LocalDateTime.now());
+        active.forEach(this::onSaved);
+        int barbers = reloadSchedules();
+        log.info("[BookingIndex] {} reservas activas y horarios de {} barberos cargados en {} ms",
+                active.size(), barbers, (System.nanoTime() - t0) / 1_000_000);
+    }
+
+    /** Recarga todos los horarios: recoge los cambios hechos en otros nodos. */
+    @Scheduled(fixedDelayString = "${booking.index.schedule-refresh-ms:60000}",
+            initialDelayString = "${booking.index.schedule-refresh-ms:60000}")
+    public void scheduledScheduleRefresh() {
+        try {
+            reloadSchedules();
+        } catch (RuntimeException e) {
+            log.warn("[BookingIndex] Recarga de horarios fallida, se mantienen los anteriores: {}", e.getMessage());
+        }
+    }
+
+    private int reloadSchedules() {
+        Map<String, List<Schedule>> grouped = new ConcurrentHashMap<>();
+        for (Schedule s : scheduleRepository.findAll()) {
+            if (s.getBarberId() == null) continue;
+            grouped.computeIfAbsent(s.getBarberId(), k -> new ArrayList<>()).add(s);
+        }
+        grouped.forEach((barberId, list) -> schedulesByBarberId.put(barberId, byDay(list)));
+        schedulesByBarberId.keySet().retainAll(grouped.keySet());
+        return grouped.size();
+    }
+
+    /** true si alguna reserva activa del barbero se solapa con [start, end), ignorando {@code excludeId}. */
+    public boolean hasConflict(String barber, LocalDateTime start, LocalDateTime end, String excludeId) {
+        if (barber == null) return false;
+        BarberTimeline timeline = bookingsByBarber.get(barber);
+        if (timeline == null) return false;
+        // Candidatas: empiezan antes de `end` y no antes de `start - duraciónMáxima`
+        Interval from = new Interval("", start.minusMinutes(timeline.maxDurationMinutes), null);
+        Interval to = new Interval("", end, null);
+        timeline.lock.readLock().lock();
+        try {
+            for (Interval i : timeline.intervals.subSet(from, true, to, false)) {
+                if (i.end.isAfter(start) && !i.id.equals(excludeId)) return true;
+            }
+            return false;
+        } finally {
+            timeline.lock.readLock().unlock();
+        }
+    }
+
+    /** true si [start, end) cabe completo en alguna ventana de horario del barbero para ese día. */
+    public boolean fitsSchedule(String barberId, DayOfWeek day, LocalTime start, LocalTime end) {
+        Map<DayOfWeek, List<Schedule>> days = schedulesByBarberId.get(barberId);
+        if (days == null) return false;
+        List<Schedule> slots = days.get(day);
+        if (slots == null) return false;
+        for (Schedule s : slots) {
+            if (!start.isBefore(s.getStartTime()) && !end.isAfter(s.getEndTime())) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Igual que {@link #fitsSchedule} pero leyendo antes los horarios del barbero en Mongo (y dejándolos en el
+     * índice): la comprobación definitiva al confirmar no depende de la última recarga de este nodo.
+     */
+    public boolean fitsFreshSchedule(String barberId, DayOfWeek day, LocalTime start, LocalTime end) {
+        refreshSchedules(barberId);
+        return fitsSchedule(barberId, day, start, end);
+    }
+
+    /** Ventanas del barbero para un día (lista inmutable, vacía si no tiene horario). */
+    public List<Schedule> schedulesFor(String barberId, DayOfWeek day) {
+        Map<DayOfWeek, List<Schedule>> days = schedulesByBarberId.get(barberId);
+        if (days == null) return List.of();
+        return days.getOrDefault(day, List.of());
+    }
+
+    /** Refleja en el índice el estado guardado de una reserva (alta, cambio, cancelación o completada). */
+    public void onSaved(Booking b) {
+        if (b == null || b.getId() == null) return;
+        Interval next = CANCELLED.equals(b.getStatus()) ? null : interval(b);
+        if (next == null) remove(b.getId());
+        else put(b.getBarber(), next);
+    }
+
+    public void onDeleted(String bookingId) {
+        if (bookingId != null) remove(bookingId);
+    }
+
+    /** Recarga las ventanas de un barbero tras crear, editar o borrar un horario. */
+    public void refreshSchedules(String barberId) {
+        if (barberId == null) return;
+        List<Schedule> list = scheduleRepository.findByBarberId(barberId);
+        if (list.isEmpty()) schedulesByBarberId.remove(barberId);
+        else schedulesByBarberId.put(barberId, byDay(list));
+    }
+
+    // null si la reserva no debe estar en el índice (incompleta o ya terminada)
+    private static Interval interval(Booking b) {
+        if (b.getBarber() == null || b.getStartTime() == null || b.getEndTime() == null) return null;
+        if (!b.getEndTime().isAfter(LocalDateTime.now())) return null; // las reservas pasadas no bloquean nada
+        return new Interval(b.getId(), b.getStartTime(), b.getEndTime());
+    }
+
+    // Alta o cambio. En el mismo barbero se sustituye el intervalo bajo su candado; si cambia de barbero, primero
+    // entra en el nuevo y luego sale del anterior, así ninguna comprobación deja de verla.
+    private void put(String barber, Interval i) {
+        BarberTimeline timeline = bookingsByBarber.computeIfAbsent(barber, k -> new BarberTimeline());
+        Interval old = byId.put(i.id, i);
+        String oldBarber = barberOfBooking.put(i.id, barber);
+        BarberTimeline previous = (old == null || oldBarber == null) ? null : bookingsByBarber.get(oldBarber);
+        timeline.lock.writeLock().lock();
+        try {
+            if (previous == timeline) timeline.intervals.remove(old);
+            long minutes = java.time.Duration.between(i.start, i.end).toMinutes();
+            if (minutes > timeline.maxDurationMinutes) timeline.maxDurationMinutes = minutes;
+            timeline.intervals.add(i);
+            pruneExpired(timeline);
+        } finally {
+            timeline.lock.writeLock().unlock();
+        }
+        if (previous != null && previous != timeline) removeFrom(previous, old);
+    }
+
+    private void remove(String bookingId) {
+        Interval i = byId.remove(bookingId);
+        String barber = barberOfBooking.remove(bookingId);
+        if (i == null || barber == null) return;
+        BarberTimeline timeline = bookingsByBarber.get(barber);
+        if (timeline != null) removeFrom(timeline, i);
+    }
+
+    private static void removeFrom(BarberTimeline timeline, Interval i) {
+        timeline.lock.writeLock().lock();
+        try {
+            timeline.intervals.remove(i);
+        } finally {
+            timeline.lock.writeLock().unlock();
+        }
+    }
+
+    // Con el candado de escritura del barbero ya tomado
+    private void pruneExpired(BarberTimeline timeline) {
+        LocalDateTime now = LocalDateTime.now();
+        Interval cutoff = new Interval("", now.minusMinutes(timeline.maxDurationMinutes), null);
+        for (Interval i : timeline.intervals.headSet(cutoff, false)) {
+            if (!i.end.isAfter(now)) {
+                timeline.intervals.remove(i);
+                if (byId.remove(i.id, i)) barberOfBooking.remove(i.id);
+            }
+        }
+    }
+
+    private static Map<DayOfWeek, List<Schedule>> byDay(List<Schedule> list) {
+        Map<DayOfWeek, List<Schedule>> days = new EnumMap<>(DayOfWeek.class);
+        for (Schedule s : list) {
+            if (s.getDayOfWeek() == null || s.getStartTime() == null || s.getEndTime() == null) continue;
+            days.computeIfAbsent(s.getDayOfWeek(), k -> new ArrayList<>()).add(s);
+        }
+        days.replaceAll((d, l) -> {
+            l.sort(Comparator.comparing(Schedule::getStartTime));
+            return Collections.unmodifiableList(l);
+        });
+        return Collections.unmodifiableMap(days);
+    }
+}
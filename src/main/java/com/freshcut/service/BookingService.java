@@ -6,34 +6,31 @@ import java.time.LocalTime;
 import java.util.List;
 import java.util.Optional;
 
+import org.bson.types.ObjectId;
 import org.springframework.stereotype.Service;
 
 import com.freshcut.dto.BookingRequest;
 import com.freshcut.db.model.Barber;
 import com.freshcut.db.model.Booking;
-import com.freshcut.db.model.Schedule;
 import com.freshcut.db.model.ServiceItem;
-import com.freshcut.db.repository.BarberRepository;
 import com.freshcut.db.repository.BookingRepository;
-import com.freshcut.db.repository.ScheduleRepository;
-import com.freshcut.db.repository.ServiceItemRepository;
 
 @Service
 public class BookingService {
     private final BookingRepository bookingRepository;
-    private final ScheduleRepository scheduleRepository;
-    private final BarberRepository barberRepository;
-    private final ServiceItemRepository serviceRepository;
+    private final CatalogService catalogService;
+    private final BookingIndex bookingIndex;
+    private final SlotReservationService slotReservations;
 
     public BookingService(
             BookingRepository bookingRepository,
-            ScheduleRepository scheduleRepository,
-            BarberRepository barberRepository,
-            ServiceItemRepository serviceRepository) {
+            CatalogService catalogService,
+            BookingIndex bookingIndex,
+            SlotReservationService slotReservations) {
         this.bookingRepository = bookingRepository;
-        this.scheduleRepository = scheduleRepository;
-        this.barberRepository = barberRepository;
-        this.serviceRepository = serviceRepository;
+        this.catalogService = catalogService;
+        this.bookingIndex = bookingIndex;
+        this.slotReservations = slotReservations;
     }
 
     public Booking create(BookingRequest req) {
@@ -41,7 +38,7 @@ public class BookingService {
             throw new IllegalArgumentException("La hora de inicio es obligatoria");
         }
         // Resolve service to compute duration and price
-        ServiceItem service = serviceRepository.findByNameAndActiveTrue(req.getService())
+        ServiceItem service = catalogService.findActiveService(req.getService())
                 .orElseThrow(() -> new IllegalArgumentException("Servicio inválido o inactivo"));
 
         LocalDateTime startDateTime = req.getStartTime();
@@ -49,31 +46,18 @@ public class BookingService {
         if (startDateTime.isBefore(LocalDateTime.now())) {
             throw new IllegalArgumentException("No se puede reservar en una fecha pasada");
         }
+        SlotReservationService.checkAligned(startDateTime);
 
-        // Overlap check (by barber name as stored in Booking)
-        List<Booking> conflicts = bookingRepository.findOverlapping(req.getBarber(), computedEnd, startDateTime);
-        if (!conflicts.isEmpty()) {
-            throw new IllegalStateException("Conflicto: el barbero ya tiene una reserva en ese horario");
-        }
-
-        // Schedule availability check (by barberId)
-        Barber barber = barberRepository.findByNameAndActiveTrue(req.getBarber())
+        // Schedule availability and overlap checks against the in-memory index (no Mongo round trips)
+        Barber barber = catalogService.findActiveBarber(req.getBarber())
                 .orElseThrow(() -> new IllegalArgumentException("Barbero inválido o inactivo"));
-        DayOfWeek day = startDateTime.getDayOfWeek();
-        LocalTime start = startDateTime.toLocalTime();
-        LocalTime end = computedEnd.toLocalTime();
-        List<Schedule> slots = scheduleRepository.findByBarberIdAndDayOfWeek(barber.getId(), day);
-        boolean fits = slots.stream().anyMatch(s -> !start.isBefore(s.getStartTime()) && !end.isAfter(s.getEndTime()));
-        if (!fits) {
-            throw new IllegalStateException("El horario solicitado no encaja en la disponibilidad del barbero");
-        }
-
-        Booking b = new Booking(req.getClientName(), req.getBarber(), req.getService(), startDateTime, computedEnd, service.getPriceCents());
-        return bookingRepository.save(b);
-    }
-
-    public List<Booking> list() {
-        return bookingRepository.findAll();
+        return slotReservations.withBarberLock(barber.getName(), () -> {
+            checkAvailability(barber, startDateTime, computedEnd, null);
+            Booking b = new Booking(req.getClientName(), req.getBarber(), req.getService(), startDateTime, computedEnd, service.getPriceCents());
+            // Id asignado antes de guardar para que los tramos reservados apunten a la reserva
+            b.setId(new ObjectId().toHexString());
+            return commit(b, barber, null);
+        });
     }
 
     // Añadido: listar reservas del cliente autenticado por email
@@ -87,9 +71,13 @@ public class BookingService {
 
     public Booking update(String id, BookingRequest req) {
         Booking existing = bookingRepository.findById(id).orElseThrow(() -> new IllegalArgumentException("Reserva no encontrada"));
+        // Una reserva cancelada o completada ya no ocupa tramos: editarla volvería a reclamarlos
+        if ("CANCELLED".equals(existing.getStatus()) || "COMPLETED".equals(existing.getStatus())) {
+            throw new IllegalStateException("Solo se pueden editar reservas confirmadas");
+        }
 
         // Resolve service for duration and validate
-        ServiceItem service = serviceRepository.findByNameAndActiveTrue(req.getService())
+        ServiceItem service = catalogService.findActiveService(req.getService())
                 .orElseThrow(() -> new IllegalArgumentException("Servicio inválido o inactivo"));
 
         LocalDateTime startDateTime = req.getStartTime();
@@ -97,46 +85,39 @@ public class BookingService {
         if (startDateTime.isBefore(LocalDateTime.now())) {
             throw new IllegalArgumentException("No se puede reservar en una fecha pasada");
         }
+        SlotReservationService.checkAligned(startDateTime);
 
-        // Overlap check excluding current booking
-        List<Booking> conflicts = bookingRepository.findOverlapping(req.getBarber(), computedEnd, startDateTime);
-        boolean hasConflict = conflicts.stream().anyMatch(b -> !b.getId().equals(existing.getId()));
-        if (hasConflict) {
-            throw new IllegalStateException("Conflicto: el barbero ya tiene una reserva en ese horario");
-        }
-
-        // Schedule availability check
-        Barber barber = barberRepository.findByNameAndActiveTrue(req.getBarber())
+        // Schedule availability and overlap checks excluding current booking
+        Barber barber = catalogService.findActiveBarber(req.getBarber())
                 .orElseThrow(() -> new IllegalArgumentException("Barbero inválido o inactivo"));
-        DayOfWeek day = startDateTime.getDayOfWeek();
-        LocalTime start = startDateTime.toLocalTime();
-        LocalTime end = computedEnd.toLocalTime();
-        List<Schedule> slots = scheduleRepository.findByBarberIdAndDayOfWeek(barber.getId(), day);
-        boolean fits = slots.stream().anyMatch(s -> !start.isBefore(s.getStartTime()) && !end.isAfter(s.getEndTime()));
-        if (!fits) {
-            throw new IllegalStateException("El horario solicitado no encaja en la disponibilidad del barbero");
-        }
-
-        existing.setClientName(req.getClientName());
-        existing.setBarber(req.getBarber());
-        existing.setService(req.getService());
-        existing.setStartTime(startDateTime);
-        existing.setEndTime(computedEnd);
-        existing.setPriceCents(service.getPriceCents());
-        return bookingRepository.save(existing);
+        return slotReservations.withBarberLock(barber.getName(), () -> {
+            checkAvailability(barber, startDateTime, computedEnd, existing.getId());
+            existing.setClientName(req.getClientName());
+            existing.setBarber(req.getBarber());
+            existing.setService(req.getService());
+            existing.setStartTime(startDateTime);
+            existing.setEndTime(computedEnd);
+            existing.setPriceCents(service.getPriceCents());
+            return commit(existing, barber, existing.getId());
+        });
     }
 
     public Booking cancel(String id) {
         Booking existing = bookingRepository.findById(id).orElseThrow(() -> new IllegalArgumentException("Reserva no encontrada"));
         existing.setStatus("CANCELLED");
-        return bookingRepository.save(existing);
+        Booking saved = bookingRepository.save(existing);
+        slotReservations.release(id);
+        bookingIndex.onSaved(saved);
+        return saved;
     }
 
     // NUEVO: marcar como completada
     public Booking complete(String id) {
         Booking existing = bookingRepository.findById(id).orElseThrow(() -> new IllegalArgumentException("Reserva no encontrada"));
         existing.setStatus("COMPLETED");
-        return bookingRepository.save(existing);
+        Booking saved = bookingRepository.save(existing);
+        bookingIndex.onSaved(saved);
+        return saved;
     }
 
     public void delete(String id) {
@@ -144,5 +125,46 @@ public class BookingService {
             throw new IllegalArgumentException("Reserva no encontrada");
         }
         bookingRepository.deleteById(id);
+        slotReservations.release(id);
+        bookingIndex.onDeleted(id);
+    }
+
+    private void checkAvailability(Barber barber, LocalDateTime startDateTime, LocalDateTime computedEnd, String excludeId) {
+        if (bookingIndex.hasConflict(barber.getName(), startDateTime, computedEnd, excludeId)) {
+            throw new IllegalStateException("Conflicto: el barbero ya tiene una reserva en ese horario");
+        }
+        DayOfWeek day = startDateTime.getDayOfWeek();
+        LocalTime start = startDateTime.toLocalTime();
+        LocalTime end = computedEnd.toLocalTime();
+        if (!bookingIndex.fitsSchedule(barber.getId(), day, start, end)) {
+            throw new IllegalStateException("El horario solicitado no encaja en la disponibilidad del barbero");
+        }
+    }
+
+    // Confirmación (bajo el candado del barbero): primero se reclaman los tramos en Mongo, que resuelve
+    // la carrera entre nodos; luego se revalidan en Mongo el horario (puede haberse editado en otro nodo)
+    // y las reservas previas sin tramos, y se guarda.
+    private Booking commit(Booking b, Barber barber, String excludeId) {
+        SlotReservationService.Claim claim = slotReservations.claim(b.getBarber(), b.getId(), b.getStartTime(), b.getEndTime());
+        Booking saved;
+        try {
+            if (!bookingIndex.fitsFreshSchedule(barber.getId(), b.getStartTime().getDayOfWeek(),
+                    b.getStartTime().toLocalTime(), b.getEndTime().toLocalTime())) {
+                throw new IllegalStateException("El horario solicitado no encaja en la disponibilidad del barbero");
+            }
+            List<Booking> conflicts = bookingRepository.findOverlapping(b.getBarber(), b.getEndTime(), b.getStartTime());
+            boolean hasConflict = conflicts.stream().anyMatch(c -> excludeId == null || !c.getId().equals(excludeId));
+            if (hasConflict) {
+                conflicts.forEach(bookingIndex::onSaved);
+                throw new IllegalStateException("Conflicto: el barbero ya tiene una reserva en ese horario");
+            }
+            saved = bookingRepository.save(b);
+        } catch (RuntimeException e) {
+            slotReservations.abort(claim);
+            throw e;
+        }
+        slotReservations.confirm(claim);
+        bookingIndex.onSaved(saved);
+        return saved;
     }
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.freshcut.service;
+
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+import com.freshcut.db.model.Barber;
+import com.freshcut.db.model.ServiceItem;
+
+/**
+ * Invalida el catálogo ante cualquier escritura de barberos o servicios hecha con Spring Data
+ * (controladores de admin, perfil del barbero, registro, seeder), sin que cada sitio tenga que acordarse.
+ */
+@Component
+public class CatalogInvalidationListener extends AbstractMongoEventListener<Object> {
+    private final CatalogService catalogService;
+
+    public CatalogInvalidationListener(CatalogService catalogService) {
+        this.catalogService = catalogService;
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Object> event) {
+        if (event.getSource() instanceof Barber || event.getSource() instanceof ServiceItem) {
+            catalogService.invalidate();
+        }
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<Object> event) {
+        Class<Object> type = event.getType();
+        if (type != null && (Barber.class.isAssignableFrom(type) || ServiceItem.class.isAssignableFrom(type))) {
+            catalogService.invalidate();
+        }
+    }
+}
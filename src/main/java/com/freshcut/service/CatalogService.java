@@ -1,46 +1,215 @@
 package com.freshcut.service;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import com.freshcut.db.model.Barber;
 import com.freshcut.db.model.ServiceItem;
 import com.freshcut.db.repository.BarberRepository;
 import com.freshcut.db.repository.ServiceItemRepository;
-import com.freshcut.util.LruCache;
 
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Catálogo (barberos y servicios activos) en memoria.
+ * <ul>
+ *   <li>Se recarga en segundo plano cada {@code catalog.refresh-ms}; pasado {@code catalog.ttl-ms} se sirve el dato
+ *       anterior mientras se recarga.</li>
+ *   <li>Cualquier escritura de Barber o ServiceItem lo invalida ({@link CatalogInvalidationListener}) y la siguiente lectura espera datos frescos.</li>
+ *   <li>Las cargas son single-flight por generación: las lecturas se unen a la carga en curso solo si empezó después
+ *       de la última invalidación; si no, se lanza otra para la generación nueva.</li>
+ * </ul>
+ */
 @Service
 public class CatalogService {
+    private static final Logger log = LoggerFactory.getLogger(CatalogService.class);
+
+    private static final class Snapshot {
+        final long generation;
+        final long loadedAtMs;
+        final List<Barber> barbers;
+        final List<ServiceItem> services;
+        final Map<String, Barber> barbersByName;
+        final Map<String, Barber> barbersById;
+        final Map<String, ServiceItem> servicesByName;
+
+        Snapshot(long generation, List<Barber> barbers, List<ServiceItem> services) {
+            this.generation = generation;
+            this.loadedAtMs = System.currentTimeMillis();
+            this.barbers = Collections.unmodifiableList(barbers);
+            this.services = Collections.unmodifiableList(services);
+            Map<String, Barber> byName = new HashMap<>();
+            Map<String, Barber> byId = new HashMap<>();
+            for (Barber b : barbers) {
+                if (b.getName() != null) byName.putIfAbsent(b.getName(), b);
+                byId.put(b.getId(), b);
+            }
+            Map<String, ServiceItem> svcByName = new HashMap<>();
+            for (ServiceItem s : services) {
+                if (s.getName() != null) svcByName.putIfAbsent(s.getName(), s);
+            }
+            this.barbersByName = byName;
+            this.barbersById = byId;
+            this.servicesByName = svcByName;
+        }
+    }
+
+    /** Carga en curso y la generación que verá. */
+    private record Load(long generation, CompletableFuture<Snapshot> future) {}
+
     private final BarberRepository barberRepository;
     private final ServiceItemRepository serviceRepository;
-    private final LruCache<String, List<Barber>> barberCache = new LruCache<>(2, 60_000);
-    private final LruCache<String, List<ServiceItem>> serviceCache = new LruCache<>(2, 60_000);
+    private final long ttlMs;
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "catalog-loader");
+        t.setDaemon(true);
+        return t;
+    });
+    // Se incrementa en cada escritura: un snapshot de una generación anterior ya no vale
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicReference<Load> inFlight = new AtomicReference<>();
+    private volatile Snapshot snapshot;
 
-    public CatalogService(BarberRepository barberRepository, ServiceItemRepository serviceRepository) {
+    public CatalogService(
+            BarberRepository barberRepository,
+            ServiceItemRepository serviceRepository,
+            @Value("${catalog.ttl-ms:120000}") long ttlMs) {
         this.barberRepository = barberRepository;
         this.serviceRepository = serviceRepository;
+        this.ttlMs = ttlMs;
     }
 
     public List<Barber> listActiveBarbers() {
-        List<Barber> cached = barberCache.get("barbers");
-        if (cached != null) return cached;
-        List<Barber> fresh = barberRepository.findAll().stream().filter(Barber::isActive).collect(Collectors.toList());
-        barberCache.put("barbers", fresh);
-        return fresh;
+        return current().barbers;
     }
 
     public List<ServiceItem> listActiveServices() {
-        List<ServiceItem> cached = serviceCache.get("services");
-        if (cached != null) return cached;
-        List<ServiceItem> fresh = serviceRepository.findAll().stream().filter(ServiceItem::isActive).collect(Collectors.toList());
-        serviceCache.put("services", fresh);
-        return fresh;
+        return current().services;
+    }
+
+    // Sustituye a serviceRepository.findByNameAndActiveTrue en el camino de reservas
+    public Optional<ServiceItem> findActiveService(String name) {
+        if (name == null) return Optional.empty();
+        ServiceItem s = current().servicesByName.get(name);
+        if (s != null) return Optional.of(s);
+        // Puede haberse creado en otro nodo: confirmar en Mongo y, si existe, refrescar
+        Optional<ServiceItem> fromDb = serviceRepository.findByNameAndActiveTrue(name);
+        fromDb.ifPresent(x -> invalidate());
+        return fromDb;
+    }
+
+    public Optional<Barber> findActiveBarber(String name) {
+        if (name == null) return Optional.empty();
+        Barber b = current().barbersByName.get(name);
+        if (b != null) return Optional.of(b);
+        Optional<Barber> fromDb = barberRepository.findByNameAndActiveTrue(name);
+        fromDb.ifPresent(x -> invalidate());
+        return fromDb;
+    }
+
+    public Optional<Barber> findActiveBarberById(String id) {
+        if (id == null) return Optional.empty();
+        Barber b = current().barbersById.get(id);
+        if (b != null) return Optional.of(b);
+        Optional<Barber> fromDb = barberRepository.findById(id).filter(Barber::isActive);
+        fromDb.ifPresent(x -> invalidate());
+        return fromDb;
     }
 
+    /** Marca el catálogo como obsoleto y lanza la recarga; las lecturas siguientes esperan al dato nuevo. */
     public void invalidate() {
-        barberCache.clear();
-        serviceCache.clear();
+        generation.incrementAndGet();
+        load();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warm() {
+        load();
+    }
+
+    @Scheduled(fixedDelayString = "${catalog.refresh-ms:60000}", initialDelayString = "${catalog.refresh-ms:60000}")
+    public void refresh() {
+        load();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        loader.shutdownNow();
+    }
+
+    private Snapshot current() {
+        for (int attempt = 0; attempt < 3; attempt++) {
+            Snapshot s = snapshot;
+            long gen = generation.get();
+            if (s != null && s.generation == gen) {
+                // Vencido pero válido: servirlo y recargar en segundo plano (sin estampida)
+                if (System.currentTimeMillis() - s.loadedAtMs > ttlMs) load();
+                return s;
+            }
+            try {
+                s = load().get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Carga del catálogo interrumpida", e);
+            } catch (ExecutionException e) {
+                if (snapshot != null) return snapshot;
+                throw new IllegalStateException("No se pudo cargar el catálogo", e.getCause());
+            }
+            if (s.generation == generation.get()) return s;
+            // Hubo una escritura mientras se cargaba: volver a intentarlo
+        }
+        return snapshot;
+    }
+
+    private CompletableFuture<Snapshot> load() {
+        while (true) {
+            Load running = inFlight.get();
+            long gen = generation.get();
+            // Una carga que empezó antes de la última invalidación podría no ver la escritura: no unirse a ella
+            if (running != null && running.generation() >= gen) return running.future();
+            Load mine = new Load(gen, new CompletableFuture<>());
+            if (!inFlight.compareAndSet(running, mine)) continue;
+            try {
+                loader.execute(() -> {
+                    Snapshot s;
+                    try {
+                        List<Barber> barbers = barberRepository.findAll().stream().filter(Barber::isActive).toList();
+                        List<ServiceItem> services = serviceRepository.findAll().stream().filter(ServiceItem::isActive).toList();
+                        s = new Snapshot(gen, barbers, services);
+                    } catch (RuntimeException e) {
+                        log.warn("[Catalog] Error recargando catálogo: {}", e.getMessage());
+                        inFlight.compareAndSet(mine, null);
+                        mine.future().completeExceptionally(e);
+                        return;
+                    }
+                    Snapshot previous = snapshot;
+                    if (previous == null || previous.generation <= gen) snapshot = s;
+                    // Soltar antes de completar: quien despierte no debe ver como "en curso" una carga ya terminada
+                    inFlight.compareAndSet(mine, null);
+                    mine.future().complete(s);
+                });
+            } catch (RuntimeException e) {
+                inFlight.compareAndSet(mine, null);
+                mine.future().completeExceptionally(e);
+            }
+            return mine.future();
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,82 @@
+package com.freshcut.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import com.freshcut.db.model.ChatLog;
+import com.freshcut.dto.ChatDtos.ChatSummary;
+import com.freshcut.dto.CursorPage;
+
+/**
+ * Historial de chats guardados de un usuario, por páginas y sin cargar los mensajes completos.
+ * <ul>
+ *   <li>Orden {@code createdAt} descendente (desempate por {@code _id}) sobre el índice {@code email_saved_created}:
+ *       cada página lee {@code limit + 1} documentos, no el historial entero.</li>
+ *   <li>El cursor es el id del último chat de la página; su {@code createdAt} se lee por {@code _id}.</li>
+ *   <li>Proyección: fecha, respuesta y solo el primer mensaje ({@code $slice}).</li>
+ * </ul>
+ */
+@Service
+public class ChatHistoryService {
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+
+    private final MongoTemplate mongoTemplate;
+
+    public ChatHistoryService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /** Chats guardados del usuario anteriores al de id {@code after} (o los más recientes si es null). */
+    public CursorPage<ChatSummary> page(String email, String after, Integer limit) {
+        int size = (limit == null || limit <= 0) ? DEFAULT_LIMIT : Math.min(limit, MAX_LIMIT);
+        Criteria criteria = Criteria.where("email").is(email).and("saved").is(true);
+        if (after != null && !after.isBlank()) {
+            ChatLog last = cursorOf(email, after);
+            criteria = criteria.orOperator(
+                    Criteria.where("createdAt").lt(last.getCreatedAt()),
+                    Criteria.where("createdAt").is(last.getCreatedAt()).and("_id").lt(new ObjectId(after)));
+        }
+        Query q = new Query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "createdAt", "_id"))
+                .limit(size + 1);
+        q.fields().include("createdAt", "reply").slice("messages", 1);
+
+        List<ChatLog> docs = mongoTemplate.find(q, ChatLog.class);
+        boolean more = docs.size() > size;
+        if (more) docs = docs.subList(0, size);
+        List<ChatSummary> items = new ArrayList<>(docs.size());
+        for (ChatLog d : docs) items.add(summary(d));
+        return new CursorPage<>(items, more ? docs.get(docs.size() - 1).getId() : null);
+    }
+
+    /** Chat guardado completo, solo si es del usuario. */
+    public Optional<ChatLog> find(String email, String id) {
+        if (!ObjectId.isValid(id)) return Optional.empty();
+        Query q = new Query(Criteria.where("_id").is(new ObjectId(id)).and("email").is(email).and("saved").is(true));
+        return Optional.ofNullable(mongoTemplate.findOne(q, ChatLog.class));
+    }
+
+    private ChatLog cursorOf(String email, String after) {
+        if (!ObjectId.isValid(after)) throw new IllegalArgumentException("Cursor inválido");
+        Query q = new Query(Criteria.where("_id").is(new ObjectId(after)).and("email").is(email));
+        q.fields().include("createdAt");
+        ChatLog last = mongoTemplate.findOne(q, ChatLog.class);
+        if (last == null || last.getCreatedAt() == null) throw new IllegalArgumentException("Cursor inválido");
+        return last;
+    }
+
+    private static ChatSummary summary(ChatLog log) {
+        List<ChatLog.Msg> msgs = log.getMessages();
+        String first = (msgs == null || msgs.isEmpty()) ? null : msgs.get(0).getContent();
+        return new ChatSummary(log.getId(), log.getCreatedAt(), first, log.getReply());
+    }
+}
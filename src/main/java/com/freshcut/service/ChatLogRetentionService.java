@@ -0,0 +1,302 @@
+package com.freshcut.service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.freshcut.db.model.ChatLog;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Retención de {@code chat_logs}: los chats guardados por el usuario no se tocan nunca.
+ * <ul>
+ *   <li>Los no guardados llevan {@code expireAt} (índice TTL): Mongo los borra pasados
+ *       {@code chatlog.retention.unsaved-ttl-days} aunque nadie los archive.</li>
+ *   <li>Cada noche se archivan los no guardados con más de {@code archive-after-days} días: un fichero NDJSON
+ *       comprimido con gzip por día (UTC) en {@code archive-dir}, y después se borran de la colección.</li>
+ *   <li>El fichero se escribe aparte y se renombra al terminar; solo entonces se borra, y solo lo que sigue sin
+ *       guardar (si el usuario lo guardó entretanto, se queda en Mongo y además en el archivo).</li>
+ *   <li>Con varias instancias, archiva solo la que consigue el lease en Mongo ({@value #LEASE_COLLECTION}, renovado
+ *       en cada día archivado y que caduca solo pasados {@code chatlog.retention.lease-ms} si la instancia muere).
+ *       Cualquier instancia puede ganarlo, así que {@code archive-dir} debe ser un volumen compartido.</li>
+ * </ul>
+ */
+@Service
+public class ChatLogRetentionService {
+    private static final Logger log = LoggerFactory.getLogger(ChatLogRetentionService.class);
+    static final String FILE_PREFIX = "chat_logs-";
+    static final String FILE_SUFFIX = ".ndjson.gz";
+    private static final int CURSOR_BATCH = 500;
+    private static final int DELETE_BATCH = 1000;
+    static final String LEASE_COLLECTION = "job_locks";
+    private static final String LEASE_ID = "chatlog-retention";
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectWriter writer;
+    private final JsonFactory ndjsonFactory;
+    private final Path archiveDir;
+    private final int archiveAfterDays;
+    private final int unsavedTtlDays;
+    private final long leaseMs;
+    // Identifica a esta instancia como dueña del lease
+    private final String owner = UUID.randomUUID().toString();
+    private final Counter archived;
+    private final Counter deleted;
+    private volatile ArchiveRun lastRun;
+
+    /** Resultado de una pasada de archivado. */
+    public record ArchiveRun(Instant at, List<String> files, long archived, long deleted) {}
+
+    public ChatLogRetentionService(
+            MongoTemplate mongoTemplate,
+            ObjectMapper objectMapper,
+            MeterRegistry registry,
+            @Value("${chatlog.retention.archive-dir:archive/chat_logs}") String archiveDir,
+            @Value("${chatlog.retention.archive-after-days:7}") int archiveAfterDays,
+            @Value("${chatlog.retention.unsaved-ttl-days:30}") int unsavedTtlDays,
+            @Value("${chatlog.retention.lease-ms:900000}") long leaseMs) {
+        this.mongoTemplate = mongoTemplate;
+        this.writer = objectMapper.writerFor(ChatLog.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        // Igual que ListingService: NDJSON sin separador entre valores raíz, el salto de línea se escribe a mano
+        this.ndjsonFactory = objectMapper.getFactory().copy().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .setRootValueSeparator((String) null);
+        this.archiveDir = Path.of(archiveDir);
+        this.archiveAfterDays = Math.max(1, archiveAfterDays);
+        this.unsavedTtlDays = unsavedTtlDays;
+        this.leaseMs = Math.max(1_000, leaseMs);
+        this.archived = Counter.builder("chatlog.retention.archived").register(registry);
+        this.deleted = Counter.builder("chatlog.retention.deleted").register(registry);
+    }
+
+    @Scheduled(cron = "${chatlog.retention.cron:0 30 3 * * *}", zone = "UTC")
+    public void scheduledArchive() {
+        try {
+            ArchiveRun run = archiveIfLeaseHolder();
+            if (run == null) {
+                log.debug("[ChatLog] Otra instancia tiene el lease de archivado");
+            } else if (run.archived() > 0) {
+                log.info("[ChatLog] Archivados {} logs en {} ficheros, {} borrados", run.archived(), run.files().size(), run.deleted());
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("[ChatLog] Archivado interrumpido: {}", e.getMessage());
+        }
+    }
+
+    /** Archiva, día a día y empezando por el más antiguo, los no guardados anteriores al corte. */
+    public ArchiveRun archiveOldLogs() throws IOException {
+        ArchiveRun run = archiveIfLeaseHolder();
+        if (run == null) throw new IllegalStateException("Otra instancia está archivando los chats, inténtalo más tarde");
+        return run;
+    }
+
+    // Null si otra instancia tiene el lease
+    private synchronized ArchiveRun archiveIfLeaseHolder() throws IOException {
+        if (!acquireLease()) return null;
+        try {
+            return archive();
+        } finally {
+            releaseLease();
+        }
+    }
+
+    private ArchiveRun archive() throws IOException {
+        Instant cutoff = LocalDate.now(ZoneOffset.UTC).minusDays(archiveAfterDays).atStartOfDay(ZoneOffset.UTC).toInstant();
+        Files.createDirectories(archiveDir);
+        List<String> files = new ArrayList<>();
+        long totalArchived = 0;
+        long totalDeleted = 0;
+        Instant oldest;
+        while ((oldest = oldestUnsavedBefore(cutoff)) != null) {
+            LocalDate day = LocalDate.ofInstant(oldest, ZoneOffset.UTC);
+            DayResult r = archiveDay(day);
+            totalArchived += r.archived;
+            totalDeleted += r.deleted;
+            if (r.file != null) files.add(r.file);
+            // Nada borrado: no avanzar en círculo sobre el mismo día
+            if (r.deleted == 0) break;
+            if (!renewLease()) {
+                log.warn("[ChatLog] Lease de archivado perdido, se deja el resto para la próxima pasada");
+                break;
+            }
+        }
+        ArchiveRun run = new ArchiveRun(Instant.now(), List.copyOf(files), totalArchived, totalDeleted);
+        lastRun = run;
+        return run;
+    }
+
+    /** Tamaño de la colección, recuentos, ficheros de archivo y última pasada (para el panel de administración). */
+    public Map<String, Object> stats() throws IOException {
+        Map<String, Object> out = new LinkedHashMap<>();
+        Document coll = collStats();
+        out.put("count", number(coll, "count"));
+        out.put("sizeBytes", number(coll, "size"));
+        out.put("storageBytes", number(coll, "storageSize"));
+        out.put("indexBytes", number(coll, "totalIndexSize"));
+        out.put("saved", mongoTemplate.count(new Query(Criteria.where("saved").is(true)), ChatLog.class));
+        out.put("unsaved", mongoTemplate.count(new Query(Criteria.where("saved").is(false)), ChatLog.class));
+        out.put("oldestUnsaved", oldestUnsavedBefore(null));
+        out.put("unsavedTtlDays", unsavedTtlDays);
+        out.put("archiveAfterDays", archiveAfterDays);
+
+        Map<String, Object> archive = new LinkedHashMap<>();
+        archive.put("dir", archiveDir.toAbsolutePath().toString());
+        long files = 0;
+        long bytes = 0;
+        if (Files.isDirectory(archiveDir)) {
+            try (Stream<Path> list = Files.list(archiveDir)) {
+                for (Path p : (Iterable<Path>) list::iterator) {
+                    String name = p.getFileName().toString();
+                    if (!name.startsWith(FILE_PREFIX) || !name.endsWith(FILE_SUFFIX)) continue;
+                    files++;
+                    bytes += Files.size(p);
+                }
+            }
+        }
+        archive.put("files", files);
+        archive.put("bytes", bytes);
+        archive.put("lastRun", lastRun);
+        out.put("archive", archive);
+        return out;
+    }
+
+    private record DayResult(String file, long archived, long deleted) {}
+
+    private DayResult archiveDay(LocalDate day) throws IOException {
+        Instant from = day.atStartOfDay(ZoneOffset.UTC).toInstant();
+        Instant to = day.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+        Query q = new Query(Criteria.where("saved").is(false).and("createdAt").gte(from).lt(to))
+                .with(Sort.by(Sort.Direction.ASC, "createdAt"))
+                .cursorBatchSize(CURSOR_BATCH);
+
+        Path target = targetFor(day);
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        List<ObjectId> ids = new ArrayList<>();
+        try (Stream<ChatLog> docs = mongoTemplate.stream(q, ChatLog.class);
+             OutputStream out = new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16), 1 << 16);
+             JsonGenerator gen = ndjsonFactory.createGenerator(out)) {
+            for (Iterator<ChatLog> it = docs.iterator(); it.hasNext(); ) {
+                ChatLog l = it.next();
+                writer.writeValue(gen, l);
+                gen.writeRaw('\n');
+                if (ObjectId.isValid(l.getId())) ids.add(new ObjectId(l.getId()));
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        if (ids.isEmpty()) {
+            Files.deleteIfExists(tmp);
+            return new DayResult(null, 0, 0);
+        }
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+        archived.increment(ids.size());
+
+        long removed = 0;
+        for (int i = 0; i < ids.size(); i += DELETE_BATCH) {
+            List<ObjectId> chunk = ids.subList(i, Math.min(ids.size(), i + DELETE_BATCH));
+            // saved=false otra vez: lo guardado durante el archivado se queda
+            removed += mongoTemplate.remove(new Query(Criteria.where("_id").in(chunk).and("saved").is(false)), ChatLog.class)
+                    .getDeletedCount();
+        }
+        deleted.increment(removed);
+        return new DayResult(target.getFileName().toString(), ids.size(), removed);
+    }
+
+    // chat_logs-2026-01-31.ndjson.gz; si ya existe (pasada anterior interrumpida o tardíos), chat_logs-2026-01-31-2.ndjson.gz...
+    private Path targetFor(LocalDate day) {
+        Path p = archiveDir.resolve(FILE_PREFIX + day + FILE_SUFFIX);
+        for (int n = 2; Files.exists(p); n++) {
+            p = archiveDir.resolve(FILE_PREFIX + day + "-" + n + FILE_SUFFIX);
+        }
+        return p;
+    }
+
+    // Se gana si no hay documento (upsert) o si el del dueño anterior caducó; si sigue vigente, el upsert choca con el _id
+    private boolean acquireLease() {
+        Instant now = Instant.now();
+        Query q = new Query(Criteria.where("_id").is(LEASE_ID).and("lockedUntil").lt(now));
+        Update u = new Update().set("owner", owner).set("lockedUntil", now.plusMillis(leaseMs));
+        try {
+            Document lease = mongoTemplate.findAndModify(q, u, FindAndModifyOptions.options().upsert(true).returnNew(true),
+                    Document.class, LEASE_COLLECTION);
+            return lease != null && owner.equals(lease.getString("owner"));
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    private boolean renewLease() {
+        Query q = new Query(Criteria.where("_id").is(LEASE_ID).and("owner").is(owner));
+        return mongoTemplate.updateFirst(q, new Update().set("lockedUntil", Instant.now().plusMillis(leaseMs)), LEASE_COLLECTION)
+                .getMatchedCount() > 0;
+    }
+
+    private void releaseLease() {
+        try {
+            Query q = new Query(Criteria.where("_id").is(LEASE_ID).and("owner").is(owner));
+            mongoTemplate.updateFirst(q, new Update().set("lockedUntil", Instant.EPOCH), LEASE_COLLECTION);
+        } catch (RuntimeException e) {
+            // Caducará solo pasado lease-ms
+            log.warn("[ChatLog] No se pudo liberar el lease de archivado: {}", e.getMessage());
+        }
+    }
+
+    private Instant oldestUnsavedBefore(Instant cutoff) {
+        Criteria c = Criteria.where("saved").is(false);
+        if (cutoff != null) c = c.and("createdAt").lt(cutoff);
+        Query q = new Query(c).with(Sort.by(Sort.Direction.ASC, "createdAt"));
+        q.fields().include("createdAt");
+        ChatLog first = mongoTemplate.findOne(q, ChatLog.class);
+        return first == null ? null : first.getCreatedAt();
+    }
+
+    private Document collStats() {
+        try {
+            return mongoTemplate.getDb().runCommand(new Document("collStats", mongoTemplate.getCollectionName(ChatLog.class)));
+        } catch (RuntimeException e) {
+            // Colección aún sin crear
+            return new Document();
+        }
+    }
+
+    private static long number(Document d, String key) {
+        Number n = d.get(key, Number.class);
+        return n == null ? 0L : n.longValue();
+    }
+}
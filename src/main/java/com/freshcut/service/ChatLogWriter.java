@@ -0,0 +1,214 @@
+package com.freshcut.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import com.freshcut.db.model.ChatLog;
+import com.freshcut.db.repository.ChatLogRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Escritura de {@link ChatLog} fuera del camino de la respuesta.
+ * <ul>
+ *   <li>{@link #submit} asigna el id y encola; un hilo en segundo plano inserta por lotes de hasta
+ *       {@code chatlog.writer.batch-size} (insert masivo no ordenado) cada {@code flush-ms} o antes si se llena el lote.</li>
+ *   <li>Contrapresión: con la cola llena se espera como mucho {@code offer-timeout-ms}; después el log se descarta
+ *       y se cuenta. Una respuesta al usuario nunca espera a Mongo más que eso.</li>
+ *   <li>Los logs siguen visibles en {@link #latest} hasta que su lote se ha escrito, así que "guardar el último"
+ *       funciona aunque aún no esté en la base de datos.</li>
+ *   <li>Al parar la aplicación se escribe lo pendiente.</li>
+ * </ul>
+ * Métricas: {@code chatlog.writer.queue}, {@code chatlog.writer.written}, {@code chatlog.writer.dropped},
+ * {@code chatlog.writer.failed} y {@code chatlog.writer.flush} (latencia de cada lote).
+ */
+@Component
+public class ChatLogWriter {
+    private static final Logger log = LoggerFactory.getLogger(ChatLogWriter.class);
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final MongoTemplate mongo;
+    private final ChatLogRepository repository;
+    private final BlockingQueue<ChatLog> queue;
+    // Encolados o en un lote en curso, por id: lectura "a través" del búfer
+    private final Map<String, ChatLog> pending = new ConcurrentHashMap<>();
+    private final int batchSize;
+    private final long flushMs;
+    private final long offerTimeoutMs;
+    private final Duration unsavedTtl;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "chatlog-writer");
+        t.setDaemon(true);
+        return t;
+    });
+    private volatile boolean running = true;
+
+    private final Counter written;
+    private final Counter dropped;
+    private final Counter failed;
+    private final Timer flushTimer;
+
+    public ChatLogWriter(
+            MongoTemplate mongo,
+            ChatLogRepository repository,
+            MeterRegistry registry,
+            @Value("${chatlog.writer.queue-capacity:10000}") int queueCapacity,
+            @Value("${chatlog.writer.batch-size:200}") int batchSize,
+            @Value("${chatlog.writer.flush-ms:500}") long flushMs,
+            @Value("${chatlog.writer.offer-timeout-ms:20}") long offerTimeoutMs,
+            @Value("${chatlog.retention.unsaved-ttl-days:30}") int unsavedTtlDays) {
+        this.mongo = mongo;
+        this.repository = repository;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.batchSize = Math.max(1, batchSize);
+        this.flushMs = Math.max(1, flushMs);
+        this.offerTimeoutMs = Math.max(0, offerTimeoutMs);
+        this.unsavedTtl = Duration.ofDays(Math.max(1, unsavedTtlDays));
+        this.written = Counter.builder("chatlog.writer.written").register(registry);
+        this.dropped = Counter.builder("chatlog.writer.dropped").register(registry);
+        this.failed = Counter.builder("chatlog.writer.failed").register(registry);
+        this.flushTimer = Timer.builder("chatlog.writer.flush").register(registry);
+        Gauge.builder("chatlog.writer.queue", queue, BlockingQueue::size).register(registry);
+        worker.execute(this::run);
+    }
+
+    /** Encola el log (el id y la caducidad quedan asignados al volver); false si se descartó por cola llena o parada. */
+    public boolean submit(ChatLog chatLog) {
+        if (chatLog.getId() == null) chatLog.setId(new ObjectId().toHexString());
+        if (!chatLog.isSaved() && chatLog.getExpireAt() == null) {
+            chatLog.setExpireAt(chatLog.getCreatedAt().plus(unsavedTtl));
+        }
+        if (!running) {
+            dropped.increment();
+            return false;
+        }
+        pending.put(chatLog.getId(), chatLog);
+        boolean queued;
+        try {
+            queued = queue.offer(chatLog, offerTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queued = false;
+        }
+        if (!queued) {
+            pending.remove(chatLog.getId());
+            dropped.increment();
+        }
+        return queued;
+    }
+
+    /** Último log del usuario, esté ya en Mongo o aún pendiente de escribir. */
+    public Optional<ChatLog> latest(String email) {
+        Optional<ChatLog> buffered = pending.values().stream()
+                .filter(l -> email.equals(l.getEmail()))
+                .max(Comparator.comparing(ChatLog::getCreatedAt));
+        Optional<ChatLog> stored = repository.findTopByEmailOrderByCreatedAtDesc(email);
+        if (buffered.isEmpty()) return stored;
+        if (stored.isEmpty()) return buffered;
+        return buffered.get().getCreatedAt().isAfter(stored.get().getCreatedAt()) ? buffered : stored;
+    }
+
+    /**
+     * Marca el log como guardado (sin caducidad) y lo escribe ya (upsert por id). Si seguía en la cola se retira; si su lote está en
+     * curso, la inserción del lote choca con el id ya escrito y se ignora (el documento guardado es el bueno).
+     */
+    public ChatLog markSaved(ChatLog chatLog) {
+        queue.remove(chatLog);
+        chatLog.setSaved(true);
+        chatLog.setExpireAt(null);
+        ChatLog stored = repository.save(chatLog);
+        pending.remove(chatLog.getId());
+        return stored;
+    }
+
+    /** Espera a que se escriba lo pendiente y para el hilo de escritura. */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        worker.shutdown();
+        try {
+            if (!worker.awaitTermination(flushMs + 10_000, TimeUnit.MILLISECONDS)) {
+                log.warn("[ChatLog] {} logs sin escribir al parar", queue.size());
+                worker.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            worker.shutdownNow();
+        }
+    }
+
+    private void run() {
+        List<ChatLog> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                ChatLog first = queue.poll(flushMs, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                // Se completa el lote durante flush-ms como mucho (al parar, solo lo que ya haya)
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long left = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || left <= 0 || !running) break;
+                    ChatLog next = queue.poll(left, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+                write(batch);
+            } catch (InterruptedException e) {
+                // Parada forzada: lo que quede en la cola se pierde (y ya se avisó)
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.warn("[ChatLog] Error inesperado en el escritor: {}", e.getMessage());
+            } finally {
+                for (ChatLog l : batch) pending.remove(l.getId());
+                batch.clear();
+            }
+        }
+    }
+
+    void write(List<ChatLog> batch) {
+        long start = System.nanoTime();
+        try {
+            mongo.bulkOps(BulkMode.UNORDERED, ChatLog.class).insert(batch).execute();
+            written.increment(batch.size());
+        } catch (BulkOperationException e) {
+            // No ordenado: el resto del lote sí se insertó. Un id duplicado es un log que ya escribió markSaved
+            long errors = e.getErrors().stream().filter(err -> err.getCode() != DUPLICATE_KEY).count();
+            written.increment(batch.size() - e.getErrors().size());
+            if (errors > 0) {
+                failed.increment(errors);
+                log.warn("[ChatLog] {} de {} logs sin escribir: {}", errors, batch.size(), e.getMessage());
+            }
+        } catch (RuntimeException e) {
+            failed.increment(batch.size());
+            log.warn("[ChatLog] Lote de {} logs sin escribir: {}", batch.size(), e.getMessage());
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
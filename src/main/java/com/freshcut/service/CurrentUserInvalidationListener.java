@@ -0,0 +1,40 @@
+package com.freshcut.service;
+
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+import com.freshcut.db.model.Barber;
+import com.freshcut.db.model.User;
+
+/**
+ * Vacía la caché de {@link CurrentUserService} ante cualquier escritura de usuarios o barberos hecha con Spring Data
+ * (perfil, registro, contraseña, admin). Un usuario guardado se invalida por su email; un barbero o un borrado
+ * no dicen de qué email se trata, así que vacían la caché entera.
+ */
+@Component
+public class CurrentUserInvalidationListener extends AbstractMongoEventListener<Object> {
+    private final CurrentUserService currentUserService;
+
+    public CurrentUserInvalidationListener(CurrentUserService currentUserService) {
+        this.currentUserService = currentUserService;
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Object> event) {
+        if (event.getSource() instanceof User u) {
+            currentUserService.invalidate(u.getEmail());
+        } else if (event.getSource() instanceof Barber) {
+            currentUserService.invalidateAll();
+        }
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<Object> event) {
+        Class<Object> type = event.getType();
+        if (type != null && (User.class.isAssignableFrom(type) || Barber.class.isAssignableFrom(type))) {
+            currentUserService.invalidateAll();
+        }
+    }
+}
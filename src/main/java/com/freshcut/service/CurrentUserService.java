@@ -0,0 +1,72 @@
+package com.freshcut.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.freshcut.db.model.Barber;
+import com.freshcut.db.model.User;
+import com.freshcut.db.repository.BarberRepository;
+import com.freshcut.db.repository.UserRepository;
+import com.freshcut.security.CurrentUser;
+import com.freshcut.util.ShardedLruCache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Carga {@link CurrentUser} (usuario + barbero) por email, con una caché corta en este nodo.
+ * {@link CurrentUserInvalidationListener} la vacía ante cualquier escritura de usuarios o barberos; en otros nodos,
+ * un cambio se ve como mucho {@code auth.current-user.cache-ttl-ms} después. Con TTL 0 no se cachea.
+ * Métricas: {@code auth.current-user.cache{result=hit|miss}}.
+ */
+@Service
+public class CurrentUserService {
+    private final UserRepository userRepository;
+    private final BarberRepository barberRepository;
+    private final ShardedLruCache<String, CurrentUser> cache;
+
+    public CurrentUserService(
+            UserRepository userRepository,
+            BarberRepository barberRepository,
+            MeterRegistry registry,
+            @Value("${auth.current-user.cache-max-entries:5000}") int maxEntries,
+            @Value("${auth.current-user.cache-ttl-ms:30000}") long ttlMs) {
+        this.userRepository = userRepository;
+        this.barberRepository = barberRepository;
+        this.cache = ttlMs > 0 ? new ShardedLruCache<>(maxEntries, ttlMs) : null;
+        if (cache != null) {
+            FunctionCounter.builder("auth.current-user.cache", cache, ShardedLruCache::hitCount)
+                    .tag("result", "hit").register(registry);
+            FunctionCounter.builder("auth.current-user.cache", cache, ShardedLruCache::missCount)
+                    .tag("result", "miss").register(registry);
+        }
+    }
+
+    /** Usuario con ese email; {@link IllegalStateException} si ya no existe. */
+    public CurrentUser load(String email) {
+        if (cache != null) {
+            CurrentUser cached = cache.get(email);
+            if (cached != null) return cached;
+        }
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new IllegalStateException("Usuario no encontrado"));
+        Barber barber = null;
+        if (user.getBarberId() != null && !user.getBarberId().isBlank()) {
+            barber = barberRepository.findById(user.getBarberId()).orElse(null);
+        }
+        CurrentUser current = new CurrentUser(user, barber);
+        if (cache != null) cache.put(email, current);
+        return current;
+    }
+
+    public void invalidate(String email) {
+        if (cache == null) return;
+        // Las entradas se buscan por email: sin él no se sabe cuál es
+        if (email == null) invalidateAll();
+        else cache.remove(email);
+    }
+
+    public void invalidateAll() {
+        if (cache != null) cache.clear();
+    }
+}
@@ -0,0 +1,217 @@
+package com.freshcut.service;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Disyuntor y timeout adaptativo de las llamadas a Groq.
+ * <ul>
+ *   <li>CLOSED: se anotan las últimas {@code groq.breaker.window} llamadas; con al menos {@code min-calls} y una tasa
+ *       de fallos ≥ {@code failure-rate} se abre. Cuentan como fallo los errores de red, timeouts, 429 y 5xx.</li>
+ *   <li>OPEN: durante {@code open-ms} se rechaza al momento, sin encolar ni abrir conexión.</li>
+ *   <li>HALF_OPEN: pasa una única llamada de prueba; si va bien se cierra, si falla se vuelve a abrir.</li>
+ * </ul>
+ * El timeout de cada petición es dos veces el p99 de las últimas latencias, entre {@code groq.timeout.min-ms} y
+ * {@code groq.timeout-ms}. Un timeout cuenta como muestra (la respuesta habría tardado al menos eso) y la llamada de
+ * prueba usa el máximo: si Groq se vuelve más lento, el timeout sube con él en vez de cortar todas las llamadas. Métricas: {@code groq.circuit.state} (0 cerrado, 1 semiabierto, 2 abierto),
+ * {@code groq.calls} (etiqueta {@code outcome}), {@code groq.latency} y {@code groq.timeout}.
+ */
+@Component
+public class GroqCircuitBreaker {
+    private static final Logger log = LoggerFactory.getLogger(GroqCircuitBreaker.class);
+
+    public enum State { CLOSED, HALF_OPEN, OPEN }
+
+    /** Llamada rechazada sin intentarla porque el circuito está abierto. */
+    public static class OpenException extends RuntimeException {
+        OpenException() { super("Circuito de Groq abierto", null, false, false); }
+    }
+
+    private static final int LATENCY_SAMPLES = 256;
+    private static final int MIN_LATENCY_SAMPLES = 20;
+    private static final int RECOMPUTE_EVERY = 16;
+
+    private final int minCalls;
+    private final double failureRate;
+    private final long openNanos;
+    private final long minTimeoutNanos;
+    private final long maxTimeoutNanos;
+    private final LongSupplier clock;
+
+    // Ventana de resultados (true = fallo) como anillo
+    private final boolean[] window;
+    private int windowPos;
+    private int windowCount;
+    private int windowFailures;
+    private State state = State.CLOSED;
+    private long openedAt;
+    private boolean probeInFlight;
+
+    private final long[] latencies = new long[LATENCY_SAMPLES];
+    private int latencyPos;
+    private int latencyCount;
+    private int sinceRecompute;
+    private volatile long timeoutNanos;
+
+    private final Counter successes;
+    private final Counter failures;
+    private final Counter rejected;
+    private final Timer latency;
+
+    @Autowired
+    public GroqCircuitBreaker(
+            MeterRegistry registry,
+            @Value("${groq.breaker.window:20}") int window,
+            @Value("${groq.breaker.min-calls:10}") int minCalls,
+            @Value("${groq.breaker.failure-rate:0.5}") double failureRate,
+            @Value("${groq.breaker.open-ms:30000}") long openMs,
+            @Value("${groq.timeout.min-ms:2000}") long minTimeoutMs,
+            @Value("${groq.timeout-ms:10000}") long maxTimeoutMs) {
+        this(registry, window, minCalls, failureRate, openMs, minTimeoutMs, maxTimeoutMs, System::nanoTime);
+    }
+
+    GroqCircuitBreaker(MeterRegistry registry, int window, int minCalls, double failureRate, long openMs,
+                       long minTimeoutMs, long maxTimeoutMs, LongSupplier clock) {
+        this.window = new boolean[Math.max(1, window)];
+        this.minCalls = Math.max(1, Math.min(minCalls, this.window.length));
+        this.failureRate = failureRate;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMs);
+        this.maxTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(maxTimeoutMs);
+        this.minTimeoutNanos = Math.min(TimeUnit.MILLISECONDS.toNanos(minTimeoutMs), maxTimeoutNanos);
+        this.timeoutNanos = maxTimeoutNanos;
+        this.clock = clock;
+        this.successes = Counter.builder("groq.calls").tag("outcome", "success").register(registry);
+        this.failures = Counter.builder("groq.calls").tag("outcome", "failure").register(registry);
+        this.rejected = Counter.builder("groq.calls").tag("outcome", "rejected").register(registry);
+        this.latency = Timer.builder("groq.latency").publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram().register(registry);
+        Gauge.builder("groq.circuit.state", this, b -> b.state().ordinal()).register(registry);
+        Gauge.builder("groq.timeout", this, b -> b.timeoutNanos / 1e6).baseUnit("milliseconds").register(registry);
+    }
+
+    /** True si la llamada puede hacerse; quien obtiene true debe cerrar con onSuccess, onFailure u onIgnored. */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (clock.getAsLong() - openedAt < openNanos) {
+                rejected.increment();
+                return false;
+            }
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probeInFlight) {
+                rejected.increment();
+                return false;
+            }
+            probeInFlight = true;
+        }
+        return true;
+    }
+
+    /** Respuesta correcta; {@code latencyNanos} < 0 si no es representativa (streaming). */
+    public synchronized void onSuccess(long latencyNanos) {
+        successes.increment();
+        if (latencyNanos >= 0) recordLatency(latencyNanos);
+        if (state == State.HALF_OPEN) {
+            probeInFlight = false;
+            resetWindow();
+            transition(State.CLOSED);
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    /** La llamada agotó su timeout tras {@code elapsedNanos}: fallo y, además, cota inferior de la latencia real. */
+    public synchronized void onTimeout(long elapsedNanos) {
+        recordSample(Math.max(elapsedNanos, timeoutNanos));
+        onFailure();
+    }
+
+    public synchronized void onFailure() {
+        failures.increment();
+        if (state == State.HALF_OPEN) {
+            probeInFlight = false;
+            open();
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (windowCount >= minCalls && windowFailures >= failureRate * windowCount) open();
+        }
+    }
+
+    /** Llamada que no llegó a decir nada de Groq (cancelada por el cliente, rechazada por la cola). */
+    public synchronized void onIgnored() {
+        if (state == State.HALF_OPEN) probeInFlight = false;
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    /** La llamada de prueba (semiabierto) usa el máximo: no se puede saber si el p99 aprendido sigue valiendo. */
+    public synchronized Duration timeout() {
+        return Duration.ofNanos(state == State.HALF_OPEN ? maxTimeoutNanos : timeoutNanos);
+    }
+
+    private void open() {
+        openedAt = clock.getAsLong();
+        resetWindow();
+        transition(State.OPEN);
+    }
+
+    private void transition(State next) {
+        if (state != next) log.warn("[AI] Circuito de Groq: {} -> {}", state, next);
+        state = next;
+    }
+
+    private void record(boolean failure) {
+        if (windowCount == window.length) {
+            if (window[windowPos]) windowFailures--;
+        } else {
+            windowCount++;
+        }
+        window[windowPos] = failure;
+        if (failure) windowFailures++;
+        windowPos = (windowPos + 1) % window.length;
+    }
+
+    private void resetWindow() {
+        windowPos = 0;
+        windowCount = 0;
+        windowFailures = 0;
+    }
+
+    private void recordLatency(long nanos) {
+        latency.record(nanos, TimeUnit.NANOSECONDS);
+        recordSample(nanos);
+    }
+
+    private void recordSample(long nanos) {
+        // Una muestra que llega al timeout vigente (prueba lenta o timeout) se tiene en cuenta ya, sin esperar turno
+        boolean slow = nanos >= timeoutNanos;
+        latencies[latencyPos] = nanos;
+        latencyPos = (latencyPos + 1) % LATENCY_SAMPLES;
+        if (latencyCount < LATENCY_SAMPLES) latencyCount++;
+        sinceRecompute++;
+        // Ordenar 256 valores cada 16 respuestas: despreciable frente a una llamada al modelo
+        if (latencyCount == MIN_LATENCY_SAMPLES || (latencyCount > MIN_LATENCY_SAMPLES && (slow || sinceRecompute >= RECOMPUTE_EVERY))) {
+            sinceRecompute = 0;
+            long[] sorted = Arrays.copyOf(latencies, latencyCount);
+            Arrays.sort(sorted);
+            long p99 = sorted[Math.min(sorted.length - 1, (int) Math.ceil(sorted.length * 0.99) - 1)];
+            timeoutNanos = Math.max(minTimeoutNanos, Math.min(maxTimeoutNanos, 2 * p99));
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.freshcut.service;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Flow;
+import java.util.function.Predicate;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Cliente asíncrono de la API de Groq (compatible con OpenAI) sobre {@link HttpClient}.
+ * <ul>
+ *   <li>Un único cliente para toda la aplicación: reutiliza conexiones (keep-alive) y negocia HTTP/2.</li>
+ *   <li>{@code sendAsync}: ningún hilo queda bloqueado esperando al modelo.</li>
+ *   <li>Cada llamada pasa por {@link AiRequestScheduler}: concurrencia máxima y cola acotada, sin ocupar hilos.</li>
+ *   <li>{@link GroqCircuitBreaker}: con el circuito abierto se falla al instante; el timeout se adapta a la latencia.</li>
+ *   <li>{@link #stream} pide {@code stream: true} y entrega cada fragmento de texto según llega (SSE de OpenAI).</li>
+ * </ul>
+ */
+@Component
+public class GroqClient {
+    private static final TypeReference<Map<String, Object>> JSON_MAP = new TypeReference<>() {};
+
+    private final HttpClient http;
+    private final ObjectMapper objectMapper;
+    private final String apiKey;
+    private final URI completionsUri;
+    private final AiRequestScheduler scheduler;
+    private final GroqCircuitBreaker breaker;
+
+    public GroqClient(
+            ObjectMapper objectMapper,
+            @Value("${groq.api-key:}") String apiKeyProp,
+            @Value("${groq.base-url:https://api.groq.com/openai/v1}") String baseUrl,
+            AiRequestScheduler scheduler,
+            GroqCircuitBreaker breaker) {
+        this.objectMapper = objectMapper;
+        String env = System.getenv("GROQ_API_KEY");
+        this.apiKey = (env != null && !env.isBlank()) ? env : (apiKeyProp == null ? "" : apiKeyProp);
+        this.completionsUri = URI.create(baseUrl.replaceAll("/+$", "") + "/chat/completions");
+        this.scheduler = scheduler;
+        this.breaker = breaker;
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    public boolean isConfigured() {
+        return !apiKey.isBlank();
+    }
+
+    /** Envía la petición de chat/completions y devuelve el contenido del primer mensaje ("" si no viene). */
+    public CompletableFuture<String> complete(Map<String, Object> body) {
+        if (!breaker.tryAcquire()) return CompletableFuture.failedFuture(new GroqCircuitBreaker.OpenException());
+        return scheduler.schedule(() -> send(body)).whenComplete((v, e) -> {
+            // Rechazada por la cola antes de llegar a send(): no dice nada de Groq
+            if (e instanceof TooManyRequestsException) breaker.onIgnored();
+        });
+    }
+
+    /**
+     * Igual que {@link #complete} pero con {@code stream: true}: llama a {@code onDelta} con cada fragmento de texto
+     * del modelo, en orden y desde un único hilo a la vez; si devuelve false se deja de leer. El futuro termina al
+     * acabar el stream; si se cancela, se aborta la petición y se libera la conexión.
+     */
+    public CompletableFuture<Void> stream(Map<String, Object> body, Predicate<String> onDelta) {
+        Map<String, Object> streaming = new HashMap<>(body);
+        streaming.put("stream", true);
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        if (!breaker.tryAcquire()) {
+            done.completeExceptionally(new GroqCircuitBreaker.OpenException());
+            return done;
+        }
+        scheduler.schedule(() -> {
+            // Cancelado mientras esperaba turno: no llegar a llamar
+            if (done.isDone()) {
+                breaker.onIgnored();
+                return CompletableFuture.<Void>completedFuture(null);
+            }
+            HttpRequest request;
+            try {
+                request = request(streaming);
+            } catch (IOException e) {
+                breaker.onIgnored();
+                return CompletableFuture.failedFuture(e);
+            }
+            long startedAt = System.nanoTime();
+            DeltaSubscriber subscriber = new DeltaSubscriber(onDelta, done);
+            CompletableFuture<HttpResponse<Void>> exchange = http.sendAsync(request, info -> info.statusCode() >= 400
+                    ? HttpResponse.BodySubscribers.replacing(null)
+                    : HttpResponse.BodySubscribers.fromLineSubscriber(subscriber));
+            // Cancelar desde fuera (cliente desconectado) o cortar el oyente aborta la petición HTTP en curso
+            done.whenComplete((v, e) -> exchange.cancel(true));
+            exchange.whenComplete((res, e) -> {
+                subscriber.exchangeDone();
+                // Cortado porque el oyente ya tenía bastante: el stream funcionó
+                settle(e instanceof CancellationException && !done.isCompletedExceptionally() ? null
+                        : e != null ? e : statusError(res.statusCode()), startedAt, false);
+            });
+            CompletableFuture<Void> call = exchange.thenAccept(res -> {
+                if (res.statusCode() >= 400) throw new CompletionException(new StatusException(res.statusCode()));
+            });
+            // El permiso del planificador se suelta cuando la conexión ya no lee, no en cuanto se cancela el futuro
+            return subscriber.closed.thenCompose(x -> call);
+        }).whenComplete((v, e) -> {
+            if (e instanceof TooManyRequestsException) breaker.onIgnored();
+            if (e != null) done.completeExceptionally(e);
+            else done.complete(null);
+        });
+        return done;
+    }
+
+    private CompletableFuture<String> send(Map<String, Object> body) {
+        HttpRequest request;
+        try {
+            request = request(body);
+        } catch (IOException e) {
+            breaker.onIgnored();
+            return CompletableFuture.failedFuture(e);
+        }
+        long startedAt = System.nanoTime();
+        return http.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .whenComplete((res, e) -> settle(e != null ? e : statusError(res.statusCode()), startedAt, true))
+                .thenApply(this::firstMessageContent);
+    }
+
+    // Para el disyuntor: red, timeout, 429 y 5xx son fallos de Groq; otro 4xx es un error de la petición.
+    // La latencia de un stream (timed = false) no es representativa: depende de cuánto escriba el modelo
+    private void settle(Throwable error, long startedAt, boolean timed) {
+        long elapsed = System.nanoTime() - startedAt;
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause == null) {
+            breaker.onSuccess(timed ? elapsed : -1);
+        } else if (cause instanceof HttpTimeoutException && !(cause instanceof HttpConnectTimeoutException)) {
+            // Sin respuesta dentro del timeout: también dice cuánto tarda Groq como mínimo
+            breaker.onTimeout(elapsed);
+        } else if (cause instanceof CancellationException) {
+            breaker.onIgnored();
+        } else if (cause instanceof StatusException se && se.status != 429 && se.status < 500) {
+            breaker.onSuccess(-1);
+        } else {
+            breaker.onFailure();
+        }
+    }
+
+    private static StatusException statusError(int status) {
+        return status >= 400 ? new StatusException(status) : null;
+    }
+
+    private HttpRequest request(Map<String, Object> body) throws IOException {
+        return HttpRequest.newBuilder(completionsUri)
+                .timeout(breaker.timeout())
+                .header("Content-Type", "application/json")
+                .header("Authorization", "Bearer " + apiKey)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build();
+    }
+
+    private String firstMessageContent(HttpResponse<byte[]> res) {
+        if (res.statusCode() >= 400) {
+            throw new CompletionException(new StatusException(res.statusCode()));
+        }
+        try {
+            Map<String, Object> parsed = objectMapper.readValue(res.body(), JSON_MAP);
+            Object choices = parsed.get("choices");
+            if (!(choices instanceof List<?> list) || list.isEmpty()) return "";
+            if (!(list.get(0) instanceof Map<?, ?> choice)) return "";
+            if (!(choice.get("message") instanceof Map<?, ?> message)) return "";
+            Object content = message.get("content");
+            return content == null ? "" : content.toString();
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    /** Respuesta HTTP de error de Groq. */
+    static final class StatusException extends IOException {
+        final int status;
+
+        StatusException(int status) {
+            super("Groq respondió " + status);
+            this.status = status;
+        }
+    }
+
+    /** Lee líneas "data: {...}" del stream y entrega choices[0].delta.content; "data: [DONE]" marca el final. */
+    private final class DeltaSubscriber implements Flow.Subscriber<String> {
+        private final Predicate<String> onDelta;
+        private final CompletableFuture<Void> done;
+        // Se completa cuando la conexión ya no lee: señal final, o cancelación propia (tras ella no llega ninguna)
+        final CompletableFuture<Void> closed = new CompletableFuture<>();
+        private volatile Flow.Subscription subscription;
+
+        DeltaSubscriber(Predicate<String> onDelta, CompletableFuture<Void> done) {
+            this.onDelta = onDelta;
+            this.done = done;
+        }
+
+        /** Fin del futuro de sendAsync; si nunca se empezó a leer el cuerpo no habrá más señales. */
+        void exchangeDone() {
+            if (subscription == null) closed.complete(null);
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(String line) {
+            if (done.isDone()) {
+                stop();
+                return;
+            }
+            if (!line.startsWith("data:")) return;
+            String data = line.substring(5).trim();
+            if (data.isEmpty() || "[DONE]".equals(data)) return;
+            try {
+                Map<String, Object> chunk = objectMapper.readValue(data, JSON_MAP);
+                if (!(chunk.get("choices") instanceof List<?> list) || list.isEmpty()) return;
+                if (!(list.get(0) instanceof Map<?, ?> choice)) return;
+                if (!(choice.get("delta") instanceof Map<?, ?> delta)) return;
+                Object content = delta.get("content");
+                if (content != null && !content.toString().isEmpty() && !onDelta.test(content.toString())) {
+                    stop();
+                    done.complete(null);
+                }
+            } catch (IOException e) {
+                stop();
+                done.completeExceptionally(e);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            done.completeExceptionally(throwable);
+            closed.complete(null);
+        }
+
+        @Override
+        public void onComplete() {
+            // El futuro de sendAsync termina justo después; es quien completa "done"
+            closed.complete(null);
+        }
+
+        private void stop() {
+            subscription.cancel();
+            closed.complete(null);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.freshcut.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.stereotype.Component;
+
+import com.freshcut.config.AiKeywordsProperties;
+import com.freshcut.util.AhoCorasick;
+
+/**
+ * Un único autómata con todas las listas de ai.keywords.*: una pasada sobre el texto cuenta cuántos términos
+ * distintos de cada categoría aparecen. Se construye al arrancar y es seguro entre hilos.
+ */
+@Component
+public class KeywordMatcher {
+
+    public enum Category { DOMAIN, OFF_TOPIC, ALLOWED_STYLE, FACIAL, BANNED }
+
+    /** Términos distintos encontrados por categoría. */
+    public static final class Counts {
+        private final int[] counts;
+        Counts(int[] counts) { this.counts = counts; }
+        public int get(Category c) { return counts[c.ordinal()]; }
+    }
+
+    private static final int FACIAL_MIN_HITS = 2;
+
+    private final AhoCorasick automaton;
+    // Categoría de cada patrón, en el orden en que se dieron al autómata
+    private final Category[] categoryOf;
+
+    public KeywordMatcher(AiKeywordsProperties props) {
+        List<String> patterns = new ArrayList<>();
+        List<Category> categories = new ArrayList<>();
+        add(patterns, categories, props.getDomain(), Category.DOMAIN);
+        add(patterns, categories, props.getOffTopic(), Category.OFF_TOPIC);
+        add(patterns, categories, props.getAllowedStyles(), Category.ALLOWED_STYLE);
+        add(patterns, categories, props.getFacial(), Category.FACIAL);
+        add(patterns, categories, props.getBanned(), Category.BANNED);
+        this.automaton = new AhoCorasick(patterns);
+        this.categoryOf = categories.toArray(new Category[0]);
+    }
+
+    public Counts scan(String text) {
+        int[] counts = new int[Category.values().length];
+        if (text == null || text.isEmpty()) return new Counts(counts);
+        boolean[] found = new boolean[automaton.patternCount()];
+        automaton.scan(text, found);
+        for (int p = 0; p < found.length; p++) {
+            if (found[p]) counts[categoryOf[p].ordinal()]++;
+        }
+        return new Counts(counts);
+    }
+
+    /**
+     * Huella de qué términos aparecen (no cuántas veces). Dos textos parecidos con huellas distintas hablan de cosas
+     * distintas ("cara redonda" frente a "cara alargada") aunque solo cambie una palabra.
+     */
+    public long termSignature(String text) {
+        long h = 0xcbf29ce484222325L;
+        if (text == null || text.isEmpty()) return h;
+        boolean[] found = new boolean[automaton.patternCount()];
+        automaton.scan(text, found);
+        for (int p = 0; p < found.length; p++) {
+            if (found[p]) h = (h ^ p) * 0x100000001b3L;
+        }
+        return h;
+    }
+
+    /** Pregunta dentro del dominio: más términos de cortes/estilos/facciones que términos ajenos. */
+    public boolean isRelevant(Counts c) {
+        return c.get(Category.DOMAIN) - c.get(Category.OFF_TOPIC) >= 1;
+    }
+
+    /** Respuesta aceptable: nombra algún estilo permitido (o al menos dos rasgos faciales) y ningún término vetado. */
+    public boolean isAcceptableReply(Counts c) {
+        boolean styled = c.get(Category.ALLOWED_STYLE) > 0 || c.get(Category.FACIAL) >= FACIAL_MIN_HITS;
+        return styled && c.get(Category.BANNED) == 0;
+    }
+
+    // Normaliza y quita duplicados dentro de la categoría ("estetica" y "estética" cuentan una vez)
+    private static void add(List<String> patterns, List<Category> categories, List<String> words, Category category) {
+        if (words == null) return;
+        Set<String> unique = new LinkedHashSet<>();
+        for (String w : words) {
+            if (w == null) continue;
+            String n = AhoCorasick.normalize(w);
+            if (!n.isEmpty()) unique.add(n);
+        }
+        for (String w : unique) {
+            patterns.add(w);
+            categories.add(category);
+        }
+    }
+}
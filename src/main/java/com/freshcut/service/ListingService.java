@@ -0,0 +1,129 @@
+package com.freshcut.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mapping.context.MappingContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.freshcut.dto.CursorPage;
+
+/**
+ * Listados grandes sin cargar la colección entera en memoria:
+ * paginación por cursor sobre {@code _id} y escritura en streaming (JSON o NDJSON) directamente desde el cursor de Mongo.
+ */
+@Service
+public class ListingService {
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 500;
+    private static final int CURSOR_BATCH = 500;
+    private static final int FLUSH_EVERY = 200;
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectWriter writer;
+    private final JsonFactory jsonFactory;
+    private final JsonFactory ndjsonFactory;
+
+    public ListingService(MongoTemplate mongoTemplate, ObjectMapper objectMapper) {
+        this.mongoTemplate = mongoTemplate;
+        // Se vacía el buffer por lotes, no tras cada documento
+        this.writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.jsonFactory = objectMapper.getFactory().copy().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // NDJSON: sin separador entre valores raíz, el salto de línea se escribe a mano
+        this.ndjsonFactory = objectMapper.getFactory().copy().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .setRootValueSeparator((String) null);
+    }
+
+    /**
+     * Respuesta de un endpoint de listado: sin {@code after} ni {@code limit}, el array JSON completo escrito en
+     * streaming (lo que devolvían antes los listados); con alguno de los dos, una página por cursor.
+     */
+    public <T, R> ResponseEntity<?> list(Class<T> type, String after, Integer limit, Function<T, R> mapper) {
+        if (after == null && limit == null) {
+            StreamingResponseBody body = out -> writeJsonArray(type, out, mapper);
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+        }
+        return ResponseEntity.ok(page(type, after, limit, mapper));
+    }
+
+    /** Respuesta NDJSON (un documento por línea) sin acumular la colección en memoria. */
+    public <T> ResponseEntity<StreamingResponseBody> ndjson(Class<T> type, Function<T, ?> mapper) {
+        StreamingResponseBody body = out -> writeNdjson(type, out, mapper);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /** Página de hasta {@code limit} documentos con {@code _id} mayor que {@code after}. */
+    public <T, R> CursorPage<R> page(Class<T> type, String after, Integer limit, Function<T, R> mapper) {
+        int size = (limit == null || limit <= 0) ? DEFAULT_LIMIT : Math.min(limit, MAX_LIMIT);
+        Query q = new Query().with(Sort.by(Sort.Direction.ASC, "_id")).limit(size + 1);
+        if (after != null && !after.isBlank()) {
+            if (!ObjectId.isValid(after)) throw new IllegalArgumentException("Cursor inválido");
+            q.addCriteria(Criteria.where("_id").gt(new ObjectId(after)));
+        }
+        List<T> docs = mongoTemplate.find(q, type);
+        boolean more = docs.size() > size;
+        if (more) docs = docs.subList(0, size);
+        String next = more ? idOf(type, docs.get(docs.size() - 1)) : null;
+        List<R> items = new ArrayList<>(docs.size());
+        for (T d : docs) items.add(mapper.apply(d));
+        return new CursorPage<>(items, next);
+    }
+
+    /** Escribe la colección como un array JSON, documento a documento. */
+    public <T> void writeJsonArray(Class<T> type, OutputStream out, Function<T, ?> mapper) throws IOException {
+        try (JsonGenerator gen = jsonFactory.createGenerator(out);
+             Stream<T> docs = stream(type)) {
+            gen.writeStartArray();
+            int n = 0;
+            for (Iterator<T> it = docs.iterator(); it.hasNext(); ) {
+                writer.writeValue(gen, mapper.apply(it.next()));
+                if (++n % FLUSH_EVERY == 0) gen.flush();
+            }
+            gen.writeEndArray();
+        }
+    }
+
+    /** Escribe la colección como NDJSON (un documento por línea). */
+    public <T> void writeNdjson(Class<T> type, OutputStream out, Function<T, ?> mapper) throws IOException {
+        try (JsonGenerator gen = ndjsonFactory.createGenerator(out);
+             Stream<T> docs = stream(type)) {
+            int n = 0;
+            for (Iterator<T> it = docs.iterator(); it.hasNext(); ) {
+                writer.writeValue(gen, mapper.apply(it.next()));
+                gen.writeRaw('\n');
+                if (++n % FLUSH_EVERY == 0) gen.flush();
+            }
+        }
+    }
+
+    private <T> Stream<T> stream(Class<T> type) {
+        Query q = new Query().with(Sort.by(Sort.Direction.ASC, "_id")).cursorBatchSize(CURSOR_BATCH);
+        return mongoTemplate.stream(q, type);
+    }
+
+    private <T> String idOf(Class<T> type, T doc) {
+        MappingContext<? extends MongoPersistentEntity<?>, MongoPersistentProperty> ctx = mongoTemplate.getConverter().getMappingContext();
+        Object id = ctx.getRequiredPersistentEntity(type).getIdentifierAccessor(doc).getIdentifier();
+        return id == null ? null : id.toString();
+    }
+}
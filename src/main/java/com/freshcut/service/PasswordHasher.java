@@ -0,0 +1,107 @@
+package com.freshcut.service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * BCrypt fuera de los hilos de Tomcat: un pool propio de {@code auth.hashing.threads} hilos con una cola de
+ * {@code auth.hashing.queue-capacity}. Una avalancha de logins ocupa como mucho esos núcleos y el resto de peticiones
+ * (reservas, catálogo) sigue atendiéndose; con la cola llena se responde 429 en lugar de acumular esperas.
+ * Métricas: {@code auth.hashing.wait} (tiempo en cola), {@code auth.hashing.duration}, {@code auth.hashing.queue}
+ * y {@code auth.hashing.rejected}.
+ */
+@Component
+public class PasswordHasher {
+    private final PasswordEncoder encoder;
+    private final ThreadPoolExecutor pool;
+    private final Timer waitTimer;
+    private final Timer durationTimer;
+    private final Counter rejected;
+
+    public PasswordHasher(
+            PasswordEncoder encoder,
+            MeterRegistry registry,
+            @Value("${auth.hashing.threads:0}") int threads,
+            @Value("${auth.hashing.queue-capacity:64}") int queueCapacity) {
+        this.encoder = encoder;
+        // 0: la mitad de los núcleos, para no dejar sin CPU al resto de la aplicación
+        int size = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger n = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(size, size, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), r -> {
+                    Thread t = new Thread(r, "password-hasher-" + n.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.waitTimer = Timer.builder("auth.hashing.wait").register(registry);
+        this.durationTimer = Timer.builder("auth.hashing.duration").register(registry);
+        this.rejected = Counter.builder("auth.hashing.rejected").register(registry);
+        Gauge.builder("auth.hashing.queue", pool, p -> p.getQueue().size()).register(registry);
+    }
+
+    public CompletableFuture<Boolean> matches(String raw, String encoded) {
+        return submit(() -> encoder.matches(raw, encoded));
+    }
+
+    public CompletableFuture<String> encode(String raw) {
+        return submit(() -> encoder.encode(raw));
+    }
+
+    /** Para quien no puede devolver un futuro (registro, reset): espera al pool, así el límite de CPU se respeta. */
+    public String encodeNow(String raw) {
+        try {
+            return encode(raw).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw e;
+        }
+    }
+
+    /** true si el hash se hizo con un coste menor que el configurado. */
+    public boolean needsUpgrade(String encoded) {
+        return encoder.upgradeEncoding(encoded);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> work) {
+        long queuedAt = System.nanoTime();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            pool.execute(() -> {
+                long startedAt = System.nanoTime();
+                waitTimer.record(startedAt - queuedAt, TimeUnit.NANOSECONDS);
+                try {
+                    result.complete(work.get());
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                } finally {
+                    durationTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            result.completeExceptionally(new TooManyRequestsException("Demasiados inicios de sesión a la vez, inténtalo de nuevo", 1));
+        }
+        return result;
+    }
+}
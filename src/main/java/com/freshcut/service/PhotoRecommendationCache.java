@@ -0,0 +1,84 @@
+package com.freshcut.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.freshcut.util.AhoCorasick;
+import com.freshcut.util.CredentialUtils;
+import com.freshcut.util.HammingIndex;
+import com.freshcut.util.PerceptualHash;
+import com.freshcut.util.PreparedImage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Caché de recomendaciones por foto: la misma foto (o una recomprimida/reescalada, dHash a distancia de Hamming
+ * ≤ {@code ai.photo-cache.max-distance}) con las mismas notas devuelve la recomendación anterior sin volver a
+ * subir la imagen al modelo.
+ * <p>
+ * Expulsión: TTL y, al superar {@code ai.photo-cache.max-entries}, la entrada más antigua. Aciertos y fallos en
+ * {@code ai.photo-cache.requests} (etiqueta {@code result}: hit, miss).
+ */
+@Component
+public class PhotoRecommendationCache {
+
+    /** Huella de la foto (sobre la imagen ya reducida, sin volver a decodificar) y de las notas normalizadas. */
+    public static final class Key {
+        final long dHash;
+        final String notes;
+
+        Key(long dHash, String notes) {
+            this.dHash = dHash;
+            this.notes = notes;
+        }
+    }
+
+    private record Cached(String notes, String reply) {}
+
+    private final boolean enabled;
+    private final HammingIndex<Cached> index;
+    private final Counter hits;
+    private final Counter misses;
+
+    public PhotoRecommendationCache(
+            MeterRegistry registry,
+            @Value("${ai.photo-cache.enabled:true}") boolean enabled,
+            @Value("${ai.photo-cache.max-entries:500}") int maxEntries,
+            @Value("${ai.photo-cache.ttl-ms:3600000}") long ttlMs,
+            @Value("${ai.photo-cache.max-distance:6}") int maxDistance) {
+        this.enabled = enabled;
+        this.index = new HammingIndex<>(maxDistance, maxEntries, ttlMs);
+        this.hits = Counter.builder("ai.photo-cache.requests").tag("result", "hit").register(registry);
+        this.misses = Counter.builder("ai.photo-cache.requests").tag("result", "miss").register(registry);
+        Gauge.builder("ai.photo-cache.size", index, HammingIndex::size).register(registry);
+    }
+
+    /** Null si la caché está desactivada o la foto no se pudo decodificar (entonces se consulta al modelo sin más). */
+    public Key keyFor(PreparedImage image, String notes) {
+        if (!enabled || image == null || !image.isDecoded()) return null;
+        String normalizedNotes = AhoCorasick.normalize(notes == null ? "" : notes);
+        return new Key(PerceptualHash.dHash(image.image()), CredentialUtils.sha256Hex(normalizedNotes));
+    }
+
+    public String get(Key key) {
+        if (key == null) return null;
+        Cached c = index.nearest(key.dHash, cached -> cached.notes().equals(key.notes));
+        if (c == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return c.reply();
+    }
+
+    public void put(Key key, String reply) {
+        if (key == null || reply == null) return;
+        index.put(key.dHash, new Cached(key.notes, reply));
+    }
+
+    public void clear() {
+        index.clear();
+    }
+}
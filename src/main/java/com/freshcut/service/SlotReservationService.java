@@ -0,0 +1,134 @@
+package com.freshcut.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.bson.types.ObjectId;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+
+import com.freshcut.db.model.BookingSlot;
+import com.freshcut.db.repository.BookingSlotRepository;
+
+/**
+ * Reserva atómica de horarios sin ventana lectura-escritura.
+ * <ul>
+ *   <li>En un nodo: candado por barbero (rayado en {@value #STRIPES} candados) alrededor de comprobar y guardar.</li>
+ *   <li>Entre nodos: cada reserva inserta sus tramos de {@value #SLOT_MINUTES} minutos en {@code booking_slots},
+ *       cuyo índice único (barber, slot) hace que solo una inserción gane.</li>
+ * </ul>
+ * Las reservas empiezan en múltiplos de {@value #SLOT_MINUTES} minutos ({@link #checkAligned}): así dos reservas
+ * seguidas nunca comparten tramo aunque la duración del servicio no sea múltiplo de {@value #SLOT_MINUTES}.
+ * Los tramos se insertan con {@code expireAt} y al guardar la reserva se confirman con una caducidad de
+ * {@code CONFIRMED_GRACE} tras su fin; si el proceso cae entre medias, el índice TTL los libera igualmente.
+ */
+@Service
+public class SlotReservationService {
+    static final int SLOT_MINUTES = 5;
+    static final int STRIPES = 64;
+    private static final Duration PENDING_TTL = Duration.ofMinutes(2);
+    // Las reservas pasadas ya no se pueden pisar; el margen cubre relojes de nodos desajustados
+    private static final Duration CONFIRMED_GRACE = Duration.ofDays(1);
+
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+    private final BookingSlotRepository slotRepository;
+
+    /** Tramos reclamados para una reserva y aún no confirmados. */
+    public static final class Claim {
+        final String bookingId;
+        final LocalDateTime end;
+        final List<String> keepIds;
+        final List<String> insertedIds;
+        Claim(String bookingId, LocalDateTime end, List<String> keepIds, List<String> insertedIds) {
+            this.bookingId = bookingId; this.end = end; this.keepIds = keepIds; this.insertedIds = insertedIds;
+        }
+    }
+
+    public SlotReservationService(BookingSlotRepository slotRepository) {
+        this.slotRepository = slotRepository;
+        for (int i = 0; i < STRIPES; i++) locks[i] = new ReentrantLock();
+    }
+
+    public <T> T withBarberLock(String barber, Supplier<T> action) {
+        ReentrantLock lock = locks[Math.floorMod(barber == null ? 0 : barber.hashCode(), STRIPES)];
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Rechaza inicios que no caen en un límite de tramo (los tramos compartidos darían conflictos falsos). */
+    public static void checkAligned(LocalDateTime start) {
+        if (start.getMinute() % SLOT_MINUTES != 0 || start.getSecond() != 0 || start.getNano() != 0) {
+            throw new IllegalArgumentException("La hora de inicio debe ser múltiplo de " + SLOT_MINUTES + " minutos");
+        }
+    }
+
+    /**
+     * Reclama los tramos de [start, end) para {@code bookingId}. Los que la reserva ya ocupaba (al editarla)
+     * se conservan. Lanza {@link IllegalStateException} si otro los tiene.
+     */
+    public Claim claim(String barber, String bookingId, LocalDateTime start, LocalDateTime end) {
+        Map<LocalDateTime, String> owned = new HashMap<>();
+        for (BookingSlot s : slotRepository.findByBookingId(bookingId)) {
+            if (barber.equals(s.getBarber())) owned.put(s.getSlot(), s.getId());
+        }
+        List<String> keep = new ArrayList<>();
+        List<BookingSlot> fresh = new ArrayList<>();
+        Instant expireAt = Instant.now().plus(PENDING_TTL);
+        for (LocalDateTime t = floor(start); t.isBefore(end); t = t.plusMinutes(SLOT_MINUTES)) {
+            String ownedId = owned.get(t);
+            if (ownedId != null) {
+                keep.add(ownedId);
+                continue;
+            }
+            BookingSlot s = new BookingSlot(barber, t, bookingId, expireAt);
+            s.setId(new ObjectId().toHexString());
+            fresh.add(s);
+            keep.add(s.getId());
+        }
+        List<String> inserted = fresh.stream().map(BookingSlot::getId).toList();
+        if (fresh.isEmpty()) return new Claim(bookingId, end, keep, inserted);
+        try {
+            slotRepository.insert(fresh);
+        } catch (DuplicateKeyException e) {
+            // La inserción ordenada se detiene en el primer duplicado: borrar lo que sí entró
+            slotRepository.deleteAllById(inserted);
+            throw new IllegalStateException("Conflicto: el barbero ya tiene una reserva en ese horario");
+        }
+        return new Claim(bookingId, end, keep, inserted);
+    }
+
+    /** La reserva quedó guardada: fijar sus tramos hasta que termine y soltar los que ya no ocupa. */
+    public void confirm(Claim claim) {
+        slotRepository.deleteByBookingIdAndIdNotIn(claim.bookingId, claim.keepIds);
+        Instant expireAt = claim.end.atZone(ZoneId.systemDefault()).toInstant().plus(CONFIRMED_GRACE);
+        slotRepository.confirmByBookingId(claim.bookingId, expireAt);
+    }
+
+    /** No se pudo guardar la reserva: devolver los tramos recién reclamados. */
+    public void abort(Claim claim) {
+        if (!claim.insertedIds.isEmpty()) slotRepository.deleteAllById(claim.insertedIds);
+    }
+
+    /** Reserva cancelada o eliminada: liberar todos sus tramos. */
+    public void release(String bookingId) {
+        slotRepository.deleteByBookingId(bookingId);
+    }
+
+    private static LocalDateTime floor(LocalDateTime t) {
+        LocalDateTime m = t.truncatedTo(ChronoUnit.MINUTES);
+        return m.minusMinutes(m.getMinute() % SLOT_MINUTES);
+    }
+}
@@ -0,0 +1,115 @@
+package com.freshcut.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Versión incremental de {@link AiService#normalizeToThreeRecommendations} + filtro de términos vetados.
+ * Recibe los fragmentos del modelo según llegan y, para cada línea terminada, la limpia y la emite como
+ * recomendación numerada. Se detiene al completar tres; si aparece un término vetado (ya en el borrador de
+ * la línea) emite un reset y la respuesta estándar.
+ */
+final class StreamingReplyFilter {
+    static final int MAX_ITEMS = 3;
+
+    private final KeywordMatcher keywords;
+    private final AiService.ChatStreamListener listener;
+    private final String standardReply;
+    private final StringBuilder line = new StringBuilder();
+    private final List<String> items = new ArrayList<>(MAX_ITEMS);
+    private boolean emittedAnything;
+    private boolean finished;
+
+    StreamingReplyFilter(KeywordMatcher keywords, AiService.ChatStreamListener listener, String standardReply) {
+        this.keywords = keywords;
+        this.listener = listener;
+        this.standardReply = standardReply;
+    }
+
+    /** Procesa un fragmento; devuelve false cuando ya no necesita más texto. */
+    synchronized boolean accept(String delta) {
+        if (finished) return false;
+        StringBuilder draft = new StringBuilder();
+        for (int i = 0; i < delta.length(); i++) {
+            char c = delta.charAt(i);
+            if (c == '\n') {
+                // Primero el veto: si la línea lleva un término prohibido, su borrador no debe llegar al cliente
+                if (hasBannedTerm()) {
+                    reject();
+                    return false;
+                }
+                flushDraft(draft);
+                if (!completeLine()) return false;
+            } else if (c != '\r') {
+                line.append(c);
+                if (c != '*') draft.append(c);
+            }
+        }
+        if (hasBannedTerm()) {
+            reject();
+            return false;
+        }
+        flushDraft(draft);
+        return true;
+    }
+
+    /** Fin del stream: la última línea puede no traer salto de línea. */
+    synchronized void finish() {
+        if (finished) return;
+        if (line.length() > 0 && !completeLine()) return;
+        complete();
+    }
+
+    /** Error o corte del modelo: se descarta lo parcial y se responde con el mensaje estándar. */
+    synchronized void fail() {
+        if (finished) return;
+        reject();
+    }
+
+    private boolean hasBannedTerm() {
+        return keywords.scan(line.toString()).get(KeywordMatcher.Category.BANNED) > 0;
+    }
+
+    private void flushDraft(StringBuilder draft) {
+        if (draft.length() == 0) return;
+        emittedAnything = true;
+        listener.onToken(draft.toString());
+        draft.setLength(0);
+    }
+
+    private boolean completeLine() {
+        String cleaned = AiService.cleanLine(line.toString());
+        line.setLength(0);
+        if (cleaned.isEmpty()) return true;
+        if (keywords.scan(cleaned).get(KeywordMatcher.Category.BANNED) > 0) {
+            reject();
+            return false;
+        }
+        items.add(cleaned);
+        emittedAnything = true;
+        listener.onRecommendation(items.size(), items.size() + ". " + cleaned);
+        if (items.size() == MAX_ITEMS) {
+            complete();
+            return false;
+        }
+        return true;
+    }
+
+    private void complete() {
+        List<String> out = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) out.add((i + 1) + ". " + items.get(i));
+        String reply = String.join("\n", out);
+        if (items.isEmpty() || !keywords.isAcceptableReply(keywords.scan(reply))) {
+            reject();
+            return;
+        }
+        finished = true;
+        listener.onDone(reply, null);
+    }
+
+    private void reject() {
+        finished = true;
+        if (emittedAnything) listener.onReset();
+        listener.onDone(standardReply, null);
+    }
+}
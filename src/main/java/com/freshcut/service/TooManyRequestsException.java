@@ -0,0 +1,15 @@
+package com.freshcut.service;
+
+/** Petición rechazada por carga o por límite de ritmo; se responde 429 con Retry-After. */
+public class TooManyRequestsException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
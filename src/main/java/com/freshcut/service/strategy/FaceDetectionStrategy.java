@@ -1,8 +1,15 @@
 package com.freshcut.service.strategy;
 
+import com.freshcut.util.PreparedImage;
+
 /**
  * Strategy para estimar si una imagen probablemente contiene un rostro.
  */
 public interface FaceDetectionStrategy {
     boolean isLikelyFacePhoto(byte[] imageBytes, String contentType);
+
+    /** Sobre una foto ya preparada por {@link com.freshcut.util.ImagePreprocessor}; por defecto, sobre sus bytes. */
+    default boolean isLikelyFacePhoto(PreparedImage image) {
+        return isLikelyFacePhoto(image.bytes(), image.contentType());
+    }
 }
\ No newline at end of file
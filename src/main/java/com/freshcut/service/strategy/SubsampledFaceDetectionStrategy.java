@@ -0,0 +1,120 @@
+package com.freshcut.service.strategy;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import com.freshcut.util.ByteArrayImageInputStream;
+import com.freshcut.util.PreparedImage;
+
+/**
+ * Mismo criterio que {@link DefaultFaceDetectionStrategy} sin decodificar la imagen completa
+ * (o reutilizando la ya reducida por {@link com.freshcut.util.ImagePreprocessor}).
+ * <ul>
+ *   <li>Las dimensiones se leen de la cabecera: tamaño y proporción se validan antes de decodificar nada.</li>
+ *   <li>Solo se decodifica la zona central, submuestreada a unos {@value #GRID}x{@value #GRID} píxeles
+ *       ({@link ImageReadParam#setSourceRegion} + {@link ImageReadParam#setSourceSubsampling}). El ráster
+ *       resultante ocupa unos pocos KB, sea cual sea la resolución de la foto.</li>
+ *   <li>La clasificación de piel usa YCbCr en aritmética entera (coeficientes en punto fijo 16.16).</li>
+ * </ul>
+ */
+public class SubsampledFaceDetectionStrategy implements FaceDetectionStrategy {
+    // Rejilla de muestreo: equivalente a los ~21x21 puntos del detector completo
+    static final int GRID = 21;
+
+    @Override
+    public boolean isLikelyFacePhoto(byte[] imageBytes, String contentType) {
+        if (contentType != null && !contentType.toLowerCase().startsWith("image/")) return false;
+        if (imageBytes == null || imageBytes.length < 4000) return false;
+        try (ImageInputStream in = new ByteArrayImageInputStream(imageBytes)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) return false;
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int w = reader.getWidth(0);
+                int h = reader.getHeight(0);
+                if (w < 96 || h < 96) return false;
+                double ratioWH = (double) w / Math.max(1, h);
+                if (ratioWH < 0.4 || ratioWH > 2.5) return false;
+
+                // Zona central ampliada (mitad del ancho y del alto), como el detector completo
+                int cx0 = Math.max(0, w / 2 - w / 4);
+                int cy0 = Math.max(0, h / 2 - h / 4);
+                int cx1 = Math.min(w - 1, w / 2 + w / 4);
+                int cy1 = Math.min(h - 1, h / 2 + h / 4);
+                int regionW = cx1 - cx0 + 1;
+                int regionH = cy1 - cy0 + 1;
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceRegion(new Rectangle(cx0, cy0, regionW, regionH));
+                param.setSourceSubsampling(Math.max(1, regionW / GRID), Math.max(1, regionH / GRID), 0, 0);
+                BufferedImage img = reader.read(0, param);
+                return skinRatioAtLeast(img, 0.01);
+            } finally {
+                reader.dispose();
+            }
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /** Mismas comprobaciones sobre la imagen ya reducida: solo se leen los ~{@value #GRID}x{@value #GRID} puntos de la rejilla. */
+    @Override
+    public boolean isLikelyFacePhoto(PreparedImage prepared) {
+        if (!prepared.isDecoded()) return isLikelyFacePhoto(prepared.bytes(), prepared.contentType());
+        if (prepared.sourceBytes() < 4000) return false;
+        int sw = prepared.sourceWidth();
+        int sh = prepared.sourceHeight();
+        if (sw < 96 || sh < 96) return false;
+        double ratioWH = (double) sw / Math.max(1, sh);
+        if (ratioWH < 0.4 || ratioWH > 2.5) return false;
+
+        BufferedImage img = prepared.image();
+        int w = img.getWidth();
+        int h = img.getHeight();
+        int cx0 = Math.max(0, w / 2 - w / 4);
+        int cy0 = Math.max(0, h / 2 - h / 4);
+        int cx1 = Math.min(w - 1, w / 2 + w / 4);
+        int cy1 = Math.min(h - 1, h / 2 + h / 4);
+        int stepX = Math.max(1, (cx1 - cx0 + 1) / GRID);
+        int stepY = Math.max(1, (cy1 - cy0 + 1) / GRID);
+        int samples = 0;
+        int skin = 0;
+        for (int y = cy0; y <= cy1; y += stepY) {
+            for (int x = cx0; x <= cx1; x += stepX) {
+                int p = img.getRGB(x, y);
+                if (isSkin((p >> 16) & 0xFF, (p >> 8) & 0xFF, p & 0xFF)) skin++;
+                samples++;
+            }
+        }
+        return samples > 0 && skin >= 0.01 * samples;
+    }
+
+    private static boolean skinRatioAtLeast(BufferedImage img, double threshold) {
+        int iw = img.getWidth();
+        int ih = img.getHeight();
+        int[] rgb = img.getRGB(0, 0, iw, ih, null, 0, iw);
+        int skin = 0;
+        for (int p : rgb) {
+            if (isSkin((p >> 16) & 0xFF, (p >> 8) & 0xFF, p & 0xFF)) skin++;
+        }
+        return rgb.length > 0 && skin >= threshold * rgb.length;
+    }
+
+    /**
+     * Mismos umbrales que el detector completo: Cb en [77,127], Cr en [133,173], Y en (40,230).
+     * Se compara en la escala 16.16 (umbrales desplazados) para no perder precisión al redondear.
+     */
+    static boolean isSkin(int r, int g, int b) {
+        int y = 19595 * r + 38470 * g + 7471 * b;
+        if (y <= (40 << 16) || y >= (230 << 16)) return false;
+        int cb = -11059 * r - 21709 * g + 32768 * b; // Cb - 128
+        if (cb < (77 - 128) * 65536 || cb > (127 - 128) * 65536) return false;
+        int cr = 32768 * r - 27439 * g - 5329 * b;   // Cr - 128
+        return cr >= (133 - 128) * 65536 && cr <= (173 - 128) * 65536;
+    }
+}
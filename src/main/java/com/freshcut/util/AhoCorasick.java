@@ -0,0 +1,158 @@
+package com.freshcut.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Autómata Aho-Corasick inmutable sobre texto normalizado: minúsculas, sin tildes ni diéresis, con todo lo que no sea
+ * letra o dígito convertido en un espacio y los espacios repetidos colapsados. Patrones y texto se normalizan igual,
+ * así que "Estética", "estetica" y "ESTÉTICA" son la misma palabra clave.
+ * <p>
+ * Se construye una vez (tabla de transiciones completa, sin seguir enlaces de fallo al buscar) y se puede compartir
+ * entre hilos. {@link #scan} recorre el texto una sola vez y marca qué patrones aparecen como subcadena.
+ */
+public final class AhoCorasick {
+    // 'a'..'z' -> 0..25, '0'..'9' -> 26..35, espacio -> 36
+    private static final int ALPHABET = 37;
+    private static final int SPACE = 36;
+    private static final int NONE = -1;
+
+    private final int[] delta;
+    // Patrones que terminan en cada estado (incluidos los heredados por el enlace de fallo)
+    private final int[][] outputs;
+    private final int patternCount;
+
+    public AhoCorasick(List<String> patterns) {
+        this.patternCount = patterns.size();
+        List<int[]> gotoRows = new ArrayList<>();
+        List<List<Integer>> out = new ArrayList<>();
+        gotoRows.add(newRow());
+        out.add(new ArrayList<>());
+
+        for (int p = 0; p < patterns.size(); p++) {
+            int[] symbols = symbols(patterns.get(p));
+            if (symbols.length == 0) continue;
+            int state = 0;
+            for (int c : symbols) {
+                int next = gotoRows.get(state)[c];
+                if (next == NONE) {
+                    next = gotoRows.size();
+                    gotoRows.add(newRow());
+                    out.add(new ArrayList<>());
+                    gotoRows.get(state)[c] = next;
+                }
+                state = next;
+            }
+            out.get(state).add(p);
+        }
+
+        int states = gotoRows.size();
+        int[] fail = new int[states];
+        delta = new int[states * ALPHABET];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < ALPHABET; c++) {
+            int next = gotoRows.get(0)[c];
+            if (next == NONE) {
+                delta[c] = 0;
+            } else {
+                delta[c] = next;
+                fail[next] = 0;
+                queue.add(next);
+            }
+        }
+        // BFS: el fallo de un estado ya está resuelto cuando se visitan sus hijos
+        while (!queue.isEmpty()) {
+            int s = queue.poll();
+            out.get(s).addAll(out.get(fail[s]));
+            for (int c = 0; c < ALPHABET; c++) {
+                int next = gotoRows.get(s)[c];
+                if (next == NONE) {
+                    delta[s * ALPHABET + c] = delta[fail[s] * ALPHABET + c];
+                } else {
+                    delta[s * ALPHABET + c] = next;
+                    fail[next] = delta[fail[s] * ALPHABET + c];
+                    queue.add(next);
+                }
+            }
+        }
+
+        outputs = new int[states][];
+        for (int s = 0; s < states; s++) {
+            outputs[s] = out.get(s).stream().distinct().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    public int patternCount() {
+        return patternCount;
+    }
+
+    /** Marca en {@code found} (tamaño {@link #patternCount()}) los patrones presentes en el texto. */
+    public void scan(CharSequence text, boolean[] found) {
+        if (text == null) return;
+        int state = 0;
+        boolean lastWasSpace = true; // ignora espacios iniciales, como trim()
+        for (int i = 0, n = text.length(); i < n; i++) {
+            int c = symbol(text.charAt(i));
+            if (c == SPACE) {
+                if (lastWasSpace) continue;
+                lastWasSpace = true;
+            } else {
+                lastWasSpace = false;
+            }
+            state = delta[state * ALPHABET + c];
+            for (int p : outputs[state]) found[p] = true;
+        }
+    }
+
+    /** Forma normalizada de un texto, la misma que ve el autómata. */
+    public static String normalize(CharSequence text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        boolean lastWasSpace = true;
+        for (int i = 0; i < text.length(); i++) {
+            int c = symbol(text.charAt(i));
+            if (c == SPACE) {
+                if (lastWasSpace) continue;
+                lastWasSpace = true;
+                sb.append(' ');
+            } else {
+                lastWasSpace = false;
+                sb.append(c < 26 ? (char) ('a' + c) : (char) ('0' + c - 26));
+            }
+        }
+        int len = sb.length();
+        if (len > 0 && sb.charAt(len - 1) == ' ') sb.setLength(len - 1);
+        return sb.toString();
+    }
+
+    private static int[] symbols(String pattern) {
+        String norm = normalize(pattern);
+        int[] out = new int[norm.length()];
+        for (int i = 0; i < out.length; i++) out[i] = symbol(norm.charAt(i));
+        return out;
+    }
+
+    private static int[] newRow() {
+        int[] row = new int[ALPHABET];
+        Arrays.fill(row, NONE);
+        return row;
+    }
+
+    private static int symbol(char ch) {
+        if (ch >= 'a' && ch <= 'z') return ch - 'a';
+        if (ch >= 'A' && ch <= 'Z') return ch - 'A';
+        if (ch >= '0' && ch <= '9') return 26 + (ch - '0');
+        if (ch < 0x80) return SPACE;
+        return switch (Character.toLowerCase(ch)) {
+            case 'á', 'à', 'ä', 'â', 'ã' -> 0;
+            case 'é', 'è', 'ë', 'ê' -> 'e' - 'a';
+            case 'í', 'ì', 'ï', 'î' -> 'i' - 'a';
+            case 'ó', 'ò', 'ö', 'ô', 'õ' -> 'o' - 'a';
+            case 'ú', 'ù', 'ü', 'û' -> 'u' - 'a';
+            case 'ñ' -> 'n' - 'a';
+            case 'ç' -> 'c' - 'a';
+            default -> SPACE;
+        };
+    }
+}
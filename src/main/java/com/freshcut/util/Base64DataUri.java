@@ -0,0 +1,66 @@
+package com.freshcut.util;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+/**
+ * Valor JSON {@code "data:<mime>;base64,..."} que Jackson escribe por trozos directamente en su búfer de salida:
+ * ni String base64 completo (1,33 veces la imagen, en UTF-16) ni copia al serializarlo.
+ */
+public final class Base64DataUri implements JsonSerializable {
+    private static final char[] ALPHABET =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+    // Múltiplo de 3 bytes: cada trozo se codifica sin relleno salvo el último
+    private static final int CHUNK_BYTES = 3 * 1024;
+
+    private final String mime;
+    private final byte[] data;
+
+    public Base64DataUri(String mime, byte[] data) {
+        if (mime.indexOf('"') >= 0 || mime.indexOf('\\') >= 0) throw new IllegalArgumentException("Tipo MIME inválido: " + mime);
+        this.mime = mime;
+        this.data = data;
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        // writeRawValue coloca separadores y estado del generador; el resto del valor va en crudo (base64 no necesita escapes)
+        gen.writeRawValue("\"data:" + mime + ";base64,");
+        char[] buf = new char[CHUNK_BYTES / 3 * 4];
+        for (int off = 0; off < data.length; off += CHUNK_BYTES) {
+            int n = encode(data, off, Math.min(CHUNK_BYTES, data.length - off), buf);
+            gen.writeRaw(buf, 0, n);
+        }
+        gen.writeRaw('"');
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer) throws IOException {
+        serialize(gen, serializers);
+    }
+
+    private static int encode(byte[] src, int off, int len, char[] out) {
+        int o = 0;
+        int end = off + len - len % 3;
+        for (int i = off; i < end; i += 3) {
+            int v = (src[i] & 0xFF) << 16 | (src[i + 1] & 0xFF) << 8 | (src[i + 2] & 0xFF);
+            out[o++] = ALPHABET[v >>> 18];
+            out[o++] = ALPHABET[(v >>> 12) & 0x3F];
+            out[o++] = ALPHABET[(v >>> 6) & 0x3F];
+            out[o++] = ALPHABET[v & 0x3F];
+        }
+        int rest = len % 3;
+        if (rest > 0) {
+            int v = (src[end] & 0xFF) << 16 | (rest == 2 ? (src[end + 1] & 0xFF) << 8 : 0);
+            out[o++] = ALPHABET[v >>> 18];
+            out[o++] = ALPHABET[(v >>> 12) & 0x3F];
+            out[o++] = rest == 2 ? ALPHABET[(v >>> 6) & 0x3F] : '=';
+            out[o++] = '=';
+        }
+        return o;
+    }
+}
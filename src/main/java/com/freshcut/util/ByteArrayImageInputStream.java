@@ -0,0 +1,32 @@
+package com.freshcut.util;
+
+import javax.imageio.stream.ImageInputStreamImpl;
+
+/**
+ * {@link javax.imageio.stream.ImageInputStream} que lee directamente de un array. ImageIO.createImageInputStream
+ * copiaría los bytes a una caché (en memoria o en un fichero temporal) antes de empezar a decodificar.
+ */
+public final class ByteArrayImageInputStream extends ImageInputStreamImpl {
+    private final byte[] data;
+
+    public ByteArrayImageInputStream(byte[] data) { this.data = data; }
+
+    @Override
+    public int read() {
+        bitOffset = 0;
+        return streamPos < data.length ? data[(int) streamPos++] & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+        bitOffset = 0;
+        if (streamPos >= data.length) return -1;
+        int n = (int) Math.min(len, data.length - streamPos);
+        System.arraycopy(data, (int) streamPos, b, off, n);
+        streamPos += n;
+        return n;
+    }
+
+    @Override
+    public long length() { return data.length; }
+}
@@ -0,0 +1,86 @@
+package com.freshcut.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * SHA-256 y validaciones de credenciales que corren en cada login, registro y reset (y en las claves de las cachés
+ * de IA y de los tokens JWT), sin expresiones regulares ni {@code String.format}:
+ * <ul>
+ *   <li>Un {@link MessageDigest} por hilo, reutilizado: {@code getInstance} busca el proveedor en cada llamada.</li>
+ *   <li>Hexadecimal con tabla: un {@code char[64]} y un único String.</li>
+ *   <li>Los validadores recorren la cadena una vez; mismas reglas que las expresiones que sustituyen.</li>
+ * </ul>
+ */
+public final class CredentialUtils {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private CredentialUtils() {}
+
+    /** SHA-256 del texto en UTF-8. */
+    public static byte[] sha256(String text) {
+        MessageDigest md = SHA256.get();
+        // digest() deja el MessageDigest listo para la siguiente llamada
+        return md.digest(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** SHA-256 en hexadecimal en minúsculas (64 caracteres), como lo calcula el frontend. */
+    public static String sha256Hex(String text) {
+        byte[] digest = sha256(text);
+        char[] out = new char[digest.length * 2];
+        for (int i = 0, j = 0; i < digest.length; i++) {
+            out[j++] = HEX[(digest[i] >> 4) & 0xF];
+            out[j++] = HEX[digest[i] & 0xF];
+        }
+        return new String(out);
+    }
+
+    /** 64 caracteres hexadecimales (minúsculas o mayúsculas), ignorando espacios alrededor como {@code trim()}. */
+    public static boolean isSha256Hex(String s) {
+        if (s == null) return false;
+        int from = 0;
+        int to = s.length();
+        while (from < to && s.charAt(from) <= ' ') from++;
+        while (to > from && s.charAt(to - 1) <= ' ') to--;
+        if (to - from != 64) return false;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F'))) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Mínimo 8 caracteres con minúscula, mayúscula, dígito y un carácter que no sea letra ni dígito ASCII.
+     * Equivale a {@code ^(?=.*[a-z])(?=.*[A-Z])(?=.*\d)(?=.*[^A-Za-z0-9]).{8,}$}: los saltos de línea no valen.
+     */
+    public static boolean isStrongPassword(String pw) {
+        if (pw == null) return false;
+        boolean lower = false, upper = false, digit = false, special = false;
+        int count = 0;
+        for (int i = 0; i < pw.length(); ) {
+            int cp = pw.codePointAt(i);
+            i += Character.charCount(cp);
+            count++;
+            if (cp >= 'a' && cp <= 'z') lower = true;
+            else if (cp >= 'A' && cp <= 'Z') upper = true;
+            else if (cp >= '0' && cp <= '9') digit = true;
+            else if (isLineTerminator(cp)) return false;
+            else special = true;
+        }
+        return count >= 8 && lower && upper && digit && special;
+    }
+
+    // Lo que '.' no acepta en java.util.regex sin flags
+    private static boolean isLineTerminator(int cp) {
+        return cp == '\n' || cp == '\r' || cp == 0x85 || cp == 0x2028 || cp == 0x2029;
+    }
+}
@@ -0,0 +1,105 @@
+package com.freshcut.util;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Versión exacta de {@link SlidingWindowCounter}: cada clave tiene su propia ventana, así que una clave nunca suma en
+ * la cuenta de otra (el count-min puede sobrestimar por colisiones).
+ * <ul>
+ *   <li>Misma división en tramos y mismas celdas (tramo en los 32 bits altos, cuenta en los bajos) que el sketch.</li>
+ *   <li>Memoria acotada: como mucho {@code maxKeys} ventanas en un {@link ShardedLruCache}; al llenarse se expulsa la
+ *       de uso más antiguo, que es la que más lejos queda de seguir contando.</li>
+ * </ul>
+ */
+public final class ExactWindowCounter implements WindowCounter {
+    private final ShardedLruCache<String, long[]> windows;
+    private final int slots;
+    private final long slotNanos;
+    private final LongSupplier clock;
+
+    public ExactWindowCounter(Duration window, int slots, int maxKeys, LongSupplier clock) {
+        this.slots = Math.max(2, slots);
+        this.slotNanos = Math.max(1, window.toNanos() / this.slots);
+        this.clock = clock;
+        // Sin TTL: una ventana vieja se lee como cero por sus tramos, no hace falta caducarla
+        this.windows = new ShardedLruCache<>(Math.max(1, maxKeys), 0);
+    }
+
+    @Override
+    public int increment(String key) {
+        int epoch = epoch(clock.getAsLong());
+        long[] cells = windows.computeIfAbsent(key, k -> new long[slots]);
+        synchronized (cells) {
+            int i = Math.floorMod(epoch, slots);
+            long v = cells[i];
+            if ((int) (v >>> 32) != epoch) cells[i] = ((long) epoch << 32) | 1L;
+            else if ((int) v < Integer.MAX_VALUE) cells[i] = v + 1;
+            return sum(cells, epoch);
+        }
+    }
+
+    @Override
+    public void decrement(String key) {
+        long[] cells = windows.get(key);
+        if (cells == null) return;
+        int epoch = epoch(clock.getAsLong());
+        synchronized (cells) {
+            for (int age = 0; age < slots; age++) {
+                int i = Math.floorMod(epoch - age, slots);
+                long v = cells[i];
+                if ((int) (v >>> 32) == epoch - age && (int) v > 0) {
+                    cells[i] = v - 1;
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public int estimate(String key) {
+        long[] cells = windows.get(key);
+        if (cells == null) return 0;
+        int epoch = epoch(clock.getAsLong());
+        synchronized (cells) {
+            return sum(cells, epoch);
+        }
+    }
+
+    @Override
+    public long nanosUntilBelow(String key, int limit) {
+        long[] cells = windows.get(key);
+        if (cells == null) return 0;
+        long now = clock.getAsLong();
+        int epoch = epoch(now);
+        long toNextSlot = slotNanos - Math.floorMod(now, slotNanos);
+        synchronized (cells) {
+            int remaining = sum(cells, epoch);
+            if (remaining < limit) return 0;
+            // Del tramo más antiguo al actual: el de edad a sale de la ventana tras (slots - 1 - a) tramos más
+            for (int age = slots - 1; age >= 0; age--) {
+                long v = cells[Math.floorMod(epoch - age, slots)];
+                if ((int) (v >>> 32) == epoch - age) remaining -= (int) v;
+                if (remaining < limit) return (slots - 1L - age) * slotNanos + toNextSlot;
+            }
+        }
+        return (slots - 1L) * slotNanos + toNextSlot;
+    }
+
+    public int size() {
+        return windows.size();
+    }
+
+    private int epoch(long nanos) {
+        return (int) Math.floorDiv(nanos, slotNanos);
+    }
+
+    private int sum(long[] cells, int epoch) {
+        long sum = 0;
+        for (long v : cells) {
+            int age = epoch - (int) (v >>> 32);
+            if (age >= 0 && age < slots) sum += (int) v;
+        }
+        return (int) Math.min(Integer.MAX_VALUE, sum);
+    }
+}
@@ -0,0 +1,138 @@
+package com.freshcut.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * Índice de huellas de 64 bits (SimHash, dHash...) para buscar la más cercana a distancia de Hamming
+ * ≤ {@code maxDistance} sin recorrerlas todas. La huella se parte en {@code maxDistance + 1} bloques: por el
+ * principio del palomar, dos huellas a esa distancia coinciden al menos en un bloque, así que basta con mirar
+ * los candidatos que comparten alguno.
+ * <p>
+ * Tamaño acotado (se expulsa la entrada más antigua) y TTL. Pensado para unos miles de entradas.
+ */
+public class HammingIndex<V> {
+
+    private static final class Entry<V> {
+        final long hash;
+        final V value;
+        final long createdAtNanos;
+        Entry(long hash, V value, long createdAtNanos) { this.hash = hash; this.value = value; this.createdAtNanos = createdAtNanos; }
+    }
+
+    private final int maxDistance;
+    private final int capacity;
+    private final long ttlNanos;
+    private final int[] blockShift;
+    private final long[] blockMask;
+    // Por bloque: valor de los bits de ese bloque -> entradas que lo tienen
+    private final List<Map<Long, List<Entry<V>>>> blocks = new ArrayList<>();
+    private final ArrayDeque<Entry<V>> insertionOrder = new ArrayDeque<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public HammingIndex(int maxDistance, int capacity, long ttlMs) {
+        if (maxDistance < 0 || maxDistance > 63) throw new IllegalArgumentException("maxDistance fuera de rango: " + maxDistance);
+        this.maxDistance = maxDistance;
+        this.capacity = Math.max(1, capacity);
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, ttlMs));
+        int n = maxDistance + 1;
+        this.blockShift = new int[n];
+        this.blockMask = new long[n];
+        int start = 0;
+        for (int i = 0; i < n; i++) {
+            int width = (64 - start) / (n - i);
+            blockShift[i] = start;
+            blockMask[i] = width == 64 ? -1L : (1L << width) - 1;
+            start += width;
+            blocks.add(new HashMap<>());
+        }
+    }
+
+    /** Valor de la huella más cercana (a distancia ≤ maxDistance) que además cumpla {@code accept}, o null. */
+    public V nearest(long hash, Predicate<V> accept) {
+        long now = System.nanoTime();
+        lock.readLock().lock();
+        try {
+            Entry<V> best = null;
+            int bestDistance = Integer.MAX_VALUE;
+            for (int b = 0; b < blockShift.length; b++) {
+                List<Entry<V>> candidates = blocks.get(b).get(blockKey(hash, b));
+                if (candidates == null) continue;
+                for (Entry<V> e : candidates) {
+                    if (isExpired(e, now)) continue;
+                    int d = Long.bitCount(e.hash ^ hash);
+                    if (d <= maxDistance && d < bestDistance && accept.test(e.value)) {
+                        best = e;
+                        bestDistance = d;
+                        if (d == 0) return e.value;
+                    }
+                }
+            }
+            return best == null ? null : best.value;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void put(long hash, V value) {
+        long now = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            Entry<V> e = new Entry<>(hash, value, now);
+            for (int b = 0; b < blockShift.length; b++) {
+                blocks.get(b).computeIfAbsent(blockKey(hash, b), k -> new ArrayList<>(1)).add(e);
+            }
+            insertionOrder.addLast(e);
+            // Primero las caducadas (están al principio), luego lo que sobre de capacidad
+            while (!insertionOrder.isEmpty()
+                    && (insertionOrder.size() > capacity || isExpired(insertionOrder.peekFirst(), now))) {
+                unlink(insertionOrder.pollFirst());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return insertionOrder.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            insertionOrder.clear();
+            blocks.forEach(Map::clear);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void unlink(Entry<V> e) {
+        for (int b = 0; b < blockShift.length; b++) {
+            long key = blockKey(e.hash, b);
+            List<Entry<V>> list = blocks.get(b).get(key);
+            if (list == null) continue;
+            list.remove(e);
+            if (list.isEmpty()) blocks.get(b).remove(key);
+        }
+    }
+
+    private boolean isExpired(Entry<V> e, long now) {
+        return ttlNanos > 0 && now - e.createdAtNanos > ttlNanos;
+    }
+
+    private long blockKey(long hash, int block) {
+        return (hash >>> blockShift[block]) & blockMask[block];
+    }
+}
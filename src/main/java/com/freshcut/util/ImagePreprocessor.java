@@ -0,0 +1,170 @@
+package com.freshcut.util;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+/**
+ * Prepara una foto subida para el modelo de visión con una sola decodificación:
+ * <ol>
+ *   <li>lectura submuestreada por el lector (factor entero) hasta quedar por encima de {@code maxEdge};</li>
+ *   <li>reducción bilineal a {@code maxEdge} en el lado largo y orientación EXIF aplicada a los píxeles;</li>
+ *   <li>JPEG a la calidad indicada sin metadatos (ni EXIF ni GPS).</li>
+ * </ol>
+ * La imagen intermedia ocupa como mucho unos pocos MB aunque la foto original tenga decenas de megapíxeles.
+ */
+public class ImagePreprocessor {
+    private final int maxEdge;
+    private final float jpegQuality;
+
+    public ImagePreprocessor(int maxEdge, float jpegQuality) {
+        if (maxEdge < 16) throw new IllegalArgumentException("maxEdge demasiado pequeño: " + maxEdge);
+        if (jpegQuality <= 0f || jpegQuality > 1f) throw new IllegalArgumentException("Calidad JPEG fuera de rango: " + jpegQuality);
+        this.maxEdge = maxEdge;
+        this.jpegQuality = jpegQuality;
+    }
+
+    public PreparedImage prepare(byte[] imageBytes) throws IOException {
+        if (imageBytes == null || imageBytes.length == 0) throw new IOException("Imagen vacía");
+        BufferedImage decoded;
+        int w;
+        int h;
+        try (ImageInputStream in = new ByteArrayImageInputStream(imageBytes)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) throw new IOException("Formato de imagen no reconocido");
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                w = reader.getWidth(0);
+                h = reader.getHeight(0);
+                // El factor entero deja el lado largo entre maxEdge y 2*maxEdge; el resto lo hace el reescalado
+                int step = Math.max(1, Math.max(w, h) / maxEdge);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                decoded = reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+        int orientation = exifOrientation(imageBytes);
+        BufferedImage image = orient(fit(decoded), orientation);
+        boolean swapped = orientation >= 5 && orientation <= 8;
+        return new PreparedImage(swapped ? h : w, swapped ? w : h, imageBytes.length, image, encode(image));
+    }
+
+    // Siempre TYPE_INT_RGB (el JPEG no admite alfa: se compone sobre blanco)
+    private BufferedImage fit(BufferedImage src) {
+        int w = src.getWidth();
+        int h = src.getHeight();
+        double scale = Math.min(1.0, (double) maxEdge / Math.max(w, h));
+        if (scale == 1.0 && src.getType() == BufferedImage.TYPE_INT_RGB) return src;
+        int tw = Math.max(1, (int) Math.round(w * scale));
+        int th = Math.max(1, (int) Math.round(h * scale));
+        BufferedImage out = new BufferedImage(tw, th, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = out.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(src, 0, 0, tw, th, Color.WHITE, null);
+        } finally {
+            g.dispose();
+        }
+        return out;
+    }
+
+    private byte[] encode(BufferedImage img) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(ios);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            // Sin metadatos de origen: el escritor solo añade la cabecera JFIF
+            writer.write(null, new IIOImage(img, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    /** Aplica la orientación EXIF (1-8) a los píxeles; al quitar el EXIF el modelo vería la foto girada. */
+    static BufferedImage orient(BufferedImage src, int orientation) {
+        if (orientation < 2 || orientation > 8) return src;
+        int w = src.getWidth();
+        int h = src.getHeight();
+        boolean swap = orientation >= 5;
+        BufferedImage out = new BufferedImage(swap ? h : w, swap ? w : h, BufferedImage.TYPE_INT_RGB);
+        int[] row = new int[w];
+        for (int y = 0; y < h; y++) {
+            src.getRGB(0, y, w, 1, row, 0, w);
+            for (int x = 0; x < w; x++) {
+                switch (orientation) {
+                    case 2 -> out.setRGB(w - 1 - x, y, row[x]);
+                    case 3 -> out.setRGB(w - 1 - x, h - 1 - y, row[x]);
+                    case 4 -> out.setRGB(x, h - 1 - y, row[x]);
+                    case 5 -> out.setRGB(y, x, row[x]);
+                    case 6 -> out.setRGB(h - 1 - y, x, row[x]);
+                    case 7 -> out.setRGB(h - 1 - y, w - 1 - x, row[x]);
+                    default -> out.setRGB(y, w - 1 - x, row[x]);
+                }
+            }
+        }
+        return out;
+    }
+
+    /** Etiqueta Orientation (0x0112) del IFD0 del bloque APP1/Exif de un JPEG; 1 si no hay o no se entiende. */
+    static int exifOrientation(byte[] b) {
+        if (b.length < 4 || (b[0] & 0xFF) != 0xFF || (b[1] & 0xFF) != 0xD8) return 1;
+        int pos = 2;
+        while (pos + 4 <= b.length && (b[pos] & 0xFF) == 0xFF) {
+            int marker = b[pos + 1] & 0xFF;
+            int length = u16(b, pos + 2, false);
+            if (marker == 0xDA || length < 2) return 1; // inicio de los datos de imagen
+            int seg = pos + 4;
+            if (marker == 0xE1 && seg + 14 <= b.length
+                    && b[seg] == 'E' && b[seg + 1] == 'x' && b[seg + 2] == 'i' && b[seg + 3] == 'f') {
+                int tiff = seg + 6;
+                boolean little = b[tiff] == 'I';
+                long ifd = tiff + u32(b, tiff + 4, little);
+                if (ifd + 2 > b.length) return 1;
+                int entries = u16(b, (int) ifd, little);
+                for (int i = 0; i < entries; i++) {
+                    int e = (int) ifd + 2 + i * 12;
+                    if (e + 12 > b.length) return 1;
+                    if (u16(b, e, little) == 0x0112) {
+                        int v = u16(b, e + 8, little);
+                        return v >= 1 && v <= 8 ? v : 1;
+                    }
+                }
+                return 1;
+            }
+            pos += 2 + length;
+        }
+        return 1;
+    }
+
+    private static int u16(byte[] b, int i, boolean little) {
+        if (i + 2 > b.length) return 0;
+        return little ? (b[i] & 0xFF) | (b[i + 1] & 0xFF) << 8 : (b[i] & 0xFF) << 8 | (b[i + 1] & 0xFF);
+    }
+
+    private static long u32(byte[] b, int i, boolean little) {
+        if (i + 4 > b.length) return Long.MAX_VALUE / 2;
+        long hi = u16(b, little ? i + 2 : i, little);
+        long lo = u16(b, little ? i : i + 2, little);
+        return hi << 16 | lo;
+    }
+}
@@ -0,0 +1,77 @@
+package com.freshcut.util;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.Iterator;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * dHash de 64 bits: la imagen se reduce a 9x8 celdas de luminancia media y cada bit dice si una celda es más oscura
+ * que su vecina de la derecha. Recomprimir, reescalar o retocar levemente la foto cambia pocos bits; otra foto
+ * distinta cambia en torno a la mitad.
+ * <p>
+ * No decodifica la imagen completa: el lector devuelve una versión submuestreada de unos
+ * {@value #SAMPLE_W}x{@value #SAMPLE_H} píxeles y cada celda promedia varios de ellos.
+ */
+public final class PerceptualHash {
+    private static final int COLS = 9;
+    private static final int ROWS = 8;
+    // ~8x8 muestras por celda: suficiente para que el ruido de compresión se promedie
+    static final int SAMPLE_W = COLS * 8;
+    static final int SAMPLE_H = ROWS * 8;
+
+    private PerceptualHash() {}
+
+    public static long dHash(byte[] imageBytes) throws IOException {
+        try (ImageInputStream in = new ByteArrayImageInputStream(imageBytes)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) throw new IOException("Formato de imagen no reconocido");
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int w = reader.getWidth(0);
+                int h = reader.getHeight(0);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(Math.max(1, w / SAMPLE_W), Math.max(1, h / SAMPLE_H), 0, 0);
+                return dHash(reader.read(0, param));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    public static long dHash(BufferedImage img) {
+        int iw = img.getWidth();
+        int ih = img.getHeight();
+        // En una imagen ya grande se toma la misma rejilla de muestras que daría la lectura submuestreada
+        int stepX = Math.max(1, iw / SAMPLE_W);
+        int stepY = Math.max(1, ih / SAMPLE_H);
+        long[] sum = new long[COLS * ROWS];
+        int[] count = new int[COLS * ROWS];
+        for (int y = 0; y < ih; y += stepY) {
+            int row = y * ROWS / ih;
+            for (int x = 0; x < iw; x += stepX) {
+                int p = img.getRGB(x, y);
+                // Luminancia BT.601 en punto fijo 8.8
+                int luma = (77 * ((p >> 16) & 0xFF) + 150 * ((p >> 8) & 0xFF) + 29 * (p & 0xFF)) >> 8;
+                int cell = row * COLS + x * COLS / iw;
+                sum[cell] += luma;
+                count[cell]++;
+            }
+        }
+        long hash = 0L;
+        int bit = 0;
+        for (int row = 0; row < ROWS; row++) {
+            for (int col = 0; col < COLS - 1; col++) {
+                int a = row * COLS + col;
+                // media(a) < media(a+1) sin dividir; celdas vacías (imagen diminuta) cuentan como 0
+                if (sum[a] * Math.max(1, count[a + 1]) < sum[a + 1] * Math.max(1, count[a])) hash |= 1L << bit;
+                bit++;
+            }
+        }
+        return hash;
+    }
+}
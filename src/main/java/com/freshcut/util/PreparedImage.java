@@ -0,0 +1,56 @@
+package com.freshcut.util;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Foto subida ya decodificada una vez: imagen reducida (orientación EXIF aplicada) para los filtros locales y JPEG
+ * sin metadatos para el modelo. Guarda también las dimensiones y el tamaño originales, que es lo que validan los filtros.
+ * <p>
+ * Si ImageIO no sabe leer el formato (WEBP, HEIC...) se usa {@link #undecoded}: sin imagen para los filtros, y al
+ * modelo se le envían los bytes originales con su tipo MIME.
+ */
+public final class PreparedImage {
+    public static final String CONTENT_TYPE = "image/jpeg";
+
+    private final int sourceWidth;
+    private final int sourceHeight;
+    private final int sourceBytes;
+    private final BufferedImage image;
+    private final byte[] bytes;
+    private final String contentType;
+
+    PreparedImage(int sourceWidth, int sourceHeight, int sourceBytes, BufferedImage image, byte[] jpeg) {
+        this(sourceWidth, sourceHeight, sourceBytes, image, jpeg, CONTENT_TYPE);
+    }
+
+    private PreparedImage(int sourceWidth, int sourceHeight, int sourceBytes, BufferedImage image, byte[] bytes, String contentType) {
+        this.sourceWidth = sourceWidth;
+        this.sourceHeight = sourceHeight;
+        this.sourceBytes = sourceBytes;
+        this.image = image;
+        this.bytes = bytes;
+        this.contentType = contentType;
+    }
+
+    /** Foto en un formato que no se pudo decodificar: se conserva tal cual para enviarla al modelo. */
+    public static PreparedImage undecoded(byte[] original, String contentType) {
+        return new PreparedImage(0, 0, original.length, null, original, contentType);
+    }
+
+    public int sourceWidth() { return sourceWidth; }
+    public int sourceHeight() { return sourceHeight; }
+    public int sourceBytes() { return sourceBytes; }
+    public boolean isDecoded() { return image != null; }
+    /** Null si no se pudo decodificar. */
+    public BufferedImage image() { return image; }
+    /** Null si no se pudo decodificar. */
+    public byte[] jpeg() { return image != null ? bytes : null; }
+    /** Lo que se envía al modelo: el JPEG reducido o, si no se pudo decodificar, el original. */
+    public byte[] bytes() { return bytes; }
+    public String contentType() { return contentType; }
+
+    /** Los bytes a enviar como data URI para el cuerpo JSON, sin construir el String base64 intermedio. */
+    public Base64DataUri dataUri() {
+        return new Base64DataUri(contentType, bytes);
+    }
+}
@@ -0,0 +1,183 @@
+package com.freshcut.util;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Caché concurrente con la misma API que {@link LruCache} (get/put/clear), pensada para lecturas en paralelo.
+ * <ul>
+ *   <li>Las claves se reparten en segmentos; cada uno es un {@link ConcurrentHashMap}, así que {@code get} no toma candados.</li>
+ *   <li>La expulsión es LRU aproximada: con el segmento lleno se muestrean unas pocas entradas con un cursor circular
+ *       y se expulsa la de acceso más antiguo (las caducadas primero). Solo los {@code put} de un mismo segmento compiten.</li>
+ *   <li>El acceso solo se anota si cambió el milisegundo, para no ensuciar la línea de caché en cada lectura.</li>
+ * </ul>
+ * Aciertos, fallos y expulsiones se cuentan con {@link LongAdder}.
+ */
+public class ShardedLruCache<K, V> {
+    private static final int SAMPLE = 8;
+    private static final long TOUCH_GRANULARITY_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final class Node<V> {
+        final V value;
+        final long writtenAtNanos;
+        volatile long accessedAtNanos;
+        Node(V value, long now) { this.value = value; this.writtenAtNanos = now; this.accessedAtNanos = now; }
+    }
+
+    private static final class Segment<K, V> {
+        final ConcurrentHashMap<K, Node<V>> map = new ConcurrentHashMap<>();
+        final ReentrantLock evictionLock = new ReentrantLock();
+        final int capacity;
+        // Cursor de muestreo: recorre el mapa en círculo entre expulsiones (débilmente consistente, no lanza)
+        Iterator<Map.Entry<K, Node<V>>> cursor;
+
+        Segment(int capacity) { this.capacity = capacity; }
+
+        void evictIfNeeded(long now, long ttlNanos, LongAdder evictions) {
+            if (map.size() <= capacity) return;
+            evictionLock.lock();
+            try {
+                while (map.size() > capacity) {
+                    K victim = null;
+                    Node<V> victimNode = null;
+                    for (int i = 0; i < SAMPLE; i++) {
+                        if (cursor == null || !cursor.hasNext()) {
+                            cursor = map.entrySet().iterator();
+                            if (!cursor.hasNext()) return;
+                        }
+                        Map.Entry<K, Node<V>> e = cursor.next();
+                        Node<V> n = e.getValue();
+                        if (isExpired(n, now, ttlNanos)) {
+                            victim = e.getKey();
+                            victimNode = n;
+                            break;
+                        }
+                        if (victimNode == null || n.accessedAtNanos < victimNode.accessedAtNanos) {
+                            victim = e.getKey();
+                            victimNode = n;
+                        }
+                    }
+                    if (victim != null && map.remove(victim, victimNode)) evictions.increment();
+                }
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    private final Segment<K, V>[] segments;
+    private final int segmentMask;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ShardedLruCache(int maxSize, long ttlMs) {
+        this(maxSize, ttlMs, Runtime.getRuntime().availableProcessors() * 2);
+    }
+
+    @SuppressWarnings("unchecked")
+    public ShardedLruCache(int maxSize, long ttlMs, int concurrency) {
+        this.maxSize = Math.max(1, maxSize);
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, ttlMs));
+        // Potencia de dos, sin más segmentos que entradas (cada segmento necesita sitio para al menos una)
+        int n = Integer.highestOneBit(Math.max(1, Math.min(concurrency, this.maxSize)));
+        this.segments = new Segment[n];
+        int base = this.maxSize / n;
+        int extra = this.maxSize % n;
+        for (int i = 0; i < n; i++) segments[i] = new Segment<>(base + (i < extra ? 1 : 0));
+        this.segmentMask = n - 1;
+    }
+
+    public V get(K key) {
+        Segment<K, V> s = segmentFor(key);
+        Node<V> n = s.map.get(key);
+        if (n == null) {
+            misses.increment();
+            return null;
+        }
+        long now = System.nanoTime();
+        if (isExpired(n, now, ttlNanos)) {
+            s.map.remove(key, n);
+            misses.increment();
+            return null;
+        }
+        if (now - n.accessedAtNanos > TOUCH_GRANULARITY_NANOS) n.accessedAtNanos = now;
+        hits.increment();
+        return n.value;
+    }
+
+    public void put(K key, V value) {
+        Segment<K, V> s = segmentFor(key);
+        long now = System.nanoTime();
+        s.map.put(key, new Node<>(value, now));
+        s.evictIfNeeded(now, ttlNanos, evictions);
+    }
+
+    /** Como {@link #get}, pero si falta (o caducó) crea el valor; llamadas simultáneas reciben el mismo. */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> factory) {
+        Segment<K, V> s = segmentFor(key);
+        long now = System.nanoTime();
+        boolean[] created = new boolean[1];
+        Node<V> n = s.map.compute(key, (k, old) -> {
+            if (old != null && !isExpired(old, now, ttlNanos)) return old;
+            created[0] = true;
+            return new Node<>(factory.apply(k), now);
+        });
+        if (created[0]) {
+            misses.increment();
+            s.evictIfNeeded(now, ttlNanos, evictions);
+        } else {
+            if (now - n.accessedAtNanos > TOUCH_GRANULARITY_NANOS) n.accessedAtNanos = now;
+            hits.increment();
+        }
+        return n.value;
+    }
+
+    public void remove(K key) {
+        segmentFor(key).map.remove(key);
+    }
+
+    public void clear() {
+        for (Segment<K, V> s : segments) s.map.clear();
+    }
+
+    public int size() {
+        int total = 0;
+        for (Segment<K, V> s : segments) total += s.map.size();
+        return total;
+    }
+
+    public int maxSize() { return maxSize; }
+
+    public long hitCount() { return hits.sum(); }
+
+    public long missCount() { return misses.sum(); }
+
+    public long evictionCount() { return evictions.sum(); }
+
+    public double hitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    private static boolean isExpired(Node<?> n, long now, long ttlNanos) {
+        return ttlNanos > 0 && now - n.writtenAtNanos > ttlNanos;
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        int h = key.hashCode();
+        // Mezclar bits para que claves con hash parecido no caigan en el mismo segmento
+        h ^= (h >>> 16);
+        h *= 0x45d9f3b;
+        h ^= (h >>> 16);
+        return segments[h & segmentMask];
+    }
+}
@@ -0,0 +1,48 @@
+package com.freshcut.util;
+
+/**
+ * SimHash de 64 bits sobre pares de palabras consecutivas: textos que comparten casi todos sus pares quedan a pocos
+ * bits de distancia de Hamming. Espera texto ya normalizado (palabras separadas por un espacio).
+ * <p>
+ * En textos cortos (una pregunta de chat) cambiar una palabra mueve del orden de 5-10 bits.
+ */
+public final class SimHash {
+    private static final int SHINGLE_WORDS = 2;
+
+    private SimHash() {}
+
+    public static long of(String normalized) {
+        if (normalized == null || normalized.isEmpty()) return 0L;
+        String[] words = normalized.split(" ");
+        int[] weights = new int[64];
+        int shingles = Math.max(1, words.length - SHINGLE_WORDS + 1);
+        for (int i = 0; i < shingles; i++) {
+            long h = 0xcbf29ce484222325L; // FNV-1a 64
+            for (int w = i; w < Math.min(words.length, i + SHINGLE_WORDS); w++) {
+                String word = words[w];
+                for (int c = 0; c < word.length(); c++) {
+                    h ^= word.charAt(c);
+                    h *= 0x100000001b3L;
+                }
+                h ^= ' ';
+                h *= 0x100000001b3L;
+            }
+            h = mix(h);
+            for (int bit = 0; bit < 64; bit++) {
+                weights[bit] += ((h >>> bit) & 1L) != 0 ? 1 : -1;
+            }
+        }
+        long out = 0L;
+        for (int bit = 0; bit < 64; bit++) {
+            if (weights[bit] > 0) out |= 1L << bit;
+        }
+        return out;
+    }
+
+    // Finalizador de SplitMix64: FNV solo no reparte bien los bits altos en cadenas cortas
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,169 @@
+package com.freshcut.util;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Cuenta eventos por clave en una ventana deslizante con memoria fija y sin candados.
+ * <ul>
+ *   <li>Count-min: {@value #DEPTH} filas de {@code width} columnas; cada clave suma en una columna por fila y la
+ *       estimación es el mínimo de las filas. Las colisiones solo pueden sobrestimar, nunca dejar pasar de más.</li>
+ *   <li>La ventana se divide en {@code slots} tramos. Cada celda es un {@code long} con el número de tramo en los 32
+ *       bits altos y la cuenta en los bajos: al cambiar de tramo la primera escritura la reinicia con un CAS, sin
+ *       barrer la tabla. Al leer se suman los tramos que siguen dentro de la ventana.</li>
+ *   <li>Hash de la clave con semilla aleatoria por arranque: las colisiones no se pueden precalcular.</li>
+ * </ul>
+ * Memoria: {@code DEPTH * width * slots} longs en un único {@link AtomicLongArray}, tenga las claves que tenga.
+ */
+public final class SlidingWindowCounter implements WindowCounter {
+    private static final int DEPTH = 4;
+
+    private final AtomicLongArray cells;
+    private final int slots;
+    private final int mask;
+    private final long slotNanos;
+    private final long seed;
+    private final LongSupplier clock;
+
+    public SlidingWindowCounter(Duration window, int slots, int width, LongSupplier clock) {
+        this.slots = Math.max(2, slots);
+        int w = Integer.highestOneBit(Math.max(64, width));
+        if (w < width) w <<= 1;
+        this.mask = w - 1;
+        this.slotNanos = Math.max(1, window.toNanos() / this.slots);
+        this.seed = ThreadLocalRandom.current().nextLong();
+        this.clock = clock;
+        this.cells = new AtomicLongArray(DEPTH * w * this.slots);
+    }
+
+    /** Suma uno a la clave y devuelve su estimación en la ventana, contando este. */
+    @Override
+    public int increment(String key) {
+        int epoch = epoch(clock.getAsLong());
+        long h = hash(key);
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            int base = base(row, h);
+            add(base + Math.floorMod(epoch, slots), epoch);
+            estimate = Math.min(estimate, rowSum(base, epoch));
+        }
+        return estimate;
+    }
+
+    /** Resta uno en cada fila, del tramo más reciente que aún tenga cuenta (normalmente el del {@link #increment}). */
+    @Override
+    public void decrement(String key) {
+        int epoch = epoch(clock.getAsLong());
+        long h = hash(key);
+        for (int row = 0; row < DEPTH; row++) {
+            int base = base(row, h);
+            for (int age = 0; age < slots; age++) {
+                if (remove(base + Math.floorMod(epoch - age, slots), epoch - age)) break;
+            }
+        }
+    }
+
+    /** Estimación de la clave en la ventana, sin contar. */
+    @Override
+    public int estimate(String key) {
+        int epoch = epoch(clock.getAsLong());
+        long h = hash(key);
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, rowSum(base(row, h), epoch));
+        }
+        return estimate;
+    }
+
+    /** Nanosegundos hasta que salgan de la ventana suficientes tramos para que la estimación quede por debajo de {@code limit}. */
+    @Override
+    public long nanosUntilBelow(String key, int limit) {
+        long now = clock.getAsLong();
+        int epoch = epoch(now);
+        long h = hash(key);
+        // La fila del mínimo es la que manda
+        int best = 0;
+        int bestSum = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            int sum = rowSum(base(row, h), epoch);
+            if (sum < bestSum) {
+                bestSum = sum;
+                best = row;
+            }
+        }
+        int base = base(best, h);
+        long toNextSlot = slotNanos - Math.floorMod(now, slotNanos);
+        int remaining = bestSum;
+        if (remaining < limit) return 0;
+        // Del tramo más antiguo al actual: el de edad a sale de la ventana tras (slots - 1 - a) tramos más
+        for (int age = slots - 1; age >= 0; age--) {
+            remaining -= count(cells.get(base + Math.floorMod(epoch - age, slots)), epoch - age);
+            if (remaining < limit) return (slots - 1L - age) * slotNanos + toNextSlot;
+        }
+        return (slots - 1L) * slotNanos + toNextSlot;
+    }
+
+    private int epoch(long nanos) {
+        return (int) Math.floorDiv(nanos, slotNanos);
+    }
+
+    private int base(int row, long h) {
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32) | 1;
+        int col = (h1 + row * h2) & mask;
+        return ((row * (mask + 1)) + col) * slots;
+    }
+
+    private void add(int i, int epoch) {
+        while (true) {
+            long v = cells.get(i);
+            long next;
+            if ((int) (v >>> 32) == epoch) {
+                if ((int) v == Integer.MAX_VALUE) return;
+                next = v + 1;
+            } else {
+                next = ((long) epoch << 32) | 1L;
+            }
+            if (cells.compareAndSet(i, v, next)) return;
+        }
+    }
+
+    private boolean remove(int i, int epoch) {
+        while (true) {
+            long v = cells.get(i);
+            if (count(v, epoch) <= 0) return false;
+            if (cells.compareAndSet(i, v, v - 1)) return true;
+        }
+    }
+
+    private int rowSum(int base, int epoch) {
+        long sum = 0;
+        for (int s = 0; s < slots; s++) {
+            long v = cells.get(base + s);
+            int age = epoch - (int) (v >>> 32);
+            if (age >= 0 && age < slots) sum += (int) v;
+        }
+        return (int) Math.min(Integer.MAX_VALUE, sum);
+    }
+
+    // Cuenta de la celda si pertenece al tramo indicado (si no, es de una vuelta anterior)
+    private static int count(long v, int epoch) {
+        return (int) (v >>> 32) == epoch ? (int) v : 0;
+    }
+
+    private long hash(String key) {
+        long h = seed;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,16 @@
+package com.freshcut.util;
+
+/** Cuenta eventos por clave en una ventana deslizante. */
+public interface WindowCounter {
+    /** Suma uno a la clave y devuelve su cuenta en la ventana, contando este. */
+    int increment(String key);
+
+    /** Devuelve un evento contado con {@link #increment}: lo resta del tramo más reciente que aún tenga cuenta. */
+    void decrement(String key);
+
+    /** Cuenta de la clave en la ventana, sin contar. */
+    int estimate(String key);
+
+    /** Nanosegundos hasta que salgan de la ventana suficientes eventos para que la cuenta quede por debajo de {@code limit}. */
+    long nanosUntilBelow(String key, int limit);
+}
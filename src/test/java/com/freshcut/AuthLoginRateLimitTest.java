@@ -0,0 +1,107 @@
+package com.freshcut;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.freshcut.controller.AuthController;
+import com.freshcut.controller.GlobalExceptionHandler;
+import com.freshcut.dto.AuthDtos.AuthResponse;
+import com.freshcut.security.JwtService;
+import com.freshcut.service.AuthRateLimiter;
+import com.freshcut.service.AuthService;
+import com.freshcut.service.TooManyRequestsException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/** Límite de login de extremo a extremo en el controlador: cuentan los intentos fallidos y los que siguen en curso. */
+class AuthLoginRateLimitTest {
+    private final AuthService authService = mock(AuthService.class);
+    private final List<CompletableFuture<AuthResponse>> pending = new ArrayList<>();
+    private final MockMvc mvc;
+
+    AuthLoginRateLimitTest() {
+        // Límite por IP desactivado (0) para ver solo el del email: 3 fallos cada 15 min
+        AuthRateLimiter limiter = new AuthRateLimiter(new SimpleMeterRegistry(), 0, 60, 3, 900, 1000, 20, 60, 1024);
+        mvc = MockMvcBuilders.standaloneSetup(new AuthController(authService, mock(JwtService.class), limiter))
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+        when(authService.login(any())).thenAnswer(inv -> CompletableFuture.completedFuture(new AuthResponse("", "c@x.com", "")));
+        when(authService.login(argThat(r -> r != null && "buena".equals(r.getPassword()))))
+                .thenAnswer(inv -> CompletableFuture.completedFuture(new AuthResponse("token", "c@x.com", "USER")));
+        // BCrypt aún sin responder
+        when(authService.login(argThat(r -> r != null && "lenta".equals(r.getPassword()))))
+                .thenAnswer(inv -> {
+                    CompletableFuture<AuthResponse> f = new CompletableFuture<>();
+                    pending.add(f);
+                    return f;
+                });
+        // Pool de BCrypt lleno
+        when(authService.login(argThat(r -> r != null && "saturado".equals(r.getPassword()))))
+                .thenAnswer(inv -> CompletableFuture.failedFuture(new TooManyRequestsException("Demasiados inicios de sesión a la vez", 1)));
+    }
+
+    private MvcResult login(String password) throws Exception {
+        return mvc.perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"c@x.com\",\"password\":\"" + password + "\"}")).andReturn();
+    }
+
+    @Test
+    void successfulLoginsAreNotThrottled() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            mvc.perform(asyncDispatch(login("buena"))).andExpect(status().isOk());
+        }
+    }
+
+    @Test
+    void failedLoginsAreThrottledPerEmail() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            mvc.perform(asyncDispatch(login("mala"))).andExpect(status().isOk());
+        }
+        mvc.perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"c@x.com\",\"password\":\"buena\"}"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"));
+    }
+
+    @Test
+    void attemptsStillRunningCountSoABurstCannotOutrunTheLimit() throws Exception {
+        // Ráfaga antes de que llegue ningún resultado de BCrypt: solo 3 llegan a comprobar la contraseña
+        int throttled = 0;
+        for (int i = 0; i < 20; i++) {
+            if (login("lenta").getResponse().getStatus() == 429) throttled++;
+        }
+        assertEquals(17, throttled);
+        verify(authService, times(3)).login(any());
+
+        pending.forEach(f -> f.complete(new AuthResponse("", "c@x.com", "")));
+        assertEquals(429, login("buena").getResponse().getStatus());
+    }
+
+    @Test
+    void hasherRejectionsCountAsFailures() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            mvc.perform(asyncDispatch(login("saturado"))).andExpect(status().isTooManyRequests());
+        }
+        assertEquals(429, login("buena").getResponse().getStatus());
+        verify(authService, times(3)).login(any());
+    }
+}
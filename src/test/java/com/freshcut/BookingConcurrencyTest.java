@@ -0,0 +1,272 @@
+package com.freshcut;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.freshcut.controller.BookingController;
+import com.freshcut.db.model.Barber;
+import com.freshcut.db.model.Booking;
+import com.freshcut.db.model.BookingSlot;
+import com.freshcut.db.model.Schedule;
+import com.freshcut.db.model.ServiceItem;
+import com.freshcut.db.repository.BarberRepository;
+import com.freshcut.db.repository.BookingRepository;
+import com.freshcut.db.repository.BookingSlotRepository;
+import com.freshcut.db.repository.ScheduleRepository;
+import com.freshcut.db.repository.ServiceItemRepository;
+import com.freshcut.dto.BookingRequest;
+import com.freshcut.service.BookingIndex;
+import com.freshcut.service.BookingService;
+import com.freshcut.service.CatalogService;
+import com.freshcut.service.SlotReservationService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Miles de POST /api/bookings en paralelo para el mismo horario, repartidos entre dos "nodos"
+ * (servicios con candados e índices propios) que comparten el almacenamiento: exactamente uno gana.
+ * Los repositorios son dobles en memoria; el de tramos imita el índice único de Mongo.
+ */
+class BookingConcurrencyTest {
+    private static final int REQUESTS = 2000;
+    private static final String BARBER = "Barbero Demo";
+
+    private final List<Booking> bookings = new CopyOnWriteArrayList<>();
+    private final Map<String, BookingSlot> slotsByKey = new ConcurrentHashMap<>();
+
+    private BookingRepository bookingRepo;
+    private BookingSlotRepository slotRepo;
+    private BarberRepository barberRepo;
+    private ServiceItemRepository serviceRepo;
+    private ScheduleRepository scheduleRepo;
+    private LocalDateTime slotStart;
+    private final List<CatalogService> catalogs = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        slotStart = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY)).atTime(10, 0);
+
+        Barber barber = new Barber();
+        barber.setId("b1");
+        barber.setName(BARBER);
+        barberRepo = mock(BarberRepository.class);
+        when(barberRepo.findAll()).thenReturn(List.of(barber));
+
+        ServiceItem service = new ServiceItem();
+        service.setName("Corte clásico");
+        service.setDurationMinutes(30);
+        service.setPriceCents(1500);
+        // Duración que no es múltiplo del tramo de 5 minutos
+        ServiceItem odd = new ServiceItem();
+        odd.setName("Corte y barba");
+        odd.setDurationMinutes(32);
+        odd.setPriceCents(2200);
+        serviceRepo = mock(ServiceItemRepository.class);
+        when(serviceRepo.findAll()).thenReturn(List.of(service, odd));
+
+        Schedule window = new Schedule();
+        window.setBarberId("b1");
+        window.setDayOfWeek(DayOfWeek.MONDAY);
+        window.setStartTime(LocalTime.of(9, 0));
+        window.setEndTime(LocalTime.of(18, 0));
+        scheduleRepo = mock(ScheduleRepository.class);
+        when(scheduleRepo.findByBarberId("b1")).thenReturn(List.of(window));
+
+        bookingRepo = mock(BookingRepository.class);
+        when(bookingRepo.findOverlapping(anyString(), any(), any())).thenAnswer(inv -> {
+            String barberName = inv.getArgument(0);
+            LocalDateTime end = inv.getArgument(1);
+            LocalDateTime start = inv.getArgument(2);
+            return bookings.stream()
+                    .filter(b -> b.getBarber().equals(barberName) && !"CANCELLED".equals(b.getStatus()))
+                    .filter(b -> b.getStartTime().isBefore(end) && b.getEndTime().isAfter(start))
+                    .toList();
+        });
+        when(bookingRepo.findById(anyString())).thenAnswer(inv -> bookings.stream()
+                .filter(b -> b.getId().equals(inv.getArgument(0))).findFirst());
+        when(bookingRepo.save(any(Booking.class))).thenAnswer(inv -> {
+            Booking b = inv.getArgument(0);
+            bookings.removeIf(x -> x.getId().equals(b.getId()));
+            bookings.add(b);
+            return b;
+        });
+
+        slotRepo = mock(BookingSlotRepository.class);
+        when(slotRepo.findByBookingId(anyString())).thenAnswer(inv -> slotsByKey.values().stream()
+                .filter(s -> s.getBookingId().equals(inv.getArgument(0))).toList());
+        when(slotRepo.insert(anyList())).thenAnswer(inv -> {
+            List<BookingSlot> batch = inv.getArgument(0);
+            for (BookingSlot s : batch) {
+                if (slotsByKey.putIfAbsent(s.getBarber() + "|" + s.getSlot(), s) != null) {
+                    throw new DuplicateKeyException("E11000 duplicate key barber_slot_unique");
+                }
+            }
+            return batch;
+        });
+        doAnswer(inv -> {
+            Iterable<String> ids = inv.getArgument(0);
+            List<String> list = new ArrayList<>();
+            ids.forEach(list::add);
+            slotsByKey.values().removeIf(s -> list.contains(s.getId()));
+            return null;
+        }).when(slotRepo).deleteAllById(any());
+        doAnswer(inv -> {
+            String bookingId = inv.getArgument(0);
+            Collection<String> keep = inv.getArgument(1);
+            slotsByKey.values().removeIf(s -> s.getBookingId().equals(bookingId) && !keep.contains(s.getId()));
+            return null;
+        }).when(slotRepo).deleteByBookingIdAndIdNotIn(anyString(), anyCollection());
+        doAnswer(inv -> {
+            slotsByKey.values().removeIf(s -> s.getBookingId().equals(inv.getArgument(0)));
+            return null;
+        }).when(slotRepo).deleteByBookingId(anyString());
+        when(slotRepo.confirmByBookingId(anyString(), any())).thenAnswer(inv -> {
+            slotsByKey.values().stream().filter(s -> s.getBookingId().equals(inv.getArgument(0)))
+                    .forEach(s -> s.setExpireAt(inv.getArgument(1)));
+            return 1L;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        catalogs.forEach(CatalogService::shutdown);
+    }
+
+    private MockMvc node() {
+        return MockMvcBuilders.standaloneSetup(new BookingController(service(), null)).build();
+    }
+
+    private BookingService service() {
+        BookingIndex index = new BookingIndex(bookingRepo, scheduleRepo);
+        index.refreshSchedules("b1");
+        CatalogService catalog = new CatalogService(barberRepo, serviceRepo, 120_000);
+        catalogs.add(catalog);
+        return new BookingService(bookingRepo, catalog, index, new SlotReservationService(slotRepo));
+    }
+
+    @Test
+    void parallelRequestsForSameSlotHaveExactlyOneWinner() throws Exception {
+        MockMvc[] nodes = { node(), node() };
+        String body = "{\"clientName\":\"c@x.com\",\"barber\":\"" + BARBER + "\",\"service\":\"Corte clásico\","
+                + "\"startTime\":\"" + slotStart + "\",\"endTime\":\"" + slotStart.plusMinutes(30) + "\"}";
+
+        ExecutorService pool = Executors.newFixedThreadPool(64);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            MockMvc mvc = nodes[i % nodes.length];
+            results.add(pool.submit(() -> {
+                go.await();
+                return mvc.perform(post("/api/bookings").contentType(MediaType.APPLICATION_JSON).content(body))
+                        .andReturn().getResponse().getStatus();
+            }));
+        }
+        go.countDown();
+        int created = 0;
+        for (Future<Integer> f : results) {
+            if (f.get(60, TimeUnit.SECONDS) == 201) created++;
+        }
+        pool.shutdown();
+
+        assertEquals(1, created, "solo una petición debe reservar el horario");
+        assertEquals(1, bookings.size());
+        assertEquals(6, slotsByKey.size(), "30 minutos = 6 tramos de 5 minutos");
+    }
+
+    @Test
+    void backToBackBookingsDoNotShareSlotsAndConfirmedSlotsExpire() throws Exception {
+        MockMvc mvc = node();
+
+        assertEquals(201, book(mvc, "Corte y barba", slotStart).getStatus());
+        // Termina a las 10:32: empezar justo ahí no cae en límite de tramo y se rechaza con un mensaje claro
+        String unaligned = book(mvc, "Corte y barba", slotStart.plusMinutes(32))
+                .getContentAsString(java.nio.charset.StandardCharsets.UTF_8);
+        assertTrue(unaligned.contains("múltiplo de 5 minutos"), unaligned);
+        // El siguiente inicio que ofrece la disponibilidad (10:35) no choca con el tramo de las 10:30
+        assertEquals(201, book(mvc, "Corte y barba", slotStart.plusMinutes(35)).getStatus());
+
+        assertEquals(2, bookings.size());
+        assertEquals(14, slotsByKey.size(), "7 tramos por reserva");
+        java.time.Instant firstEnd = slotStart.plusMinutes(32).atZone(java.time.ZoneId.systemDefault()).toInstant();
+        assertTrue(slotsByKey.values().stream().allMatch(s -> s.getExpireAt() != null && s.getExpireAt().isAfter(firstEnd)),
+                "los tramos confirmados caducan tras el fin de la reserva");
+    }
+
+    private org.springframework.mock.web.MockHttpServletResponse book(MockMvc mvc, String service, LocalDateTime start) throws Exception {
+        String body = "{\"clientName\":\"c@x.com\",\"barber\":\"" + BARBER + "\",\"service\":\"" + service + "\","
+                + "\"startTime\":\"" + start + "\"}";
+        return mvc.perform(post("/api/bookings").contentType(MediaType.APPLICATION_JSON).content(body)).andReturn().getResponse();
+    }
+
+    @Test
+    void cancelledBookingCannotBeEditedBackIntoTheSlots() {
+        BookingService service = service();
+        BookingRequest req = new BookingRequest();
+        req.setClientName("c@x.com");
+        req.setBarber(BARBER);
+        req.setService("Corte clásico");
+        req.setStartTime(slotStart);
+        Booking booking = service.create(req);
+        service.cancel(booking.getId());
+        assertEquals(0, slotsByKey.size());
+
+        req.setStartTime(slotStart.plusHours(1));
+        assertThrows(IllegalStateException.class, () -> service.update(booking.getId(), req));
+
+        assertEquals("CANCELLED", bookings.get(0).getStatus());
+        assertEquals(0, slotsByKey.size(), "no quedan tramos confirmados de una reserva cancelada");
+    }
+
+    @Test
+    void scheduleEditedOnAnotherNodeIsEnforcedAtCommit() throws Exception {
+        MockMvc mvc = node();
+        // Otro nodo recorta el horario a las tardes; este aún tiene en memoria el de 9 a 18
+        Schedule afternoons = new Schedule();
+        afternoons.setBarberId("b1");
+        afternoons.setDayOfWeek(DayOfWeek.MONDAY);
+        afternoons.setStartTime(LocalTime.of(14, 0));
+        afternoons.setEndTime(LocalTime.of(18, 0));
+        when(scheduleRepo.findByBarberId("b1")).thenReturn(List.of(afternoons));
+        String body = "{\"clientName\":\"c@x.com\",\"barber\":\"" + BARBER + "\",\"service\":\"Corte clásico\","
+                + "\"startTime\":\"" + slotStart + "\"}";
+
+        String response = mvc.perform(post("/api/bookings").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andReturn().getResponse().getContentAsString();
+
+        assertTrue(response.contains("no encaja en la disponibilidad"), response);
+        assertEquals(0, bookings.size());
+        assertEquals(0, slotsByKey.size(), "los tramos reclamados se liberan");
+    }
+}
@@ -0,0 +1,134 @@
+package com.freshcut;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+
+import com.freshcut.db.model.Booking;
+import com.freshcut.db.model.BookingSlot;
+import com.freshcut.db.repository.BookingRepository;
+import com.freshcut.db.repository.BookingSlotRepository;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Regresión de planes de consulta: cada consulta de reservas debe resolverse con un índice.
+ * Se explica el comando {@code find} que emite de verdad cada método del repositorio (capturado con un
+ * {@link CommandListener}), así un cambio en un {@code @Query} o en un método derivado rompe el test.
+ * Se ejecuta contra el Mongo local de MONGODB_URI, en una base de datos desechable.
+ */
+@DataMongoTest(properties = "spring.data.mongodb.database=freshcut_query_plan_test")
+@EnabledIfEnvironmentVariable(named = "MONGODB_URI", matches = "mongodb.*")
+class BookingQueryPlanTest {
+    private static final List<BsonDocument> FINDS = new CopyOnWriteArrayList<>();
+
+    @TestConfiguration
+    static class CaptureFinds {
+        @Bean
+        MongoClientSettingsBuilderCustomizer captureFindCommands() {
+            return settings -> settings.addCommandListener(new CommandListener() {
+                @Override
+                public void commandStarted(CommandStartedEvent event) {
+                    if ("find".equals(event.getCommandName())) FINDS.add(event.getCommand().clone());
+                }
+            });
+        }
+    }
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private BookingSlotRepository slotRepository;
+
+    private final LocalDateTime now = LocalDateTime.now();
+    private final LocalDateTime later = now.plusHours(1);
+
+    @BeforeEach
+    void createCollectionsAndIndexes() {
+        MongoPersistentEntityIndexResolver resolver = new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext());
+        for (Class<?> type : new Class<?>[] { Booking.class, BookingSlot.class }) {
+            IndexOperations ops = mongoTemplate.indexOps(type);
+            resolver.resolveIndexFor(type).forEach(ops::ensureIndex);
+        }
+        Booking b = new Booking("c@x.com", "Barbero Demo", "Corte clásico", now, now.plusMinutes(30), 1500);
+        mongoTemplate.insert(b);
+    }
+
+    @AfterEach
+    void dropDatabase() {
+        mongoTemplate.getDb().drop();
+    }
+
+    @Test
+    void findOverlappingUsesIndex() {
+        assertNoCollScan(issuedFind(() -> bookingRepository.findOverlapping("Barbero Demo", later, now)));
+    }
+
+    @Test
+    void findActiveInRangeUsesIndex() {
+        assertNoCollScan(issuedFind(() -> bookingRepository.findActiveInRange("Barbero Demo", now, later.plusDays(7))));
+    }
+
+    @Test
+    void findByBarberUsesIndex() {
+        assertNoCollScan(issuedFind(() -> bookingRepository.findByBarber("Barbero Demo")));
+    }
+
+    @Test
+    void findByClientNameUsesIndex() {
+        assertNoCollScan(issuedFind(() -> bookingRepository.findByClientName("c@x.com")));
+    }
+
+    @Test
+    void warmUpQueryUsesIndex() {
+        // La misma llamada que BookingIndex.warm()
+        assertNoCollScan(issuedFind(() -> bookingRepository.findByStatusNotAndEndTimeAfter("CANCELLED", now)));
+    }
+
+    @Test
+    void slotLookupByBookingUsesIndex() {
+        assertNoCollScan(issuedFind(() -> slotRepository.findByBookingId("abc")));
+    }
+
+    // Ejecuta la llamada y devuelve el único find que mandó a Mongo
+    private static BsonDocument issuedFind(Runnable call) {
+        FINDS.clear();
+        call.run();
+        assertEquals(1, FINDS.size(), "se esperaba un único find: " + FINDS);
+        return FINDS.get(0);
+    }
+
+    private void assertNoCollScan(BsonDocument find) {
+        // Solo la forma de la consulta: sin sesión, $db ni demás campos que añade el driver
+        BsonDocument query = new BsonDocument();
+        for (String key : List.of("find", "filter", "sort", "projection", "limit", "skip")) {
+            if (find.containsKey(key)) query.put(key, find.get(key));
+        }
+        Document explain = mongoTemplate.getDb().runCommand(new BsonDocument("explain", query)
+                .append("verbosity", new BsonString("queryPlanner")));
+        Document winningPlan = explain.get("queryPlanner", Document.class).get("winningPlan", Document.class);
+        assertFalse(winningPlan.toJson().contains("\"COLLSCAN\""),
+                "COLLSCAN con " + query.toJson() + ": " + winningPlan.toJson());
+    }
+}
@@ -0,0 +1,122 @@
+package com.freshcut;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+
+import com.freshcut.db.model.ChatLog;
+import com.freshcut.dto.ChatDtos.ChatSummary;
+import com.freshcut.dto.CursorPage;
+import com.freshcut.service.ChatHistoryService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Historial de chats: las consultas usan índice y la paginación por cursor recorre todos los chats guardados
+ * una sola vez, del más reciente al más antiguo. Contra el Mongo local de MONGODB_URI, en una base desechable.
+ */
+@DataMongoTest(properties = "spring.data.mongodb.database=freshcut_chat_history_test")
+@EnabledIfEnvironmentVariable(named = "MONGODB_URI", matches = "mongodb.*")
+class ChatHistoryQueryPlanTest {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private final Instant base = Instant.parse("2026-01-01T10:00:00Z");
+
+    @BeforeEach
+    void createCollectionAndIndexes() {
+        IndexOperations ops = mongoTemplate.indexOps(ChatLog.class);
+        new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext())
+                .resolveIndexFor(ChatLog.class).forEach(ops::ensureIndex);
+        for (int i = 0; i < 25; i++) {
+            // Pares de chats con la misma fecha: el desempate por _id no debe perder ni repetir ninguno
+            mongoTemplate.insert(log("c@x.com", true, base.plusSeconds(i / 2), "pregunta " + i));
+        }
+        mongoTemplate.insert(log("c@x.com", false, base.plusSeconds(100), "sin guardar"));
+        mongoTemplate.insert(log("otro@x.com", true, base.plusSeconds(100), "de otro"));
+    }
+
+    @AfterEach
+    void dropDatabase() {
+        mongoTemplate.getDb().drop();
+    }
+
+    @Test
+    void historyPageUsesIndex() {
+        assertNoCollScan(new Document("email", "c@x.com").append("saved", true)
+                .append("createdAt", new Document("$lt", Date.from(base.plusSeconds(5)))),
+                new Document("createdAt", -1).append("_id", -1));
+    }
+
+    @Test
+    void latestChatLookupUsesIndex() {
+        assertNoCollScan(new Document("email", "c@x.com"), new Document("createdAt", -1));
+    }
+
+    @Test
+    void cursorWalksEverySavedChatOnce() {
+        ChatHistoryService history = new ChatHistoryService(mongoTemplate);
+        List<String> seen = new ArrayList<>();
+        String after = null;
+        Instant previous = Instant.MAX;
+        do {
+            CursorPage<ChatSummary> page = history.page("c@x.com", after, 4);
+            assertTrue(page.getItems().size() <= 4);
+            for (ChatSummary s : page.getItems()) {
+                assertFalse(s.getCreatedAt().isAfter(previous), "más recientes primero");
+                assertTrue(s.getFirstMessage().startsWith("pregunta "));
+                previous = s.getCreatedAt();
+                seen.add(s.getId());
+            }
+            after = page.getNextCursor();
+        } while (after != null);
+
+        assertEquals(25, seen.size());
+        assertEquals(25, seen.stream().distinct().count());
+        ChatLog full = history.find("c@x.com", seen.get(0)).orElseThrow();
+        assertEquals(2, full.getMessages().size(), "el detalle trae todos los mensajes");
+        assertTrue(history.find("otro@x.com", seen.get(0)).isEmpty());
+        assertNull(history.page("nadie@x.com", null, null).getNextCursor());
+    }
+
+    private static ChatLog log(String email, boolean saved, Instant createdAt, String question) {
+        ChatLog.Msg user = new ChatLog.Msg();
+        user.setRole("user");
+        user.setContent(question);
+        ChatLog.Msg assistant = new ChatLog.Msg();
+        assistant.setRole("assistant");
+        assistant.setContent("respuesta anterior");
+        ChatLog l = new ChatLog();
+        l.setEmail(email);
+        l.setSaved(saved);
+        l.setCreatedAt(createdAt);
+        l.setMessages(List.of(user, assistant));
+        l.setReply("Te recomiendo un fade");
+        return l;
+    }
+
+    private void assertNoCollScan(Document filter, Document sort) {
+        Document explain = mongoTemplate.getDb().runCommand(new Document("explain", new Document("find", "chat_logs").append("filter", filter)
+                        .append("sort", sort))
+                .append("verbosity", "queryPlanner"));
+        Document winningPlan = explain.get("queryPlanner", Document.class).get("winningPlan", Document.class);
+        assertFalse(winningPlan.toJson().contains("\"COLLSCAN\""), "COLLSCAN en chat_logs con filtro " + filter.toJson() + ": " + winningPlan.toJson());
+        assertFalse(winningPlan.toJson().contains("\"SORT\""), "orden en memoria en chat_logs: " + winningPlan.toJson());
+    }
+}
@@ -0,0 +1,64 @@
+package com.freshcut.security;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JwtServiceTest {
+    private static final String SECRET = "test-secret-test-secret-test-secret-test-secret";
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private double requests(String result) {
+        return registry.get("jwt.cache.requests").tag("result", result).counter().count();
+    }
+
+    @Test
+    void verifiedTokenIsServedFromCache() {
+        JwtService jwt = new JwtService(SECRET, 60_000, 100, registry);
+        String token = jwt.generate("c@x.com", Map.of("role", "CLIENT"));
+
+        Claims first = jwt.parse(token);
+        Claims second = jwt.parse(token);
+
+        assertSame(first, second, "la segunda vez no se vuelve a verificar");
+        assertEquals("c@x.com", second.getSubject());
+        assertEquals("CLIENT", second.get("role"));
+        assertEquals(1.0, requests("miss"));
+        assertEquals(1.0, requests("hit"));
+    }
+
+    @Test
+    void cachedTokenIsRejectedOnceExpired() throws Exception {
+        JwtService jwt = new JwtService(SECRET, 1_500, 100, registry);
+        String token = jwt.generate("c@x.com", Map.of("role", "CLIENT"));
+        jwt.parse(token);
+
+        // exp tiene precisión de segundos: esperar a que pase con margen
+        Thread.sleep(2_600);
+
+        assertThrows(ExpiredJwtException.class, () -> jwt.parse(token));
+    }
+
+    @Test
+    void tamperedOrForeignTokensAreNotAccepted() {
+        JwtService jwt = new JwtService(SECRET, 60_000, 100, registry);
+        String token = jwt.generate("c@x.com", Map.of("role", "CLIENT"));
+        jwt.parse(token);
+
+        String forged = new JwtService("otro-secreto-otro-secreto-otro-secreto-otro", 60_000)
+                .generate("c@x.com", Map.of("role", "ADMIN"));
+        assertThrows(JwtException.class, () -> jwt.parse(forged));
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+        assertThrows(JwtException.class, () -> jwt.parse(tampered));
+    }
+}
@@ -0,0 +1,122 @@
+package com.freshcut.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AiRequestSchedulerTest {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void bucketIsPerClientAndRefillsOverTime() {
+        // 2 fichas, 60 por minuto = una por segundo
+        AiRequestScheduler scheduler = new AiRequestScheduler(registry, 4, 4, 2, 60, now::get);
+
+        scheduler.admit("user:a@x.com");
+        scheduler.admit("user:a@x.com");
+        TooManyRequestsException ex = assertThrows(TooManyRequestsException.class, () -> scheduler.admit("user:a@x.com"));
+        assertEquals(1, ex.getRetryAfterSeconds());
+        scheduler.admit("ip:10.0.0.1");
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        scheduler.admit("user:a@x.com");
+        assertEquals(1.0, registry.get("ai.scheduler.rejected").tag("reason", "rate_limited").counter().count());
+    }
+
+    @Test
+    void capsConcurrencyAndShedsBeyondQueue() throws Exception {
+        AiRequestScheduler scheduler = new AiRequestScheduler(registry, 1, 1, 100, 100, now::get);
+        CompletableFuture<String> first = new CompletableFuture<>();
+        CompletableFuture<String> second = new CompletableFuture<>();
+        int[] started = new int[1];
+
+        CompletableFuture<String> a = scheduler.schedule(() -> { started[0]++; return first; });
+        CompletableFuture<String> b = scheduler.schedule(() -> { started[0]++; return second; });
+        CompletableFuture<String> c = scheduler.schedule(() -> { started[0]++; return CompletableFuture.completedFuture("c"); });
+
+        assertEquals(1, started[0], "solo una en vuelo");
+        assertEquals(1.0, registry.get("ai.scheduler.queue-depth").gauge().value());
+        ExecutionException rejected = assertThrows(ExecutionException.class, () -> c.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(TooManyRequestsException.class, rejected.getCause());
+        assertThrows(TooManyRequestsException.class, () -> scheduler.admit("user:b@x.com"), "cola llena: 429 sin esperar");
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(250));
+        first.complete("a");
+        assertEquals("a", a.get(1, TimeUnit.SECONDS));
+        assertEquals(2, started[0], "al terminar la primera arranca la encolada");
+        assertFalse(b.isDone());
+        second.complete("b");
+        assertEquals("b", b.get(1, TimeUnit.SECONDS));
+
+        assertEquals(2, registry.get("ai.scheduler.wait").timer().count());
+        assertTrue(registry.get("ai.scheduler.wait").timer().max(TimeUnit.MILLISECONDS) >= 250);
+        assertEquals(0.0, registry.get("ai.scheduler.in-flight").gauge().value());
+    }
+
+    @Test
+    void callerGetsItsResultBeforeTheNextQueuedCallStarts() throws Exception {
+        AiRequestScheduler scheduler = new AiRequestScheduler(registry, 1, 4, 100, 100, now::get);
+        CompletableFuture<String> first = new CompletableFuture<>();
+        CompletableFuture<String> a = scheduler.schedule(() -> first);
+        boolean[] aDoneWhenBStarted = new boolean[1];
+        CompletableFuture<String> b = scheduler.schedule(() -> {
+            aDoneWhenBStarted[0] = a.isDone();
+            return CompletableFuture.completedFuture("b");
+        });
+
+        first.complete("a");
+
+        assertEquals("b", b.get(1, TimeUnit.SECONDS));
+        assertTrue(aDoneWhenBStarted[0]);
+    }
+
+    @Test
+    void callsThatFailSynchronouslyDoNotNestTheDrain() throws Exception {
+        AiRequestScheduler scheduler = new AiRequestScheduler(registry, 1, 10_000, 100, 100, now::get);
+        CompletableFuture<String> first = new CompletableFuture<>();
+        scheduler.schedule(() -> first);
+        int[] depth = { Integer.MAX_VALUE, 0 };
+        List<CompletableFuture<String>> failing = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            failing.add(scheduler.schedule(() -> {
+                int d = Thread.currentThread().getStackTrace().length;
+                depth[0] = Math.min(depth[0], d);
+                depth[1] = Math.max(depth[1], d);
+                throw new IllegalStateException("fallo inmediato");
+            }));
+        }
+
+        first.complete("a");
+
+        for (CompletableFuture<String> f : failing) assertTrue(f.isCompletedExceptionally());
+        // Todas arrancan a la misma profundidad de pila: la cola se vacía en un bucle, no por recursión
+        assertEquals(depth[0], depth[1]);
+        assertEquals(0.0, registry.get("ai.scheduler.in-flight").gauge().value());
+    }
+
+    @Test
+    void idleBucketsArePruned() {
+        AiRequestScheduler scheduler = new AiRequestScheduler(registry, 4, 4, 2, 60, now::get);
+        scheduler.admit("ip:10.0.0.1");
+        scheduler.admit("ip:10.0.0.2");
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        scheduler.pruneIdleBuckets();
+
+        assertEquals(0, scheduler.trackedClients());
+    }
+}
@@ -0,0 +1,86 @@
+package com.freshcut.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+
+import com.freshcut.config.AiKeywordsProperties;
+import com.freshcut.dto.ChatDtos.ChatRequest;
+import com.freshcut.dto.ChatDtos.Message;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class AiResponseCacheTest {
+    private static KeywordMatcher keywords;
+    private SimpleMeterRegistry registry;
+    private AiResponseCache cache;
+
+    @BeforeAll
+    static void load() throws IOException {
+        Properties props = PropertiesLoaderUtils.loadAllProperties("application.properties");
+        keywords = new KeywordMatcher(new Binder(new MapConfigurationPropertySource(props))
+                .bind("ai.keywords", AiKeywordsProperties.class).get());
+    }
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        cache = new AiResponseCache(keywords, registry, true, 100, 60_000, true, 10);
+    }
+
+    @Test
+    void exactKeyIgnoresCaseAccentsAndPunctuation() {
+        cache.put(cache.keyFor(request("oval", "¿Qué corte me queda bien con barba?")), "1. Fade medio");
+
+        assertEquals("1. Fade medio", cache.get(cache.keyFor(request("Oval", "que corte me queda bien con barba"))));
+        assertEquals(1.0, count("exact"));
+    }
+
+    @Test
+    void faceDescriptionIsPartOfTheKey() {
+        cache.put(cache.keyFor(request("cara redonda", "¿Qué corte me queda bien?")), "1. Quiff");
+
+        assertNull(cache.get(cache.keyFor(request("cara alargada", "¿Qué corte me queda bien?"))));
+        assertEquals(1.0, count("miss"));
+    }
+
+    @Test
+    void nearDuplicateNeedsSameTerms() {
+        String base = "Tengo la frente amplia y la cara ovalada, llevo el pelo corto por los lados y largo arriba, "
+                + "quiero un corte moderno para el trabajo que me quede bien";
+        cache.put(cache.keyFor(request(null, base)), "1. Crop");
+
+        // Una palabra de relleno distinta: mismo SimHash (o casi) y mismos términos
+        assertEquals("1. Crop", cache.get(cache.keyFor(request(null, base.replace("moderno", "actual")))));
+        assertEquals(1.0, count("near"));
+        // Cambia un término del dominio: no vale aunque el texto sea casi igual
+        assertNull(cache.get(cache.keyFor(request(null, base.replace("ovalada", "cuadrada")))));
+    }
+
+    private double count(String result) {
+        return registry.get("ai.cache.requests").tag("result", result).counter().count();
+    }
+
+    private static ChatRequest request(String face, String text) {
+        Message m = new Message();
+        m.setRole("user");
+        m.setContent(text);
+        List<Message> messages = new ArrayList<>();
+        messages.add(m);
+        ChatRequest req = new ChatRequest();
+        req.setMessages(messages);
+        req.setFaceDescription(face);
+        return req;
+    }
+}
@@ -0,0 +1,81 @@
+package com.freshcut.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.freshcut.config.AiKeywordsProperties;
+import com.freshcut.util.PreparedImage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AiServicePhotoTest {
+    // Cabecera RIFF/WEBP válida: ImageIO del JDK no trae lector de WEBP
+    private static final byte[] WEBP = webp();
+
+    private final GroqClient groq = mock(GroqClient.class);
+    private final AtomicReference<Map<String, Object>> sent = new AtomicReference<>();
+    private AiService ai;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Properties props = PropertiesLoaderUtils.loadAllProperties("application.properties");
+        KeywordMatcher keywords = new KeywordMatcher(new Binder(new MapConfigurationPropertySource(props))
+                .bind("ai.keywords", AiKeywordsProperties.class).get());
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ai = new AiService(groq, "subsampled", keywords,
+                new AiResponseCache(keywords, registry, true, 100, 60_000, true, 10),
+                new PhotoRecommendationCache(registry, true, 100, 60_000, 6), 1024, 0.85f);
+        when(groq.isConfigured()).thenReturn(true);
+        when(groq.complete(any())).thenAnswer(inv -> {
+            sent.set(inv.getArgument(0));
+            return CompletableFuture.completedFuture("1. Fade medio\n2. Quiff\n3. Crop texturizado");
+        });
+    }
+
+    @Test
+    void formatImageIoCannotReadIsSentAsTheOriginal() throws Exception {
+        PreparedImage image = ai.prepareImage(WEBP, "image/webp");
+
+        assertFalse(image.isDecoded());
+        assertFalse(ai.isLikelyFacePhoto(image), "sin decodificar no hay filtro de rostro que lo confirme");
+        assertEquals("1. Fade medio\n2. Quiff\n3. Crop texturizado", ai.recommendFromPhoto(image, null).get().getReply());
+        String json = new ObjectMapper().writeValueAsString(sent.get());
+        assertTrue(json.contains("\"data:image/webp;base64," + Base64.getEncoder().encodeToString(WEBP) + "\""), json);
+    }
+
+    @Test
+    void nonImagesAndUnsafeTypesAreStillRejected() {
+        assertNull(ai.prepareImage(WEBP, "application/octet-stream"));
+        assertNull(ai.prepareImage(WEBP, null));
+        assertNull(ai.prepareImage(WEBP, "image/\"webp"));
+        assertEquals("image/webp", ai.prepareImage(WEBP, "image/WEBP; q=1").contentType());
+    }
+
+    private static byte[] webp() {
+        byte[] data = new byte[6000];
+        byte[] header = "RIFF\0\0\0\0WEBPVP8 ".getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(header, 0, data, 0, header.length);
+        for (int i = header.length; i < data.length; i++) data[i] = (byte) (i * 31);
+        return data;
+    }
+}
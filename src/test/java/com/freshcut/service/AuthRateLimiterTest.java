@@ -0,0 +1,98 @@
+package com.freshcut.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AuthRateLimiterTest {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AtomicLong now = new AtomicLong();
+
+    // IP: 5 fallos por minuto; email: 3 fallos cada 15 min (hasta 1000 cuentas); exists: 2 por minuto
+    private final AuthRateLimiter limiter = new AuthRateLimiter(registry, 5, 60, 3, 900, 1000, 2, 60, 1024, now::get);
+
+    // Intento que no se devuelve: un fallo
+    private void fail(String email, String ip) {
+        limiter.acquireLogin(email, ip);
+    }
+
+    private void succeed(String email, String ip) {
+        limiter.acquireLogin(email, ip);
+        limiter.refundLogin(email, ip);
+    }
+
+    @Test
+    void limitsFailedLoginsPerEmailAcrossIps() {
+        for (int i = 0; i < 3; i++) fail(" C@x.com", "10.0.0." + i);
+        TooManyRequestsException ex = assertThrows(TooManyRequestsException.class,
+                () -> limiter.acquireLogin("c@x.com", "10.0.0.9"));
+        assertEquals(900, ex.getRetryAfterSeconds());
+        succeed("otra@x.com", "10.0.0.9");
+        assertEquals(1.0, registry.get("auth.rate-limit.rejected").tag("endpoint", "login").tag("key", "email").counter().count());
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(900));
+        succeed("c@x.com", "10.0.0.9");
+    }
+
+    @Test
+    void successfulLoginsAreNeverThrottled() {
+        for (int i = 0; i < 50; i++) succeed("c@x.com", "10.0.0.1");
+        assertEquals(0.0, registry.get("auth.rate-limit.rejected").tag("endpoint", "login").tag("key", "ip").counter().count());
+    }
+
+    @Test
+    void rejectedAttemptsDoNotExtendTheBlock() {
+        for (int i = 0; i < 3; i++) fail("c@x.com", "10.0.0." + i);
+        // Un bucle que insiste mientras está bloqueado no alarga el bloqueo
+        for (int i = 0; i < 20; i++) {
+            assertThrows(TooManyRequestsException.class, () -> limiter.acquireLogin("c@x.com", "10.0.0.9"));
+            now.addAndGet(TimeUnit.SECONDS.toNanos(30));
+        }
+        now.addAndGet(TimeUnit.SECONDS.toNanos(300));
+        succeed("c@x.com", "10.0.0.9");
+    }
+
+    @Test
+    void limitsFailedLoginsPerIpBeforeCountingTheEmail() {
+        for (int i = 0; i < 5; i++) fail("u" + i + "@x.com", "10.0.0.1");
+        assertThrows(TooManyRequestsException.class, () -> limiter.acquireLogin("victima@x.com", "10.0.0.1"));
+        assertEquals(1.0, registry.get("auth.rate-limit.rejected").tag("endpoint", "login").tag("key", "ip").counter().count());
+        // El intento frenado por IP no gastó el cupo del email
+        for (int i = 0; i < 3; i++) fail("victima@x.com", "10.0.0." + (10 + i));
+    }
+
+    @Test
+    void emailCountsAreExactSoOtherAccountsNeverCollide() {
+        // Muchas más cuentas que columnas tiene el sketch de IP: ninguna hereda fallos de otra
+        for (int i = 0; i < 900; i++) {
+            for (int f = 0; f < 2; f++) fail("u" + i + "@x.com", null);
+        }
+        for (int i = 0; i < 900; i++) succeed("u" + i + "@x.com", null);
+        succeed("victima@x.com", null);
+    }
+
+    @Test
+    void attemptsInFlightHoldTheirSlot() {
+        // Tres intentos reservados cuyo resultado aún no ha llegado: el cuarto ya no pasa
+        for (int i = 0; i < 3; i++) limiter.acquireLogin("c@x.com", "10.0.0." + i);
+        assertThrows(TooManyRequestsException.class, () -> limiter.acquireLogin("c@x.com", "10.0.0.9"));
+        // Uno de ellos entra bien y devuelve su hueco
+        limiter.refundLogin("c@x.com", "10.0.0.0");
+        limiter.acquireLogin("c@x.com", "10.0.0.9");
+    }
+
+    @Test
+    void limitsExistsPerIp() {
+        limiter.checkExists("10.0.0.1");
+        limiter.checkExists("10.0.0.1");
+        assertThrows(TooManyRequestsException.class, () -> limiter.checkExists("10.0.0.1"));
+        limiter.checkExists("10.0.0.2");
+        assertEquals(1.0, registry.get("auth.rate-limit.rejected").tag("endpoint", "exists").counter().count());
+    }
+}
@@ -0,0 +1,126 @@
+package com.freshcut.service;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.bson.Document;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import com.freshcut.db.model.PasswordScheme;
+import com.freshcut.db.model.Role;
+import com.freshcut.db.model.User;
+import com.freshcut.db.repository.BarberRepository;
+import com.freshcut.db.repository.UserRepository;
+import com.freshcut.dto.AuthDtos.AuthResponse;
+import com.freshcut.dto.AuthDtos.LoginRequest;
+import com.freshcut.security.JwtService;
+import com.freshcut.util.CredentialUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AuthServiceTest {
+    private static final String PASSWORD = "Secreta#2024";
+
+    private final UserRepository users = mock(UserRepository.class);
+    private final MongoTemplate mongo = mock(MongoTemplate.class);
+    private final AtomicInteger matchesCalls = new AtomicInteger();
+    private final User user = new User();
+    private PasswordHasher hasher;
+
+    AuthServiceTest() {
+        user.setId("u1");
+        user.setEmail("c@x.com");
+        user.setRole(Role.USER);
+        when(users.findByEmail("c@x.com")).thenReturn(Optional.of(user));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (hasher != null) hasher.shutdown();
+    }
+
+    // BCrypt al coste indicado, contando cuántas comprobaciones hace el login
+    private AuthService service(int cost) {
+        BCryptPasswordEncoder counting = new BCryptPasswordEncoder(cost) {
+            @Override
+            public boolean matches(CharSequence raw, String encoded) {
+                matchesCalls.incrementAndGet();
+                return super.matches(raw, encoded);
+            }
+        };
+        hasher = new PasswordHasher(counting, new SimpleMeterRegistry(), 1, 8);
+        JwtService jwt = new JwtService("test-secret-test-secret-test-secret-test-secret", 60_000);
+        return new AuthService(users, hasher, jwt, mock(BarberRepository.class), mongo);
+    }
+
+    private static LoginRequest login(String password) {
+        LoginRequest req = new LoginRequest();
+        req.setEmail("c@x.com");
+        req.setPassword(password);
+        return req;
+    }
+
+    @Test
+    void knownSchemeChecksOnce() {
+        user.setPasswordHash(new BCryptPasswordEncoder(4).encode(CredentialUtils.sha256Hex(PASSWORD)));
+        user.setPasswordScheme(PasswordScheme.BCRYPT_SHA256);
+        AuthService auth = service(4);
+
+        AuthResponse ok = auth.login(login(PASSWORD)).join();
+        assertFalse(ok.getToken().isBlank());
+        assertEquals(1, matchesCalls.get());
+
+        AuthResponse wrong = auth.login(login("otra")).join();
+        assertTrue(wrong.getToken().isBlank());
+        assertEquals(2, matchesCalls.get(), "una contraseña incorrecta tampoco prueba variantes");
+        verify(mongo, after(200).never()).updateFirst(any(Query.class), any(Update.class), eq(User.class));
+    }
+
+    @Test
+    void legacyPlainHashIsRehashedAsSha256() {
+        user.setPasswordHash(new BCryptPasswordEncoder(4).encode(PASSWORD));
+        AuthService auth = service(4);
+
+        assertFalse(auth.login(login(PASSWORD)).join().getToken().isBlank());
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongo, timeout(2_000)).updateFirst(any(Query.class), update.capture(), eq(User.class));
+        var set = update.getValue().getUpdateObject().get("$set", Document.class);
+        assertEquals(PasswordScheme.BCRYPT_SHA256, set.get("passwordScheme"));
+        assertTrue(new BCryptPasswordEncoder(4).matches(CredentialUtils.sha256Hex(PASSWORD), set.getString("passwordHash")));
+    }
+
+    @Test
+    void lowCostHashIsRehashedAtConfiguredCost() {
+        user.setPasswordHash(new BCryptPasswordEncoder(4).encode(CredentialUtils.sha256Hex(PASSWORD)));
+        user.setPasswordScheme(PasswordScheme.BCRYPT_SHA256);
+        AuthService auth = service(5);
+
+        assertFalse(auth.login(login(PASSWORD)).join().getToken().isBlank());
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongo, timeout(2_000)).updateFirst(any(Query.class), update.capture(), eq(User.class));
+        String rehashed = update.getValue().getUpdateObject().get("$set", Document.class).getString("passwordHash");
+        assertTrue(rehashed.startsWith("$2a$05$"), rehashed);
+        assertEquals(1, matchesCalls.get());
+        verify(users, never()).save(any(User.class));
+    }
+}
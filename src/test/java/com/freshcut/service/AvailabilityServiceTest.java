@@ -0,0 +1,51 @@
+package com.freshcut.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AvailabilityServiceTest {
+    private static final LocalDateTime DAY = LocalDateTime.of(2030, 1, 7, 0, 0);
+
+    private static LocalDateTime at(int h, int m) { return DAY.withHour(h).withMinute(m); }
+
+    private static List<LocalDateTime[]> spans(LocalDateTime... bounds) {
+        List<LocalDateTime[]> out = new ArrayList<>();
+        for (int i = 0; i < bounds.length; i += 2) out.add(new LocalDateTime[] { bounds[i], bounds[i + 1] });
+        return out;
+    }
+
+    @Test
+    void sweepSkipsBookingsAndRespectsDuration() {
+        List<LocalDateTime[]> windows = spans(at(9, 0), at(11, 0));
+        List<LocalDateTime[]> busy = spans(at(9, 30), at(10, 15));
+
+        List<LocalDateTime> starts = AvailabilityService.freeStarts(windows, busy, DAY, DAY.plusDays(1), 30, 15);
+
+        assertEquals(List.of(at(9, 0), at(10, 15), at(10, 30)), starts);
+    }
+
+    @Test
+    void overlappingWindowsMergeAndRangeClipsResults() {
+        List<LocalDateTime[]> windows = spans(at(9, 0), at(10, 0), at(9, 30), at(11, 0));
+
+        List<LocalDateTime> starts = AvailabilityService.freeStarts(windows, List.of(), at(9, 50), at(10, 50), 45, 15);
+
+        assertEquals(List.of(at(10, 0)), starts);
+    }
+
+    @Test
+    void rangeLimitCountsPartialDays() {
+        AvailabilityService service = new AvailabilityService(null, null, null);
+        // 31 días y 23 horas: antes pasaba porque toDays() trunca
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> service.availability("b1", DAY, DAY.plusDays(31).plusHours(23), "Corte", null));
+        assertTrue(ex.getMessage().startsWith("Rango demasiado amplio"));
+    }
+}
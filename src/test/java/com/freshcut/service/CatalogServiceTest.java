@@ -0,0 +1,85 @@
+package com.freshcut.service;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.freshcut.db.model.Barber;
+import com.freshcut.db.repository.BarberRepository;
+import com.freshcut.db.repository.ServiceItemRepository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CatalogServiceTest {
+    private final BarberRepository barberRepo = mock(BarberRepository.class);
+    private final ServiceItemRepository serviceRepo = mock(ServiceItemRepository.class);
+    private final CatalogService catalog = new CatalogService(barberRepo, serviceRepo, 120_000);
+
+    @AfterEach
+    void shutdown() {
+        catalog.shutdown();
+    }
+
+    private static Barber barber(String name) {
+        Barber b = new Barber();
+        b.setId(name);
+        b.setName(name);
+        return b;
+    }
+
+    @Test
+    void invalidationDuringLoadIsNotAnsweredWithTheStaleLoad() throws Exception {
+        CountDownLatch firstLoadStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstLoad = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        when(serviceRepo.findAll()).thenReturn(List.of());
+        when(barberRepo.findAll()).thenAnswer(inv -> {
+            if (calls.incrementAndGet() == 1) {
+                // La primera carga leyó Mongo antes de la escritura
+                firstLoadStarted.countDown();
+                releaseFirstLoad.await(5, TimeUnit.SECONDS);
+                return List.of(barber("Antes"));
+            }
+            return List.of(barber("Después"));
+        });
+
+        catalog.warm();
+        assertTrue(firstLoadStarted.await(5, TimeUnit.SECONDS));
+        catalog.invalidate();
+        CompletableFuture<List<Barber>> read = CompletableFuture.supplyAsync(catalog::listActiveBarbers);
+        releaseFirstLoad.countDown();
+
+        List<Barber> barbers = read.get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("Después"), barbers.stream().map(Barber::getName).toList());
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void concurrentReadsShareOneLoad() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        when(serviceRepo.findAll()).thenReturn(List.of());
+        when(barberRepo.findAll()).thenAnswer(inv -> {
+            calls.incrementAndGet();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of(barber("Ana"));
+        });
+
+        List<CompletableFuture<List<Barber>>> reads = List.of(
+                CompletableFuture.supplyAsync(catalog::listActiveBarbers),
+                CompletableFuture.supplyAsync(catalog::listActiveBarbers),
+                CompletableFuture.supplyAsync(catalog::listActiveBarbers));
+        release.countDown();
+
+        for (CompletableFuture<List<Barber>> r : reads) assertEquals(1, r.get(5, TimeUnit.SECONDS).size());
+        assertEquals(1, calls.get());
+    }
+}
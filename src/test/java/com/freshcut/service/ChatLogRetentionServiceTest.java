@@ -0,0 +1,146 @@
+package com.freshcut.service;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.freshcut.db.model.ChatLog;
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ChatLogRetentionServiceTest {
+    private final MongoTemplate mongo = mock(MongoTemplate.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final LocalDate day = LocalDate.now(ZoneOffset.UTC).minusDays(10);
+
+    @TempDir
+    Path dir;
+
+    private ChatLogRetentionService service() {
+        return new ChatLogRetentionService(mongo, new ObjectMapper().findAndRegisterModules(), registry,
+                dir.toString(), 7, 30, 60_000);
+    }
+
+    // Lease libre: el findAndModify con upsert devuelve el documento con el dueño que se acaba de escribir
+    @BeforeEach
+    void leaseIsFree() {
+        when(mongo.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Document.class),
+                eq(ChatLogRetentionService.LEASE_COLLECTION)))
+                .thenAnswer(inv -> new Document("owner", inv.getArgument(1, Update.class).getUpdateObject()
+                        .get("$set", Document.class).getString("owner")));
+        when(mongo.updateFirst(any(Query.class), any(Update.class), eq(ChatLogRetentionService.LEASE_COLLECTION)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+    }
+
+    private ChatLog log(String reply) {
+        ChatLog l = new ChatLog();
+        l.setId(new ObjectId().toHexString());
+        l.setEmail("c@x.com");
+        l.setReply(reply);
+        l.setCreatedAt(day.atTime(12, 0).toInstant(ZoneOffset.UTC));
+        return l;
+    }
+
+    @Test
+    void archivesOldUnsavedLogsToGzipNdjsonThenDeletesThem() throws Exception {
+        ChatLog a = log("fade");
+        ChatLog b = log("tupé");
+        when(mongo.findOne(any(Query.class), eq(ChatLog.class))).thenReturn(a, (ChatLog) null);
+        when(mongo.stream(any(Query.class), eq(ChatLog.class))).thenReturn(Stream.of(a, b));
+        when(mongo.remove(any(Query.class), eq(ChatLog.class))).thenReturn(DeleteResult.acknowledged(2));
+
+        ChatLogRetentionService.ArchiveRun run = service().archiveOldLogs();
+
+        assertEquals(List.of("chat_logs-" + day + ".ndjson.gz"), run.files());
+        assertEquals(2, run.archived());
+        assertEquals(2, run.deleted());
+        List<String> lines;
+        try (BufferedReader r = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(dir.resolve(run.files().get(0)))), StandardCharsets.UTF_8))) {
+            lines = r.lines().toList();
+        }
+        assertEquals(2, lines.size(), "un log por línea");
+        assertTrue(lines.get(1).contains("tupé"));
+
+        // El borrado vuelve a exigir saved=false: lo guardado durante el archivado se queda
+        ArgumentCaptor<Query> removed = ArgumentCaptor.forClass(Query.class);
+        verify(mongo).remove(removed.capture(), eq(ChatLog.class));
+        assertEquals(false, removed.getValue().getQueryObject().get("saved"));
+        assertEquals(2.0, registry.get("chatlog.retention.archived").counter().count());
+    }
+
+    @Test
+    void doesNotOverwriteAnExistingArchiveForTheSameDay() throws Exception {
+        Files.writeString(dir.resolve("chat_logs-" + day + ".ndjson.gz"), "anterior");
+        ChatLog a = log("fade");
+        when(mongo.findOne(any(Query.class), eq(ChatLog.class))).thenReturn(a, (ChatLog) null);
+        when(mongo.stream(any(Query.class), eq(ChatLog.class))).thenReturn(Stream.of(a));
+        when(mongo.remove(any(Query.class), eq(ChatLog.class))).thenReturn(DeleteResult.acknowledged(1));
+
+        ChatLogRetentionService.ArchiveRun run = service().archiveOldLogs();
+
+        assertEquals(List.of("chat_logs-" + day + "-2.ndjson.gz"), run.files());
+        assertEquals("anterior", Files.readString(dir.resolve("chat_logs-" + day + ".ndjson.gz")));
+    }
+
+    @Test
+    void nothingOldEnoughLeavesTheCollectionAlone() throws Exception {
+        when(mongo.findOne(any(Query.class), eq(ChatLog.class))).thenReturn(null);
+
+        ChatLogRetentionService.ArchiveRun run = service().archiveOldLogs();
+
+        assertEquals(0, run.archived());
+        verify(mongo, never()).remove(any(Query.class), eq(ChatLog.class));
+        try (var files = Files.list(dir)) {
+            assertFalse(files.findAny().isPresent());
+        }
+    }
+
+    @Test
+    void anotherInstanceHoldingTheLeaseSkipsTheRun() throws Exception {
+        when(mongo.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Document.class),
+                eq(ChatLogRetentionService.LEASE_COLLECTION)))
+                .thenThrow(new DuplicateKeyException("E11000 duplicate key"));
+        ChatLogRetentionService service = service();
+
+        service.scheduledArchive();
+        assertThrows(IllegalStateException.class, service::archiveOldLogs);
+
+        verify(mongo, never()).findOne(any(Query.class), eq(ChatLog.class));
+        verify(mongo, never()).remove(any(Query.class), eq(ChatLog.class));
+    }
+}
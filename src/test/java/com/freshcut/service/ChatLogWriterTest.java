@@ -0,0 +1,159 @@
+package com.freshcut.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import com.freshcut.db.model.ChatLog;
+import com.freshcut.db.repository.ChatLogRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ChatLogWriterTest {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final MongoTemplate mongo = mock(MongoTemplate.class);
+    private final BulkOperations bulk = mock(BulkOperations.class);
+    private final ChatLogRepository repository = mock(ChatLogRepository.class);
+    // Tamaño de cada lote recibido por el insert masivo
+    private final List<Integer> batches = new CopyOnWriteArrayList<>();
+    private final List<ChatLog> stored = new CopyOnWriteArrayList<>();
+    private ChatLogWriter writer;
+
+    ChatLogWriterTest() {
+        when(mongo.bulkOps(eq(BulkMode.UNORDERED), eq(ChatLog.class))).thenReturn(bulk);
+        when(bulk.insert(anyList())).thenAnswer(inv -> {
+            List<ChatLog> batch = inv.getArgument(0);
+            batches.add(batch.size());
+            stored.addAll(batch);
+            return bulk;
+        });
+        when(repository.findTopByEmailOrderByCreatedAtDesc(anyString())).thenReturn(Optional.empty());
+        when(repository.save(any(ChatLog.class))).thenAnswer(inv -> inv.getArgument(0));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (writer != null) writer.shutdown();
+    }
+
+    private ChatLogWriter writer(int capacity, int batchSize, long flushMs) {
+        writer = new ChatLogWriter(mongo, repository, registry, capacity, batchSize, flushMs, 5, 30);
+        return writer;
+    }
+
+    private static ChatLog log(String email, Instant createdAt) {
+        ChatLog l = new ChatLog();
+        l.setEmail(email);
+        l.setReply("Te recomiendo un fade");
+        l.setCreatedAt(createdAt);
+        return l;
+    }
+
+    @Test
+    void writesInBatchesAndFlushesOnShutdown() {
+        ChatLogWriter w = writer(1000, 50, 200);
+        for (int i = 0; i < 120; i++) {
+            ChatLog l = log("c@x.com", Instant.now());
+            assertTrue(w.submit(l));
+            assertNotNull(l.getId(), "el id se asigna al encolar");
+            assertEquals(l.getCreatedAt().plus(Duration.ofDays(30)), l.getExpireAt());
+        }
+        w.shutdown();
+
+        assertEquals(120, stored.size(), "al parar se escribe todo lo pendiente");
+        assertTrue(batches.stream().allMatch(n -> n <= 50));
+        assertTrue(batches.size() < 120, "varios logs por inserción");
+        assertEquals(120.0, registry.get("chatlog.writer.written").counter().count());
+        assertEquals(0.0, registry.get("chatlog.writer.dropped").counter().count());
+    }
+
+    @Test
+    void dropsAndCountsWhenQueueStaysFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch inFlight = new CountDownLatch(1);
+        when(bulk.execute()).thenAnswer(inv -> {
+            inFlight.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return null;
+        });
+        ChatLogWriter w = writer(2, 1, 1);
+        assertTrue(w.submit(log("c@x.com", Instant.now())));
+        assertTrue(inFlight.await(5, TimeUnit.SECONDS));
+        // El escritor está bloqueado en Mongo: caben dos más en la cola y el resto se descarta
+        List<Boolean> results = new ArrayList<>();
+        for (int i = 0; i < 5; i++) results.add(w.submit(log("c@x.com", Instant.now())));
+        release.countDown();
+
+        assertEquals(List.of(true, true, false, false, false), results);
+        assertEquals(3.0, registry.get("chatlog.writer.dropped").counter().count());
+    }
+
+    @Test
+    void latestReadsThroughPendingLogs() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(bulk.execute()).thenAnswer(inv -> {
+            release.await(10, TimeUnit.SECONDS);
+            return null;
+        });
+        Instant now = Instant.now();
+        when(repository.findTopByEmailOrderByCreatedAtDesc("c@x.com"))
+                .thenReturn(Optional.of(log("c@x.com", now.minusSeconds(60))));
+        ChatLogWriter w = writer(100, 10, 1000);
+        ChatLog fresh = log("c@x.com", now);
+        w.submit(fresh);
+        w.submit(log("otro@x.com", now.plusSeconds(1)));
+
+        assertSame(fresh, w.latest("c@x.com").orElseThrow(), "el pendiente es más reciente que el de Mongo");
+        release.countDown();
+    }
+
+    @Test
+    void markSavedUpsertsAndLeavesTheQueue() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch inFlight = new CountDownLatch(1);
+        when(bulk.execute()).thenAnswer(inv -> {
+            inFlight.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return null;
+        });
+        ChatLogWriter w = writer(100, 1, 1);
+        w.submit(log("c@x.com", Instant.now()));
+        assertTrue(inFlight.await(5, TimeUnit.SECONDS));
+        // Sigue en la cola mientras el escritor está ocupado con el primero
+        ChatLog l = log("c@x.com", Instant.now());
+        w.submit(l);
+        w.markSaved(l);
+        release.countDown();
+        w.shutdown();
+
+        assertTrue(l.isSaved());
+        assertNull(l.getExpireAt(), "los guardados no caducan");
+        verify(repository).save(l);
+        assertFalse(stored.contains(l), "ya no se inserta con el lote");
+    }
+}
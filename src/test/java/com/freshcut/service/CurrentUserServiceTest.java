@@ -0,0 +1,94 @@
+package com.freshcut.service;
+
+import java.util.Optional;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+
+import com.freshcut.db.model.Barber;
+import com.freshcut.db.model.User;
+import com.freshcut.db.repository.BarberRepository;
+import com.freshcut.db.repository.UserRepository;
+import com.freshcut.security.CurrentUser;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CurrentUserServiceTest {
+    private final UserRepository users = mock(UserRepository.class);
+    private final BarberRepository barbers = mock(BarberRepository.class);
+    private final User user = new User();
+    private final Barber barber = new Barber();
+
+    CurrentUserServiceTest() {
+        user.setId("u1");
+        user.setEmail("barbero@x.com");
+        user.setBarberId("b1");
+        barber.setId("b1");
+        barber.setName("Barbero Demo");
+        when(users.findByEmail("barbero@x.com")).thenReturn(Optional.of(user));
+        when(barbers.findById("b1")).thenReturn(Optional.of(barber));
+    }
+
+    private CurrentUserService service(long ttlMs) {
+        return new CurrentUserService(users, barbers, new SimpleMeterRegistry(), 100, ttlMs);
+    }
+
+    @Test
+    void loadsUserAndBarberOnceWhileCached() {
+        CurrentUserService service = service(60_000);
+
+        CurrentUser first = service.load("barbero@x.com");
+        CurrentUser second = service.load("barbero@x.com");
+
+        assertSame(first, second);
+        assertEquals("Barbero Demo", second.barber().getName());
+        assertEquals("b1", second.barberId());
+        verify(users, times(1)).findByEmail("barbero@x.com");
+        verify(barbers, times(1)).findById("b1");
+    }
+
+    @Test
+    void writesThroughSpringDataInvalidateTheCache() {
+        CurrentUserService service = service(60_000);
+        CurrentUserInvalidationListener listener = new CurrentUserInvalidationListener(service);
+
+        service.load("barbero@x.com");
+        listener.onAfterSave(new AfterSaveEvent<>(user, new Document(), "users"));
+        service.load("barbero@x.com");
+        listener.onAfterSave(new AfterSaveEvent<>(barber, new Document(), "barbers"));
+        service.load("barbero@x.com");
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        AfterDeleteEvent<Object> deleted = new AfterDeleteEvent(new Document("_id", "u2"), User.class, "users");
+        listener.onAfterDelete(deleted);
+        service.load("barbero@x.com");
+
+        verify(users, times(4)).findByEmail("barbero@x.com");
+    }
+
+    @Test
+    void zeroTtlDisablesTheCacheAndMissingUsersFail() {
+        CurrentUserService service = service(0);
+        service.load("barbero@x.com");
+        service.load("barbero@x.com");
+        verify(users, times(2)).findByEmail("barbero@x.com");
+
+        when(users.findByEmail("nadie@x.com")).thenReturn(Optional.empty());
+        assertThrows(IllegalStateException.class, () -> service.load("nadie@x.com"));
+
+        User client = new User();
+        client.setEmail("c@x.com");
+        when(users.findByEmail("c@x.com")).thenReturn(Optional.of(client));
+        assertNull(service.load("c@x.com").barber(), "sin barberId no hay ficha de barbero");
+    }
+}
@@ -0,0 +1,158 @@
+package com.freshcut.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Groq simulado con el HttpServer del JDK: el estado HTTP de la respuesta se cambia desde cada test. */
+class GroqCircuitBreakerTest {
+    private static final Map<String, Object> BODY = Map.of("model", "m", "messages", List.of());
+
+    private HttpServer server;
+    private final AtomicInteger status = new AtomicInteger(503);
+    private final AtomicInteger delayMs = new AtomicInteger();
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicLong now = new AtomicLong();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private GroqCircuitBreaker breaker;
+    private GroqClient client;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(4));
+        server.createContext("/v1/chat/completions", exchange -> {
+            hits.incrementAndGet();
+            exchange.getRequestBody().readAllBytes();
+            try {
+                Thread.sleep(delayMs.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = "{\"choices\":[{\"message\":{\"content\":\"1. Crop\"}}]}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status.get(), body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        breaker = new GroqCircuitBreaker(registry, 4, 4, 0.5, 1_000, 100, 5_000, now::get);
+        client = new GroqClient(new ObjectMapper(), "test-key",
+                "http://127.0.0.1:" + server.getAddress().getPort() + "/v1",
+                new AiRequestScheduler(new SimpleMeterRegistry(), 4, 16, 100, 100), breaker);
+    }
+
+    @AfterEach
+    void stop() {
+        server.stop(0);
+    }
+
+    @Test
+    void opensOnFailuresFailsFastAndClosesAfterProbe() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            assertThrows(ExecutionException.class, () -> client.complete(BODY).get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(GroqCircuitBreaker.State.OPEN, breaker.state());
+
+        long t0 = System.nanoTime();
+        CompletableFuture<String> rejected = client.complete(BODY);
+        long elapsed = System.nanoTime() - t0;
+        assertTrue(rejected.isDone(), "sin esperar a la red");
+        assertTrue(elapsed < TimeUnit.MILLISECONDS.toNanos(50), elapsed + " ns");
+        ExecutionException ex = assertThrows(ExecutionException.class, rejected::get);
+        assertInstanceOf(GroqCircuitBreaker.OpenException.class, ex.getCause());
+        assertEquals(4, hits.get(), "la llamada rechazada no llega a Groq");
+
+        // Pasado open-ms: una sola prueba; mientras está en vuelo, el resto se sigue rechazando
+        status.set(200);
+        delayMs.set(200);
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1_000));
+        CompletableFuture<String> probe = client.complete(BODY);
+        assertTrue(client.complete(BODY).isCompletedExceptionally());
+        assertEquals("1. Crop", probe.get(5, TimeUnit.SECONDS));
+
+        assertEquals(GroqCircuitBreaker.State.CLOSED, breaker.state());
+        assertEquals(0.0, registry.get("groq.circuit.state").gauge().value());
+        assertEquals(2.0, registry.get("groq.calls").tag("outcome", "rejected").counter().count());
+        assertEquals(4.0, registry.get("groq.calls").tag("outcome", "failure").counter().count());
+    }
+
+    @Test
+    void clientErrorsDoNotTrip() {
+        status.set(400);
+        for (int i = 0; i < 6; i++) {
+            assertThrows(ExecutionException.class, () -> client.complete(BODY).get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(GroqCircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void timeoutFollowsObservedP99WithinBounds() {
+        assertEquals(Duration.ofSeconds(5), breaker.timeout(), "sin muestras: el máximo");
+
+        for (int i = 0; i < 20; i++) {
+            breaker.tryAcquire();
+            breaker.onSuccess(TimeUnit.MILLISECONDS.toNanos(i == 19 ? 400 : 150));
+        }
+        assertEquals(Duration.ofMillis(800), breaker.timeout(), "2 x p99");
+
+        GroqCircuitBreaker fast = new GroqCircuitBreaker(new SimpleMeterRegistry(), 4, 4, 0.5, 1_000, 100, 5_000, now::get);
+        for (int i = 0; i < 20; i++) {
+            fast.tryAcquire();
+            fast.onSuccess(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        assertEquals(Duration.ofMillis(100), fast.timeout(), "nunca por debajo del mínimo");
+    }
+
+    @Test
+    void recoversWhenLatencyShiftsAboveTheLearnedTimeout() throws Exception {
+        // Aprendido con respuestas de 50 ms: timeout en el mínimo (100 ms)
+        for (int i = 0; i < 20; i++) {
+            breaker.tryAcquire();
+            breaker.onSuccess(TimeUnit.MILLISECONDS.toNanos(50));
+        }
+        assertEquals(Duration.ofMillis(100), breaker.timeout());
+
+        // Groq pasa a tardar 300 ms: las llamadas agotan el timeout y el circuito se abre
+        status.set(200);
+        delayMs.set(300);
+        for (int i = 0; i < 4; i++) {
+            assertThrows(ExecutionException.class, () -> client.complete(BODY).get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(GroqCircuitBreaker.State.OPEN, breaker.state());
+
+        // La prueba va con el timeout máximo y cierra; después el timeout ya cubre la nueva latencia
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1_000));
+        assertEquals("1. Crop", client.complete(BODY).get(5, TimeUnit.SECONDS));
+        assertEquals(GroqCircuitBreaker.State.CLOSED, breaker.state());
+        assertTrue(breaker.timeout().compareTo(Duration.ofMillis(300)) > 0, "timeout: " + breaker.timeout());
+        for (int i = 0; i < 4; i++) {
+            assertEquals("1. Crop", client.complete(BODY).get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(GroqCircuitBreaker.State.CLOSED, breaker.state());
+    }
+}
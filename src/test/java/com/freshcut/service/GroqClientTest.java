@@ -0,0 +1,224 @@
+package com.freshcut.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Groq simulado con el HttpServer del JDK: responde tras una pausa y mide cuántas llamadas hay en vuelo. */
+class GroqClientTest {
+    private HttpServer server;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    @BeforeEach
+    void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(16));
+        server.createContext("/openai/v1/chat/completions", exchange -> {
+            int now = inFlight.incrementAndGet();
+            maxInFlight.accumulateAndGet(now, Math::max);
+            try {
+                exchange.getRequestBody().readAllBytes();
+                Thread.sleep(100);
+                byte[] body = "{\"choices\":[{\"message\":{\"role\":\"assistant\",\"content\":\"1. Fade medio\"}}]}"
+                        .getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+    }
+
+    @Test
+    void boundsConcurrentCallsAndCompletesAll() throws Exception {
+        String baseUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/openai/v1";
+        GroqClient client = new GroqClient(new ObjectMapper(), "test-key", baseUrl, scheduler(2), breaker());
+
+        List<CompletableFuture<String>> calls = new ArrayList<>();
+        for (int i = 0; i < 8; i++) calls.add(client.complete(Map.of("model", "m", "messages", List.of())));
+        for (CompletableFuture<String> c : calls) {
+            assertEquals("1. Fade medio", c.get(10, TimeUnit.SECONDS));
+        }
+
+        assertTrue(maxInFlight.get() <= 2, "en vuelo a la vez: " + maxInFlight.get());
+    }
+
+    @Test
+    void streamDeliversDeltasInOrder() throws Exception {
+        server.createContext("/sse/chat/completions", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                for (String piece : new String[] { "1. Fa", "de\\n2. Quiff" }) {
+                    out.write(("data: {\"choices\":[{\"delta\":{\"content\":\"" + piece + "\"}}]}\n\n").getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                }
+                out.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+            }
+        });
+        GroqClient client = new GroqClient(new ObjectMapper(), "test-key",
+                "http://127.0.0.1:" + server.getAddress().getPort() + "/sse", scheduler(2), breaker());
+
+        List<String> deltas = new ArrayList<>();
+        client.stream(Map.of("model", "m"), d -> deltas.add(d)).get(10, TimeUnit.SECONDS);
+
+        assertEquals(List.of("1. Fa", "de\n2. Quiff"), deltas);
+    }
+
+    @Test
+    void cancellingAStreamAbortsTheUpstreamCallAndThenFreesThePermit() throws Exception {
+        CountDownLatch aborted = slowStream();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        GroqClient client = new GroqClient(new ObjectMapper(), "test-key",
+                "http://127.0.0.1:" + server.getAddress().getPort() + "/slow",
+                new AiRequestScheduler(registry, 1, 100, 100, 100), breaker());
+        CountDownLatch firstDelta = new CountDownLatch(1);
+
+        CompletableFuture<Void> stream = client.stream(Map.of("model", "m"), d -> {
+            firstDelta.countDown();
+            return true;
+        });
+        assertTrue(firstDelta.await(5, TimeUnit.SECONDS));
+        stream.cancel(true);
+
+        // Groq deja de escribir mucho antes de terminar el stream (5 s)
+        assertTrue(aborted.await(2, TimeUnit.SECONDS), "la petición a Groq sigue en curso");
+        awaitNoneInFlight(registry);
+    }
+
+    @Test
+    void listenerStoppingEarlyStillFreesThePermit() throws Exception {
+        CountDownLatch aborted = slowStream();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        GroqClient client = new GroqClient(new ObjectMapper(), "test-key",
+                "http://127.0.0.1:" + server.getAddress().getPort() + "/slow",
+                new AiRequestScheduler(registry, 1, 100, 100, 100), breaker());
+
+        client.stream(Map.of("model", "m"), d -> false).get(5, TimeUnit.SECONDS);
+
+        assertTrue(aborted.await(2, TimeUnit.SECONDS), "la petición a Groq sigue en curso");
+        awaitNoneInFlight(registry);
+    }
+
+    @Test
+    void cancellingBeforeGroqAnswersClosesTheConnection() throws Exception {
+        // Groq que acepta la petición y no responde nunca: solo mira si el cliente cierra la conexión
+        try (ServerSocket silent = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            CountDownLatch received = new CountDownLatch(1);
+            CountDownLatch closed = new CountDownLatch(1);
+            Thread stub = new Thread(() -> {
+                try (Socket socket = silent.accept(); InputStream in = socket.getInputStream()) {
+                    byte[] buf = new byte[4096];
+                    while (in.read(buf) >= 0) received.countDown();
+                } catch (IOException e) {
+                    // Conexión reiniciada por el cliente: también es un cierre
+                }
+                closed.countDown();
+            });
+            stub.setDaemon(true);
+            stub.start();
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            GroqClient client = new GroqClient(new ObjectMapper(), "test-key",
+                    "http://127.0.0.1:" + silent.getLocalPort() + "/silent",
+                    new AiRequestScheduler(registry, 1, 100, 100, 100), breaker());
+
+            CompletableFuture<Void> stream = client.stream(Map.of("model", "m"), d -> true);
+            assertTrue(received.await(5, TimeUnit.SECONDS));
+            stream.cancel(true);
+
+            // Mucho antes del timeout de la petición (5 s)
+            assertTrue(closed.await(1, TimeUnit.SECONDS), "la conexión con Groq sigue abierta");
+            awaitNoneInFlight(registry);
+        }
+    }
+
+    // Stream de 100 fragmentos cada 50 ms; la cuenta baja si el cliente corta la conexión antes del final
+    private CountDownLatch slowStream() {
+        CountDownLatch aborted = new CountDownLatch(1);
+        server.createContext("/slow/chat/completions", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                for (int i = 0; i < 100; i++) {
+                    out.write(("data: {\"choices\":[{\"delta\":{\"content\":\"" + i + "\"}}]}\n\n").getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                    Thread.sleep(50);
+                }
+            } catch (IOException e) {
+                aborted.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        return aborted;
+    }
+
+    private static void awaitNoneInFlight(SimpleMeterRegistry registry) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (registry.get("ai.scheduler.in-flight").gauge().value() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0.0, registry.get("ai.scheduler.in-flight").gauge().value());
+    }
+
+    @Test
+    void serverErrorsFailTheFuture() throws Exception {
+        server.createContext("/broken/chat/completions", exchange -> {
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+        });
+        GroqClient client = new GroqClient(new ObjectMapper(), "test-key",
+                "http://127.0.0.1:" + server.getAddress().getPort() + "/broken", scheduler(2), breaker());
+
+        CompletableFuture<String> call = client.complete(Map.of("model", "m"));
+
+        assertTrue(call.handle((v, e) -> e != null).get(10, TimeUnit.SECONDS));
+    }
+
+    private static AiRequestScheduler scheduler(int maxConcurrency) {
+        return new AiRequestScheduler(new SimpleMeterRegistry(), maxConcurrency, 100, 100, 100);
+    }
+
+    private static GroqCircuitBreaker breaker() {
+        return new GroqCircuitBreaker(new SimpleMeterRegistry(), 20, 10, 0.5, 30_000, 2_000, 5_000);
+    }
+}
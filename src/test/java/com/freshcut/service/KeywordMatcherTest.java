@@ -0,0 +1,62 @@
+package com.freshcut.service;
+
+import java.io.IOException;
+import java.util.Properties;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+
+import com.freshcut.config.AiKeywordsProperties;
+import com.freshcut.service.KeywordMatcher.Category;
+import com.freshcut.service.KeywordMatcher.Counts;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Usa las listas reales de application.properties. */
+class KeywordMatcherTest {
+    private static KeywordMatcher matcher;
+
+    @BeforeAll
+    static void load() throws IOException {
+        Properties props = PropertiesLoaderUtils.loadAllProperties("application.properties");
+        AiKeywordsProperties keywords = new Binder(new MapConfigurationPropertySource(props))
+                .bind("ai.keywords", AiKeywordsProperties.class).get();
+        matcher = new KeywordMatcher(keywords);
+    }
+
+    @Test
+    void foldsAccentsAndCaseAndCountsEachTermOnce() {
+        Counts c = matcher.scan("ESTÉTICA de barbería: quiero un corte, otro CORTE y algo de estética");
+
+        assertEquals(3, c.get(Category.DOMAIN), "estetica, barberia y corte");
+        assertTrue(matcher.isRelevant(c));
+    }
+
+    @Test
+    void offTopicTermsCancelDomainTerms() {
+        assertFalse(matcher.isRelevant(matcher.scan("¿Qué tal el clima para ir con mi corte?")));
+        assertFalse(matcher.isRelevant(matcher.scan("Cuéntame un chiste")));
+        assertFalse(matcher.isRelevant(matcher.scan("")));
+    }
+
+    @Test
+    void multiWordTermsMatchAcrossPunctuationAndExtraSpaces() {
+        Counts c = matcher.scan("¿Un side-part  me queda bien?");
+
+        assertEquals(2, c.get(Category.DOMAIN), "side part y me queda");
+    }
+
+    @Test
+    void replyNeedsAStyleOrTwoFacialFeaturesAndNoBannedTerm() {
+        assertTrue(matcher.isAcceptableReply(matcher.scan("1. Fade medio\n2. Quiff\n3. Crop")));
+        assertTrue(matcher.isAcceptableReply(matcher.scan("Para tu cara ovalada y pómulos marcados, laterales cortos")));
+        assertFalse(matcher.isAcceptableReply(matcher.scan("Para tu cara ovalada, laterales cortos")));
+        assertFalse(matcher.isAcceptableReply(matcher.scan("1. Fade estilo Mustang")));
+        assertTrue(matcher.isAcceptableReply(matcher.scan("Peinado hacia atrás")));
+    }
+}
@@ -0,0 +1,141 @@
+package com.freshcut.service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.freshcut.db.model.ServiceItem;
+import com.freshcut.dto.CursorPage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ListingServiceTest {
+    private final MongoTemplate mongo = mock(MongoTemplate.class);
+    private final ListingService listing;
+
+    ListingServiceTest() {
+        when(mongo.getConverter()).thenReturn(new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext()));
+        listing = new ListingService(mongo, new ObjectMapper());
+    }
+
+    private static List<ServiceItem> services(int n) {
+        List<ServiceItem> out = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            ServiceItem s = new ServiceItem();
+            s.setId(new ObjectId().toHexString());
+            s.setName("Servicio " + i);
+            out.add(s);
+        }
+        return out;
+    }
+
+    // La consulta que llegó a Mongo
+    private Query issuedQuery() {
+        ArgumentCaptor<Query> q = ArgumentCaptor.forClass(Query.class);
+        verify(mongo).find(q.capture(), eq(ServiceItem.class));
+        return q.getValue();
+    }
+
+    @Test
+    void defaultLimitAndNextCursorPointAtTheLastItem() {
+        List<ServiceItem> docs = services(ListingService.DEFAULT_LIMIT + 1);
+        when(mongo.find(any(Query.class), eq(ServiceItem.class))).thenReturn(docs);
+
+        CursorPage<ServiceItem> page = listing.page(ServiceItem.class, null, null, Function.identity());
+
+        // Se pide uno de más para saber si hay otra página
+        assertEquals(ListingService.DEFAULT_LIMIT + 1, issuedQuery().getLimit());
+        assertEquals(ListingService.DEFAULT_LIMIT, page.getItems().size());
+        assertEquals(docs.get(ListingService.DEFAULT_LIMIT - 1).getId(), page.getNextCursor());
+    }
+
+    @Test
+    void limitIsCappedAndTheLastPageHasNoCursor() {
+        when(mongo.find(any(Query.class), eq(ServiceItem.class))).thenReturn(services(3));
+
+        CursorPage<String> page = listing.page(ServiceItem.class, null, 10_000, ServiceItem::getName);
+
+        assertEquals(ListingService.MAX_LIMIT + 1, issuedQuery().getLimit());
+        assertEquals(List.of("Servicio 0", "Servicio 1", "Servicio 2"), page.getItems());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void afterStartsPastThatId() {
+        String after = new ObjectId().toHexString();
+        when(mongo.find(any(Query.class), eq(ServiceItem.class))).thenReturn(List.of());
+
+        listing.page(ServiceItem.class, after, 10, Function.identity());
+
+        Query q = issuedQuery();
+        assertEquals(new Document("$gt", new ObjectId(after)), q.getQueryObject().get("_id"));
+        assertEquals(new Document("_id", 1), q.getSortObject());
+    }
+
+    @Test
+    void malformedCursorIsRejectedWithoutQuerying() {
+        assertThrows(IllegalArgumentException.class,
+                () -> listing.page(ServiceItem.class, "no-es-un-id", 10, Function.identity()));
+        verify(mongo, never()).find(any(Query.class), eq(ServiceItem.class));
+    }
+
+    @Test
+    void listWithoutParametersStreamsTheWholeArray() throws Exception {
+        when(mongo.stream(any(Query.class), eq(ServiceItem.class))).thenReturn(services(2).stream());
+
+        ResponseEntity<?> res = listing.list(ServiceItem.class, null, null, ServiceItem::getName);
+
+        assertEquals(MediaType.APPLICATION_JSON, res.getHeaders().getContentType());
+        assertEquals("[\"Servicio 0\",\"Servicio 1\"]", written(assertInstanceOf(StreamingResponseBody.class, res.getBody())));
+    }
+
+    @Test
+    void listWithLimitReturnsAPage() {
+        when(mongo.find(any(Query.class), eq(ServiceItem.class))).thenReturn(services(1));
+
+        ResponseEntity<?> res = listing.list(ServiceItem.class, null, 5, ServiceItem::getName);
+
+        assertEquals(List.of("Servicio 0"), assertInstanceOf(CursorPage.class, res.getBody()).getItems());
+    }
+
+    @Test
+    void ndjsonWritesOneDocumentPerLine() throws Exception {
+        when(mongo.stream(any(Query.class), eq(ServiceItem.class))).thenReturn(services(2).stream());
+
+        ResponseEntity<StreamingResponseBody> res = listing.ndjson(ServiceItem.class, ServiceItem::getName);
+
+        assertEquals(MediaType.APPLICATION_NDJSON, res.getHeaders().getContentType());
+        assertEquals("\"Servicio 0\"\n\"Servicio 1\"\n", written(res.getBody()));
+    }
+
+    private static String written(StreamingResponseBody body) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,60 @@
+package com.freshcut.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PasswordHasherTest {
+
+    @Test
+    void rejectsWith429WhenPoolAndQueueAreFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch inFlight = new CountDownLatch(1);
+        // Encoder que se queda dentro de matches hasta que el test lo suelta
+        BCryptPasswordEncoder blocking = new BCryptPasswordEncoder(4) {
+            @Override
+            public boolean matches(CharSequence raw, String encoded) {
+                inFlight.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return true;
+            }
+        };
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        PasswordHasher hasher = new PasswordHasher(blocking, registry, 1, 2);
+        try {
+            List<CompletableFuture<Boolean>> calls = new ArrayList<>();
+            calls.add(hasher.matches("a", "h"));
+            assertTrue(inFlight.await(5, TimeUnit.SECONDS));
+            // Un hilo ocupado y dos en cola: el cuarto se rechaza sin esperar
+            for (int i = 0; i < 3; i++) calls.add(hasher.matches("a", "h"));
+
+            CompletionException e = assertThrows(CompletionException.class, () -> calls.get(3).join());
+            assertInstanceOf(TooManyRequestsException.class, e.getCause());
+            assertEquals(1.0, registry.get("auth.hashing.rejected").counter().count());
+            assertEquals(2.0, registry.get("auth.hashing.queue").gauge().value());
+
+            release.countDown();
+            for (int i = 0; i < 3; i++) assertTrue(calls.get(i).get(5, TimeUnit.SECONDS));
+            assertEquals(3, registry.get("auth.hashing.wait").timer().count());
+        } finally {
+            hasher.shutdown();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.freshcut.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+
+import com.freshcut.config.AiKeywordsProperties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamingReplyFilterTest {
+    private static final String STANDARD = "respuesta estándar";
+    private static KeywordMatcher keywords;
+
+    private final List<String> events = new ArrayList<>();
+    private final AiService.ChatStreamListener recorder = new AiService.ChatStreamListener() {
+        public void onToken(String text) { events.add("token:" + text); }
+        public void onRecommendation(int index, String text) { events.add("rec:" + text); }
+        public void onReset() { events.add("reset"); }
+        public void onDone(String reply, String rejectReason) { events.add("done:" + reply); }
+    };
+
+    @BeforeAll
+    static void load() throws IOException {
+        Properties props = PropertiesLoaderUtils.loadAllProperties("application.properties");
+        keywords = new KeywordMatcher(new Binder(new MapConfigurationPropertySource(props))
+                .bind("ai.keywords", AiKeywordsProperties.class).get());
+    }
+
+    @Test
+    void emitsEachLineAsSoonAsItEndsAndStopsAfterThree() {
+        StreamingReplyFilter filter = new StreamingReplyFilter(keywords, recorder, STANDARD);
+        String[] deltas = { "**Opciones:**\n1", ". **Fade", " medio**\n2) Quiff\n", "3. Crop", " texturizado\n4. Buzz" };
+        boolean more = true;
+        for (String d : deltas) {
+            if (!(more = filter.accept(d))) break;
+        }
+        filter.finish();
+
+        assertFalse(more, "tras la tercera línea ya no hace falta más texto");
+        assertEquals(List.of(
+                "token:Opciones:", "token:1", "token:. Fade", "token: medio", "rec:1. Fade medio",
+                "token:2) Quiff", "rec:2. Quiff", "token:3. Crop", "token: texturizado", "rec:3. Crop texturizado",
+                "done:1. Fade medio\n2. Quiff\n3. Crop texturizado"), events);
+        assertEquals("1. Fade medio\n2. Quiff\n3. Crop texturizado",
+                AiService.normalizeToThreeRecommendations(String.join("", deltas)), "mismo resultado que sin streaming");
+    }
+
+    @Test
+    void bannedTermResetsBeforeTheTokenIsSent() {
+        StreamingReplyFilter filter = new StreamingReplyFilter(keywords, recorder, STANDARD);
+
+        assertTrue(filter.accept("1. Fade estilo "));
+        assertFalse(filter.accept("Ferrari"));
+        filter.finish();
+
+        assertEquals(List.of("token:1. Fade estilo ", "reset", "done:" + STANDARD), events);
+    }
+
+    @Test
+    void bannedTermEndingAtNewlineIsNeverSent() {
+        StreamingReplyFilter filter = new StreamingReplyFilter(keywords, recorder, STANDARD);
+
+        assertTrue(filter.accept("1. Pompadour\n"));
+        assertFalse(filter.accept("2. Fade estilo Ferrari\n3. Quiff"));
+        filter.finish();
+
+        assertEquals(List.of("token:1. Pompadour", "rec:1. Pompadour", "reset", "done:" + STANDARD), events);
+    }
+
+    @Test
+    void bannedTermSplitAcrossDeltasIsNeverSent() {
+        StreamingReplyFilter filter = new StreamingReplyFilter(keywords, recorder, STANDARD);
+
+        assertTrue(filter.accept("1. Fade estilo Ferr"));
+        assertFalse(filter.accept("ari\n2. Quiff"));
+        filter.finish();
+
+        assertEquals(List.of("token:1. Fade estilo Ferr", "reset", "done:" + STANDARD), events);
+    }
+
+    @Test
+    void replyWithoutAnyStyleEndsWithStandardReply() {
+        StreamingReplyFilter filter = new StreamingReplyFilter(keywords, recorder, STANDARD);
+
+        filter.accept("Hola, soy tu asistente");
+        filter.finish();
+
+        assertEquals(List.of("token:Hola, soy tu asistente", "rec:1. Hola, soy tu asistente", "reset", "done:" + STANDARD), events);
+    }
+
+    @Test
+    void upstreamErrorDiscardsPartialAnswer() {
+        StreamingReplyFilter filter = new StreamingReplyFilter(keywords, recorder, STANDARD);
+
+        filter.accept("1. Pompadour\n2. Qu");
+        filter.fail();
+        filter.finish();
+
+        assertEquals(List.of("token:1. Pompadour", "rec:1. Pompadour", "token:2. Qu", "reset", "done:" + STANDARD), events);
+    }
+}
@@ -0,0 +1,79 @@
+package com.freshcut.service.strategy;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.SplittableRandom;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Test;
+
+import com.freshcut.util.ImagePreprocessor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SubsampledFaceDetectionStrategyTest {
+    private final FaceDetectionStrategy full = new DefaultFaceDetectionStrategy();
+    private final FaceDetectionStrategy subsampled = new SubsampledFaceDetectionStrategy();
+
+    @Test
+    void agreesWithFullDecoderOnSkinAndNonSkinImages() throws IOException {
+        byte[] skin = jpeg(1200, 1600, 205, 150, 120);
+        byte[] sky = jpeg(1200, 1600, 40, 90, 200);
+
+        assertTrue(full.isLikelyFacePhoto(skin, "image/jpeg"));
+        assertTrue(subsampled.isLikelyFacePhoto(skin, "image/jpeg"));
+        assertFalse(full.isLikelyFacePhoto(sky, "image/jpeg"));
+        assertFalse(subsampled.isLikelyFacePhoto(sky, "image/jpeg"));
+    }
+
+    @Test
+    void preparedImageGivesSameAnswerAsRawBytes() throws IOException {
+        ImagePreprocessor preprocessor = new ImagePreprocessor(1024, 0.85f);
+
+        assertTrue(subsampled.isLikelyFacePhoto(preprocessor.prepare(jpeg(1200, 1600, 205, 150, 120))));
+        assertFalse(subsampled.isLikelyFacePhoto(preprocessor.prepare(jpeg(1200, 1600, 40, 90, 200))));
+        assertFalse(subsampled.isLikelyFacePhoto(preprocessor.prepare(jpeg(3000, 400, 205, 150, 120))));
+    }
+
+    @Test
+    void rejectsBannersFromHeaderAndNonImages() throws IOException {
+        assertFalse(subsampled.isLikelyFacePhoto(jpeg(3000, 400, 205, 150, 120), "image/jpeg"));
+        assertFalse(subsampled.isLikelyFacePhoto(jpeg(800, 800, 205, 150, 120), "application/pdf"));
+        assertFalse(subsampled.isLikelyFacePhoto(new byte[8000], "image/jpeg"));
+    }
+
+    @Test
+    void integerSkinTestMatchesFloatingPointConversion() {
+        SplittableRandom random = new SplittableRandom(7);
+        int mismatches = 0;
+        for (int i = 0; i < 100_000; i++) {
+            int r = random.nextInt(256), g = random.nextInt(256), b = random.nextInt(256);
+            double y = 0.299 * r + 0.587 * g + 0.114 * b;
+            double cb = -0.168736 * r - 0.331264 * g + 0.5 * b + 128;
+            double cr = 0.5 * r - 0.418688 * g - 0.081312 * b + 128;
+            boolean expected = (cb >= 77 && cb <= 127) && (cr >= 133 && cr <= 173) && (y > 40 && y < 230);
+            if (expected != SubsampledFaceDetectionStrategy.isSkin(r, g, b)) mismatches++;
+        }
+        assertEquals(0, mismatches, mismatches + " discrepancias");
+    }
+
+    private static byte[] jpeg(int w, int h, int r, int g, int b) throws IOException {
+        BufferedImage img = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        SplittableRandom random = new SplittableRandom(42);
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                int n = random.nextInt(-20, 21);
+                img.setRGB(x, y, (clamp(r + n) << 16) | (clamp(g + n) << 8) | clamp(b + n));
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(img, "jpeg", out);
+        return out.toByteArray();
+    }
+
+    private static int clamp(int v) { return Math.max(0, Math.min(255, v)); }
+}
@@ -0,0 +1,47 @@
+package com.freshcut.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/** Mismos resultados que las implementaciones con regex y MessageDigest.getInstance a las que sustituye. */
+class CredentialUtilsTest {
+    private static final List<String> SAMPLES = List.of(
+            "", "corta", "Secreta#2024", "secreta#2024", "SECRETA#2024", "Secreta2024", "Secreta#abc",
+            "Sec#20", "Contraseña1", "Ñandú#2024x", "Aa1!Aa1!", "Aa1\nAa1!xx", "Aa1!Aa1!\n", "Aa1 Aa1bb",
+            "Aa1😀bcde", "Aa1😀bc", "Aa1 bbbbb",
+            "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08",
+            "9F86D081884C7D659A2FEAA0C55AD015A3BF4F1B2B0B822CD15D6C15B0F00A08",
+            "  9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08\n",
+            "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a0g",
+            "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a0",
+            "9f86d081884c7d659a2feaa0c55 ad015a3bf4f1b2b0b822cd15d6c15b0f00a0");
+
+    @Test
+    void sha256HexMatchesMessageDigest() throws Exception {
+        for (String s : SAMPLES) {
+            byte[] expected = MessageDigest.getInstance("SHA-256").digest(s.getBytes(StandardCharsets.UTF_8));
+            assertEquals(HexFormat.of().formatHex(expected), CredentialUtils.sha256Hex(s), s);
+        }
+        // El digest por hilo se reinicia entre llamadas
+        assertEquals(CredentialUtils.sha256Hex("abc"), CredentialUtils.sha256Hex("abc"));
+    }
+
+    @Test
+    void validatorsAgreeWithRegex() {
+        for (String s : SAMPLES) {
+            String t = s.trim();
+            assertEquals(t.length() == 64 && t.matches("[a-fA-F0-9]{64}"), CredentialUtils.isSha256Hex(s), s);
+            assertEquals(s.matches("^(?=.*[a-z])(?=.*[A-Z])(?=.*\\d)(?=.*[^A-Za-z0-9]).{8,}$"),
+                    CredentialUtils.isStrongPassword(s), s);
+        }
+        assertFalse(CredentialUtils.isSha256Hex(null));
+        assertFalse(CredentialUtils.isStrongPassword(null));
+    }
+}
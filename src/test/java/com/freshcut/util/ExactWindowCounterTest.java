@@ -0,0 +1,64 @@
+package com.freshcut.util;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExactWindowCounterTest {
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void countsEachKeyExactlyAndForgetsOldSlots() {
+        ExactWindowCounter counter = new ExactWindowCounter(Duration.ofSeconds(60), 6, 10_000, now::get);
+        for (int i = 0; i < 5000; i++) counter.increment("k" + i);
+        for (int i = 1; i <= 3; i++) assertEquals(i + 1, counter.increment("k0"));
+        for (int i = 1; i < 5000; i++) assertEquals(1, counter.estimate("k" + i));
+        assertEquals(0, counter.estimate("nunca"));
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(30));
+        counter.increment("k0");
+        now.addAndGet(TimeUnit.SECONDS.toNanos(30));
+        assertEquals(1, counter.estimate("k0"));
+        now.addAndGet(TimeUnit.SECONDS.toNanos(30));
+        assertEquals(0, counter.estimate("k0"));
+    }
+
+    @Test
+    void decrementTakesFromTheNewestSlotAndNeverBelowZero() {
+        ExactWindowCounter counter = new ExactWindowCounter(Duration.ofSeconds(60), 6, 100, now::get);
+        counter.decrement("nunca");
+        counter.increment("k");
+        now.addAndGet(TimeUnit.SECONDS.toNanos(30));
+        counter.increment("k");
+        counter.decrement("k");
+        assertEquals(1, counter.estimate("k"));
+        now.addAndGet(TimeUnit.SECONDS.toNanos(30));
+        assertEquals(0, counter.estimate("k"));
+        counter.decrement("k");
+        assertEquals(1, counter.increment("k"));
+    }
+
+    @Test
+    void waitUntilBelowLimitFollowsTheOldestSlots() {
+        ExactWindowCounter counter = new ExactWindowCounter(Duration.ofSeconds(60), 6, 100, now::get);
+        counter.increment("k");
+        now.addAndGet(TimeUnit.SECONDS.toNanos(20));
+        counter.increment("k");
+
+        assertEquals(TimeUnit.SECONDS.toNanos(40), counter.nanosUntilBelow("k", 2));
+        assertEquals(TimeUnit.SECONDS.toNanos(60), counter.nanosUntilBelow("k", 1));
+        assertEquals(0, counter.nanosUntilBelow("k", 3));
+    }
+
+    @Test
+    void keepsAtMostMaxKeys() {
+        ExactWindowCounter counter = new ExactWindowCounter(Duration.ofSeconds(60), 6, 64, now::get);
+        for (int i = 0; i < 1000; i++) counter.increment("k" + i);
+        assertTrue(counter.size() <= 64, "claves: " + counter.size());
+    }
+}
@@ -0,0 +1,44 @@
+package com.freshcut.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class HammingIndexTest {
+
+    @Test
+    void findsClosestWithinDistanceOnly() {
+        HammingIndex<String> index = new HammingIndex<>(3, 100, 0);
+        long base = 0x0123_4567_89ab_cdefL;
+        index.put(base ^ 0b111, "tres");
+        index.put(base ^ 0b1, "uno");
+        index.put(base ^ 0b1111, "cuatro");
+
+        assertEquals("uno", index.nearest(base, v -> true));
+        assertEquals("tres", index.nearest(base, v -> !v.equals("uno")));
+        assertNull(index.nearest(base ^ 0xF000_0000_0000_0000L, v -> true), "a 4+ bits de todas");
+    }
+
+    @Test
+    void evictsOldestBeyondCapacity() {
+        HammingIndex<Integer> index = new HammingIndex<>(2, 2, 0);
+        index.put(0xFFL, 1);
+        index.put(0xFFL << 20, 2);
+        index.put(0xFFL << 40, 3);
+
+        assertEquals(2, index.size());
+        assertNull(index.nearest(0xFFL, v -> true));
+        assertEquals(3, index.nearest(0xFFL << 40, v -> true));
+    }
+
+    @Test
+    void simHashKeepsNearDuplicatesClose() {
+        long a = SimHash.of(AhoCorasick.normalize("Tengo la cara redonda y el pelo fino, ¿qué corte me queda bien?"));
+        long b = SimHash.of(AhoCorasick.normalize("tengo la cara redonda y el pelo fino que corte me queda bien"));
+        long c = SimHash.of(AhoCorasick.normalize("Busco un corte para pelo rizado y largo con la frente amplia"));
+
+        assertEquals(0, Long.bitCount(a ^ b), "misma forma normalizada");
+        assertEquals(true, Long.bitCount(a ^ c) > 10);
+    }
+}
@@ -0,0 +1,116 @@
+package com.freshcut.util;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImagePreprocessorTest {
+    private final ImagePreprocessor preprocessor = new ImagePreprocessor(1024, 0.85f);
+
+    @Test
+    void downscalesLongEdgeAndReencodesWithoutExif() throws IOException {
+        byte[] original = withExifOrientation(jpeg(4000, 3000), 1);
+
+        PreparedImage prepared = preprocessor.prepare(original);
+
+        assertEquals(4000, prepared.sourceWidth());
+        assertEquals(3000, prepared.sourceHeight());
+        assertEquals(1024, prepared.image().getWidth());
+        assertEquals(768, prepared.image().getHeight());
+        assertTrue(prepared.jpeg().length * 10 < original.length, prepared.jpeg().length + " de " + original.length);
+        assertFalse(hasApp1(prepared.jpeg()), "sin EXIF");
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(prepared.jpeg()));
+        assertNotNull(decoded);
+        assertEquals(1024, decoded.getWidth());
+    }
+
+    @Test
+    void appliesExifOrientationToPixels() throws IOException {
+        PreparedImage rotated = preprocessor.prepare(withExifOrientation(jpeg(400, 200), 6));
+
+        assertEquals(200, rotated.sourceWidth());
+        assertEquals(400, rotated.sourceHeight());
+        assertEquals(200, rotated.image().getWidth());
+        assertEquals(400, rotated.image().getHeight());
+    }
+
+    @Test
+    void rejectsNonImages() {
+        assertThrows(IOException.class, () -> preprocessor.prepare(new byte[] { 'h', 'o', 'l', 'a' }));
+    }
+
+    @Test
+    void dataUriMatchesJdkBase64() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        SplittableRandom random = new SplittableRandom(1);
+        for (int len : new int[] { 0, 1, 2, 3, 4, 3071, 3072, 3073, 10_000 }) {
+            byte[] data = new byte[len];
+            for (int i = 0; i < len; i++) data[i] = (byte) random.nextInt(256);
+
+            String json = mapper.writeValueAsString(Map.of("url", new Base64DataUri("image/jpeg", data), "n", 1));
+            Map<?, ?> parsed = mapper.readValue(json, Map.class);
+
+            assertEquals("data:image/jpeg;base64," + Base64.getEncoder().encodeToString(data), parsed.get("url"), "len " + len);
+            assertEquals(1, parsed.get("n"));
+        }
+    }
+
+    private static byte[] jpeg(int w, int h) throws IOException {
+        BufferedImage img = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        SplittableRandom random = new SplittableRandom(42);
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                int n = random.nextInt(0, 256);
+                img.setRGB(x, y, (n << 16) | ((255 - n) << 8) | (x * 255 / w));
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(img, "jpeg", out);
+        return out.toByteArray();
+    }
+
+    // Inserta tras SOI un APP1 "Exif" mínimo (big-endian) con solo la etiqueta Orientation
+    private static byte[] withExifOrientation(byte[] jpeg, int orientation) {
+        byte[] app1 = {
+                (byte) 0xFF, (byte) 0xE1, 0, 34,
+                'E', 'x', 'i', 'f', 0, 0,
+                'M', 'M', 0, 42, 0, 0, 0, 8,
+                0, 1,
+                0x01, 0x12, 0, 3, 0, 0, 0, 1, 0, (byte) orientation, 0, 0,
+                0, 0, 0, 0
+        };
+        byte[] out = new byte[jpeg.length + app1.length];
+        out[0] = jpeg[0];
+        out[1] = jpeg[1];
+        System.arraycopy(app1, 0, out, 2, app1.length);
+        System.arraycopy(jpeg, 2, out, 2 + app1.length, jpeg.length - 2);
+        return out;
+    }
+
+    private static boolean hasApp1(byte[] jpeg) {
+        int pos = 2;
+        while (pos + 4 <= jpeg.length && (jpeg[pos] & 0xFF) == 0xFF) {
+            int marker = jpeg[pos + 1] & 0xFF;
+            if (marker == 0xE1) return true;
+            if (marker == 0xDA) return false;
+            pos += 2 + (((jpeg[pos + 2] & 0xFF) << 8) | (jpeg[pos + 3] & 0xFF));
+        }
+        return false;
+    }
+}
@@ -0,0 +1,100 @@
+package com.freshcut.util;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PerceptualHashTest {
+
+    @Test
+    void recompressedAndResizedPhotoStaysClose() throws IOException {
+        BufferedImage original = portrait(1600, 1200, new Color(200, 150, 120));
+        long hash = PerceptualHash.dHash(jpeg(original, 0.95f));
+
+        assertEquals(hash, PerceptualHash.dHash(jpeg(original, 0.95f)), "mismos bytes, misma huella");
+        assertTrue(Long.bitCount(hash ^ PerceptualHash.dHash(jpeg(original, 0.5f))) <= 6, "recomprimida");
+        assertTrue(Long.bitCount(hash ^ PerceptualHash.dHash(jpeg(scale(original, 800, 600), 0.8f))) <= 6, "reescalada");
+    }
+
+    @Test
+    void differentPhotoIsFar() throws IOException {
+        long a = PerceptualHash.dHash(jpeg(portrait(1600, 1200, new Color(200, 150, 120)), 0.9f));
+        long b = PerceptualHash.dHash(jpeg(landscape(1600, 1200), 0.9f));
+
+        assertTrue(Long.bitCount(a ^ b) > 16, "distancia " + Long.bitCount(a ^ b));
+    }
+
+    @Test
+    void rejectsNonImages() {
+        assertThrows(IOException.class, () -> PerceptualHash.dHash(new byte[] { 1, 2, 3, 4 }));
+    }
+
+    // Fondo en degradado con una elipse "cara" y dos "ojos"
+    private static BufferedImage portrait(int w, int h, Color skin) {
+        BufferedImage img = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = img.createGraphics();
+        for (int x = 0; x < w; x++) {
+            g.setColor(new Color(40 + x * 120 / w, 60, 120 - x * 80 / w));
+            g.drawLine(x, 0, x, h);
+        }
+        g.setColor(skin);
+        g.fillOval(w / 3, h / 6, w / 3, h * 2 / 3);
+        g.setColor(Color.DARK_GRAY);
+        g.fillOval(w * 2 / 5, h / 3, w / 20, h / 20);
+        g.fillOval(w * 11 / 20, h / 3, w / 20, h / 20);
+        g.dispose();
+        return img;
+    }
+
+    private static BufferedImage landscape(int w, int h) {
+        BufferedImage img = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = img.createGraphics();
+        for (int y = 0; y < h; y++) {
+            g.setColor(new Color(90 + y * 100 / h, 140, 230 - y * 150 / h));
+            g.drawLine(0, y, w, y);
+        }
+        g.setColor(new Color(30, 110, 40));
+        g.fillPolygon(new int[] { 0, w / 3, w * 2 / 3, w }, new int[] { h, h / 3, h / 2, h }, 4);
+        g.dispose();
+        return img;
+    }
+
+    private static BufferedImage scale(BufferedImage src, int w, int h) {
+        BufferedImage out = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = out.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.drawImage(src, 0, 0, w, h, null);
+        g.dispose();
+        return out;
+    }
+
+    private static byte[] jpeg(BufferedImage img, float quality) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(ios);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.write(null, new IIOImage(img, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+}
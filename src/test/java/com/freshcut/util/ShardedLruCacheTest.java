@@ -0,0 +1,85 @@
+package com.freshcut.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShardedLruCacheTest {
+
+    @Test
+    void countsHitsMissesAndEvictions() {
+        ShardedLruCache<String, Integer> cache = new ShardedLruCache<>(4, 0, 1);
+        for (int i = 0; i < 10; i++) cache.put("k" + i, i);
+
+        assertEquals(4, cache.size());
+        assertEquals(6, cache.evictionCount());
+        assertNotNull(cache.get("k9"), "la última entrada escrita sigue en caché");
+        assertNull(cache.get("nope"));
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.missCount());
+    }
+
+    @Test
+    void recentlyReadEntriesSurviveEviction() throws Exception {
+        ShardedLruCache<String, Integer> cache = new ShardedLruCache<>(8, 0, 1);
+        for (int i = 0; i < 8; i++) cache.put("k" + i, i);
+        Thread.sleep(5);
+        cache.get("k0");
+        for (int i = 8; i < 12; i++) cache.put("k" + i, i);
+
+        assertEquals(0, cache.get("k0"));
+    }
+
+    @Test
+    void expiredEntriesAreMisses() throws Exception {
+        ShardedLruCache<String, Integer> cache = new ShardedLruCache<>(8, 1);
+        cache.put("a", 1);
+        Thread.sleep(5);
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void computeIfAbsentCreatesOnceAndEvicts() {
+        ShardedLruCache<String, List<Integer>> cache = new ShardedLruCache<>(2, 0, 1);
+        List<Integer> first = cache.computeIfAbsent("a", k -> new ArrayList<>());
+        first.add(1);
+
+        assertTrue(first == cache.computeIfAbsent("a", k -> new ArrayList<>()), "mismo valor la segunda vez");
+        assertEquals(1, cache.hitCount());
+        cache.computeIfAbsent("b", k -> new ArrayList<>());
+        cache.computeIfAbsent("c", k -> new ArrayList<>());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void staysBoundedUnderConcurrentWrites() throws Exception {
+        ShardedLruCache<Integer, Integer> cache = new ShardedLruCache<>(256, 0, 16);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            tasks.add(pool.submit(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    int k = ThreadLocalRandom.current().nextInt(4096);
+                    if (cache.get(k) == null) cache.put(k, k);
+                }
+            }));
+        }
+        for (Future<?> f : tasks) f.get();
+        pool.shutdown();
+
+        assertTrue(cache.size() <= 256, "tamaño " + cache.size());
+        assertEquals(400_000, cache.hitCount() + cache.missCount());
+    }
+}
@@ -0,0 +1,85 @@
+package com.freshcut.util;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SlidingWindowCounterTest {
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void countsPerKeyAndForgetsOldSlots() {
+        // Ventana de 60 s en 6 tramos de 10 s
+        SlidingWindowCounter counter = new SlidingWindowCounter(Duration.ofSeconds(60), 6, 1024, now::get);
+        for (int i = 1; i <= 3; i++) assertEquals(i, counter.increment("ip:10.0.0.1"));
+        now.addAndGet(TimeUnit.SECONDS.toNanos(30));
+        assertEquals(4, counter.increment("ip:10.0.0.1"));
+        assertEquals(0, counter.estimate("ip:10.0.0.2"));
+
+        // Los tres primeros salen al cumplirse la ventana; el cuarto sigue dentro
+        now.addAndGet(TimeUnit.SECONDS.toNanos(30));
+        assertEquals(1, counter.estimate("ip:10.0.0.1"));
+        now.addAndGet(TimeUnit.SECONDS.toNanos(30));
+        assertEquals(0, counter.estimate("ip:10.0.0.1"));
+    }
+
+    @Test
+    void decrementTakesFromTheNewestSlotAndNeverBelowZero() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(Duration.ofSeconds(60), 6, 1024, now::get);
+        counter.increment("k");
+        now.addAndGet(TimeUnit.SECONDS.toNanos(30));
+        counter.increment("k");
+        counter.decrement("k");
+        assertEquals(1, counter.estimate("k"));
+        // El que queda es el del primer tramo y sale con él
+        now.addAndGet(TimeUnit.SECONDS.toNanos(30));
+        assertEquals(0, counter.estimate("k"));
+        counter.decrement("k");
+        assertEquals(1, counter.increment("k"));
+    }
+
+    @Test
+    void waitIsUntilEnoughSlotsLeaveTheWindow() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(Duration.ofSeconds(60), 6, 1024, now::get);
+        counter.increment("k");
+        counter.increment("k");
+        now.addAndGet(TimeUnit.SECONDS.toNanos(25));
+        counter.increment("k");
+        // Con límite 3 basta con que salgan los dos del primer tramo: a los 60 s del inicio
+        assertEquals(TimeUnit.SECONDS.toNanos(35), counter.nanosUntilBelow("k", 3));
+        // Con límite 1 tiene que salir también el de los 25 s (su tramo empezó a los 20 s)
+        assertEquals(TimeUnit.SECONDS.toNanos(55), counter.nanosUntilBelow("k", 1));
+        assertEquals(0, counter.nanosUntilBelow("k", 4));
+    }
+
+    @Test
+    void concurrentIncrementsAreNotLost() throws Exception {
+        SlidingWindowCounter counter = new SlidingWindowCounter(Duration.ofSeconds(60), 6, 1024, now::get);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread th = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 10_000; i++) counter.increment("email:c@x.com");
+            });
+            th.start();
+            threads.add(th);
+        }
+        start.countDown();
+        for (Thread th : threads) th.join();
+
+        // CAS por celda: ningún incremento se pierde
+        assertEquals(80_000, counter.estimate("email:c@x.com"));
+    }
+}